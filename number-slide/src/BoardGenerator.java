@@ -1,173 +1,343 @@
-
-import edu.princeton.cs.algs4.StdRandom;
-
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class used to generate new puzzle boards and write them to disk.
- * For the 3x3 case, we can use total randomness.
- * For the 4x4 and up case, however, the complexity becomes too large
- * for the solver.
- * Instead we start with the goal board, and perform a pre-set number
- * of random tile swaps to arrive at a board configuration.
- * We can then write this to disk to be used later for loading new games.
+ * <p>
+ * Each candidate board is made by a random walk of the blank away from the
+ * goal (never undoing the previous step), then solved optimally with the
+ * IDASolver. The true optimal solution length decides the difficulty band
+ * the board is filed under, so "hard" always means more moves than "medium".
+ * <p>
+ * Generation and solving run in parallel on one worker per core. Boards are
+ * de-duplicated through a concurrent set shared by every worker.
+ * <p>
+ * Rectangular grids use the bands of the square grid with the nearest
+ * number of cells, so a 3x5 board is banded like a 4x4.
+ * <p>
+ * Usage: BoardGenerator [size | rowsxcols] [boards per band] [threads]
  */
 public class BoardGenerator {
 
+    // difficulty band names, also the puzzle sub-directories
+    private static final String[] BANDS = {"easy", "medium", "hard"};
+
+    // optimal solution length ranges [min, max] for each band, by grid size
+    private static final int[][][] BAND_LENGTHS = {
+            {{8, 14}, {15, 21}, {22, 31}},      // 3x3
+            {{20, 29}, {30, 39}, {40, 49}},     // 4x4
+            {{20, 29}, {30, 39}, {40, 49}},     // 5x5
+            {{16, 23}, {24, 31}, {32, 39}}      // 6x6
+    };
+
+    // smallest and largest supported grid sides
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 6;
+
+    // nodes a worker may spend on one candidate before discarding it
+    private static final long NODE_LIMIT = 20_000_000L;
+
+    // grid shared by every worker (read only)
+    private final Grid grid;
+    private final int rows;
+    private final int cols;
+    private final int boardsPerBand;
+
+    // optimal solution length ranges of each band for this grid
+    private final int[][] lengths;
+
+    // boards already seen by any worker
+    private final Set<String> seen;
+
+    // boards claimed so far in each band
+    private final AtomicInteger[] bandCounts;
+
+    // statistics
+    private final AtomicLong candidates;
+    private final AtomicLong discarded;
+
+
+/* **************************************************************************
+ *            * Constructor / Client *
+ ***************************************************************************/
+
+    /**
+     * Constructor sets up the shared state used by the workers.
+     * @param size int grid size (number of rows and columns)
+     * @param boardsPerBand int number of boards to write to each band
+     */
+    public BoardGenerator(int size, int boardsPerBand) {
+
+        this(size, size, boardsPerBand);
+
+    }
+
+    /**
+     * Constructor sets up the shared state used by the workers.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @param boardsPerBand int number of boards to write to each band
+     */
+    public BoardGenerator(int rows, int cols, int boardsPerBand) {
+
+        if (rows < MIN_SIZE || rows > MAX_SIZE || cols < MIN_SIZE || cols > MAX_SIZE)
+            throw new IllegalArgumentException("Grid sides must be between " + MIN_SIZE + " and " + MAX_SIZE);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.boardsPerBand = boardsPerBand;
+        this.grid = new Grid(rows, cols);
+
+        // bands of the square grid closest in cell count
+        int size = (int) Math.round(Math.sqrt(rows * cols));
+        this.lengths = BAND_LENGTHS[Math.min(MAX_SIZE, Math.max(MIN_SIZE, size)) - MIN_SIZE];
+
+        this.seen = ConcurrentHashMap.newKeySet();
+        this.bandCounts = new AtomicInteger[BANDS.length];
+        for (int band = 0; band < BANDS.length; band++)
+            bandCounts[band] = new AtomicInteger();
+        this.candidates = new AtomicLong();
+        this.discarded = new AtomicLong();
+
+    }
+
     /**
      * Client implements the logic described in the class description.
-     * Creates a new set of boards based on the grid size set.
-     * We also keep track of all the boards we currently have to ensure
-     * we don't write duplicates to disk.
+     * Creates a new set of boards for every difficulty band of the grid size.
+     * The grid is given as a single size (4) or as rows and columns (3x5).
      *
-     * @param args String[] standard input args
+     * @param args String[] optional grid size, boards per band and thread count
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws ExecutionException if a worker failed, in which case no summary is printed
      */
-    public static void main(String[] args) {
-
-        // total boards and grid size
-        int TOTAL_BOARDS = 100;
-        int BOARD_SIZE = 4;
-
-        // keep track of boards we've already generated
-        HashSet<Board> boards = new HashSet<>();
-
-        // difficulty is defined as the number of random swaps away from the goal
-        for (int difficulty = 0; difficulty < 3; difficulty++) {
-
-            int count = 0;
-            while (count < TOTAL_BOARDS) {
-                // generate a new board randomly
-                Board testBoard = randomBoard(BOARD_SIZE, difficulty);
-                // check whether the board is already created
-                if (!boards.contains(testBoard)) {
-                    // create file name
-                    String fileName = "puzzles/puzzle4x4/";
-                    if (difficulty == 0)
-                        fileName += "easy/puzzle4x4_easy";
-                    else if (difficulty == 1)
-                        fileName += "medium/puzzle4x4_medium";
-                    else
-                        fileName += "hard/puzzle4x4_hard";
-                    fileName += String.format("%02d.txt", count);
-
-                    boards.add(testBoard);
-                    writeToFile(testBoard, fileName);
-                    count++;
-                }
-            }
-        }
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+
+        String[] shape = (args.length > 0 ? args[0] : "4").split("x");
+        int rows = Integer.parseInt(shape[0]);
+        int cols = shape.length > 1 ? Integer.parseInt(shape[1]) : rows;
+        int boardsPerBand = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        BoardGenerator generator = new BoardGenerator(rows, cols, boardsPerBand);
+
+        long start = System.nanoTime();
+        generator.run(threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int total = boardsPerBand * BANDS.length;
+        System.out.printf("%d boards (%dx%d) in %.1f s - %.0f boards per minute%n",
+                total, rows, cols, seconds, 60.0 * total / seconds);
+        System.out.printf("%d candidates, %d discarded%n", generator.candidates.get(), generator.discarded.get());
 
     }
 
     /**
-     * Private helper method used to randomly generate an nxn puzzle board
-     * configuration. This is done by taking a number of random swaps after
-     * initializing the goal board.
+     * Runs the workers until every band holds boardsPerBand boards.
+     * A worker that fails (for example, unable to write a board) fails the run.
      *
-     * @param size int grid size of new board
-     * @param difficulty int difficulty
-     * @return Board reference to newly generated board
+     * @param threads int number of worker threads
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws ExecutionException holding the first failure of any worker
      */
-    private static Board randomBoard(int size, int difficulty) {
+    public void run(int threads) throws InterruptedException, ExecutionException {
 
-        int complexity;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+            workers.add(pool.submit(this::work));
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        // rethrow the failure of any worker
+        for (Future<?> worker : workers)
+            worker.get();
+
+    }
 
-        if (difficulty == 2)
-            complexity = 100;
-        else if (difficulty == 1)
-            complexity = 80;
-        else
-            complexity = 60;
 
-        // Start from Goal Board and make random swaps
-        Board board = Board.identity(size);
+/* **************************************************************************
+ *            * Worker Methods *
+ ***************************************************************************/
 
-        for (int i = 0; i < complexity; i++)
-            randomSwap(board);
+    /**
+     * Private worker loop. Aims each random walk at a band that still needs
+     * boards, then files the board under whichever band its true optimal
+     * length falls in.
+     */
+    private void work() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (true) {
+            int target = openBand(random);
+            if (target < 0)
+                return;
+
+            // walks longer than the band maximum still often solve inside it
+            int walk = lengths[target][0] + random.nextInt(2 * lengths[target][1] - lengths[target][0] + 1);
+            int[] tiles = randomWalk(walk, random);
+            candidates.incrementAndGet();
 
-        System.out.println(board);
+            // de-duplicate before spending any time solving
+            if (!seen.add(key(tiles)))
+                continue;
 
-        return board;
+            IDASolver solver = new IDASolver(grid, tiles, NODE_LIMIT);
+            if (!solver.solved()) {
+                discarded.incrementAndGet();
+                continue;
+            }
+
+            int band = bandOf(solver.moves());
+            if (band < 0) {
+                discarded.incrementAndGet();
+                continue;
+            }
+
+            // claim an index in the band, or drop the board if the band is full
+            int index = bandCounts[band].getAndIncrement();
+            if (index >= boardsPerBand) {
+                discarded.incrementAndGet();
+                continue;
+            }
+
+            writeToFile(tiles, fileName(band, index));
+        }
 
     }
 
     /**
-     * Private helper method used to perform a random swap.
-     * Considers all the tiles adjacent to the empty tile, i.e., the
-     * neighbors of the board, and randomly chooses one to swap with.
-     *
-     * @param board reference to board to perform swap on
+     * Private helper method that picks a random band still short of boards.
+     * @param random ThreadLocalRandom of the worker
+     * @return int band index, or -1 once every band is full
      */
-    private static void randomSwap(Board board) {
-
-        // find the empty tile location
-        int zeroRow = board.getZeroRow();
-        int zeroCol = board.getZeroCol();
-        // select a random neighbor to swap with
-        int destRow = randomDestRowCol(zeroRow, board.dimension());
-        int destCol = randomDestRowCol(zeroCol, board.dimension());
-
-        // decide whether to swap horizontally or vertically
-        int flip = StdRandom.uniformInt(2);
-        if (flip == 0)
-            board.zeroSwapTile(destRow, zeroCol);
-        else
-            board.zeroSwapTile(zeroRow, destCol);
+    private int openBand(ThreadLocalRandom random) {
+
+        int offset = random.nextInt(BANDS.length);
+        for (int i = 0; i < BANDS.length; i++) {
+            int band = (offset + i) % BANDS.length;
+            if (bandCounts[band].get() < boardsPerBand)
+                return band;
+        }
+        return -1;
+
+    }
+
+    /**
+     * Private helper method mapping an optimal solution length to its band.
+     * @param moves int optimal solution length
+     * @return int band index, or -1 if outside every band
+     */
+    private int bandOf(int moves) {
+
+        for (int band = 0; band < lengths.length; band++) {
+            if (lengths[band][0] <= moves && moves <= lengths[band][1])
+                return band;
+        }
+        return -1;
+
     }
 
     /**
-     * Takes a row/col location, and determines a random neighboring
-     * location based on the grid size provided.
+     * Private helper method used to randomly generate a board configuration.
+     * Starts at the goal and moves the blank the given number of steps, never
+     * immediately undoing the previous step.
      *
-     * @param zeroPos the row/column of the empty space
-     * @param size int number of rows/columns
-     * @return int the random neighboring row/column
+     * @param steps int number of blank moves
+     * @param random ThreadLocalRandom of the worker
+     * @return int[] compact state of the new board
      */
-    private static int randomDestRowCol(int zeroPos, int size) {
+    private int[] randomWalk(int steps, ThreadLocalRandom random) {
 
-        if (zeroPos == 0)
-            return (zeroPos + 1);
+        int[] tiles = grid.goal();
+        int blank = Grid.blankCell(tiles);
+        int last = -1;
 
-        if (zeroPos == size - 1)
-            return (zeroPos - 1);
+        for (int i = 0; i < steps; i++) {
+            int dir;
+            do {
+                dir = random.nextInt(4);
+            } while ((last >= 0 && dir == Grid.reverse(last)) || grid.neighbor(blank, dir) < 0);
+            blank = grid.move(tiles, blank, dir);
+            last = dir;
+        }
+        return tiles;
 
-        int flip = StdRandom.uniformInt(2);
-        if (flip == 0)
-            return (zeroPos - 1);
-        else
-            return (zeroPos + 1);
+    }
+
+    // private helper method returning a hashable key for a compact state
+    private static String key(int[] tiles) {
+
+        return Arrays.toString(tiles);
+
+    }
+
+    // private helper method building the file name of a board in a band
+    private String fileName(int band, int index) {
+
+        return String.format("puzzles/puzzle%dx%d/%s/puzzle%dx%d_%s%02d.txt",
+                rows, cols, BANDS[band], rows, cols, BANDS[band], index);
 
     }
 
     /**
      * Private helper method that writes a Board configuration to disk,
-     * under the file name provided.
-     * Example format: n = 3
-     * 1:3
+     * under the file name provided. Square boards keep the single size on
+     * the first line, rectangular boards write their rows and columns.
+     * Example format: n = 4
+     * 1:4
      * 2: 0  1  8  3
      * 3: 5  2  6 15
      * 4:10  7 13  4
      * 5: 9 14 12 11
+     * Example format: 3 x 5
+     * 1:3 5
+     * 2: 1  2  3  4  5
+     * 3: 6  0  8  9 10
+     * 4:11  7 12 13 14
      *
-     * @param board Board with a given tile configuration
+     * @param tiles int[] compact state of the board
      * @param fileName String location to write board to disk
+     * @throws UncheckedIOException if the band directory cannot be created
      */
-    private static void writeToFile(Board board, String fileName) {
+    private void writeToFile(int[] tiles, String fileName) {
+
+        // band directories are created on first use
+        Path directory = Paths.get(fileName).getParent();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create " + directory, e);
+        }
 
         Out out = new Out(fileName);
-        int n = board.dimension();
-        out.println(n);
-        for (int row = 0; row < n; row++) {
-            for (int col = 0; col < n; col++) {
-                Tile tile = board.getTile(row, col);
-                if (tile == null)
-                    out.printf("%2d ", 0);
-                else
-                    out.printf("%2d ", tile.val());
-            }
+        if (rows == cols)
+            out.println(rows);
+        else
+            out.println(rows + " " + cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++)
+                out.printf("%2d ", tiles[row * cols + col]);
             out.println();
         }
         out.close();
+
     }
 
 }
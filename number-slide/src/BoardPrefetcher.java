@@ -0,0 +1,181 @@
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class used to keep the next board of each grid size ready before the user
+ * asks for it, so a new game appears the instant a size is clicked.
+ * <p>
+ * Each size has a small bounded buffer. A single low-priority background
+ * thread loads boards (see Board.createBoard()), checks they are solvable
+ * and not already solved, and tops the buffers back up after every take().
+ * If a buffer is still empty when a board is needed, the board is created
+ * on the caller's thread instead, exactly as without prefetching.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class BoardPrefetcher {
+
+    // boards kept ready for each size
+    private static final int DEFAULT_CAPACITY = 1;
+
+    // ready boards, and whether a refill is queued or running, by grid size
+    private final Map<Integer, BlockingQueue<Board>> buffers;
+    private final Map<Integer, AtomicBoolean> filling;
+
+    // loads boards in the background
+    private final ExecutorService loader;
+
+    private final int capacity;
+
+
+/* **************************************************************************
+ *            * Constructors *
+ ***************************************************************************/
+
+    /**
+     * Constructor for a prefetcher holding one board per grid size.
+     * @param sizes int... grid sizes to keep boards ready for
+     */
+    public BoardPrefetcher(int... sizes) {
+
+        this(sizes, DEFAULT_CAPACITY);
+
+    }
+
+    /**
+     * Constructor for a prefetcher with a given buffer capacity.
+     * @param sizes int[] grid sizes to keep boards ready for
+     * @param capacity int boards kept ready for each size
+     */
+    public BoardPrefetcher(int[] sizes, int capacity) {
+
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1");
+
+        this.capacity = capacity;
+        this.buffers = new ConcurrentHashMap<>();
+        this.filling = new ConcurrentHashMap<>();
+        for (int size : sizes) {
+            buffers.put(size, new ArrayBlockingQueue<>(capacity));
+            filling.put(size, new AtomicBoolean());
+        }
+
+        this.loader = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "board-prefetcher");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+    }
+
+
+/* **************************************************************************
+ *            * Buffer Methods *
+ ***************************************************************************/
+
+    /**
+     * Starts filling every buffer in the background. Returns at once.
+     */
+    public void prefetch() {
+
+        for (int size : buffers.keySet())
+            refill(size);
+
+    }
+
+    /**
+     * Returns the next board of a grid size, from the buffer if one is ready,
+     * and queues the buffer to be topped up again.
+     * @param size int grid size number of rows and columns
+     * @return Board reference to a new board
+     */
+    public Board take(int size) {
+
+        BlockingQueue<Board> buffer = buffers.get(size);
+        if (buffer == null)
+            return Board.createBoard(size);
+
+        Board board = buffer.poll();
+        if (board == null)
+            board = Board.createBoard(size);
+        refill(size);
+        return board;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of boards ready for a size.
+     * @param size int grid size number of rows and columns
+     * @return int boards in the buffer, 0 if the size is not prefetched
+     */
+    public int ready(int size) {
+
+        BlockingQueue<Board> buffer = buffers.get(size);
+        return buffer == null ? 0 : buffer.size();
+
+    }
+
+    /**
+     * Stops the background loader. Boards already in the buffers can still
+     * be taken, but are no longer replaced.
+     */
+    public void shutdown() {
+
+        loader.shutdownNow();
+
+    }
+
+    /**
+     * Private helper method that queues a background task topping up the
+     * buffer of a size, unless one is already queued or running.
+     * @param size int grid size to refill
+     */
+    private void refill(int size) {
+
+        AtomicBoolean flag = filling.get(size);
+        if (loader.isShutdown() || !flag.compareAndSet(false, true))
+            return;
+
+        loader.execute(() -> {
+            BlockingQueue<Board> buffer = buffers.get(size);
+            boolean failed = false;
+            try {
+                while (buffer.size() < capacity && !Thread.currentThread().isInterrupted()) {
+                    Board board = load(size);
+                    if (board == null) {
+                        failed = true;
+                        break;
+                    }
+                    buffer.offer(board);
+                }
+            } finally {
+                flag.set(false);
+            }
+            // a take() may have emptied the buffer after the last check
+            if (!failed && buffer.size() < capacity)
+                refill(size);
+        });
+
+    }
+
+    /**
+     * Private helper method that creates a board and validates it.
+     * @param size int grid size number of rows and columns
+     * @return Board that is solvable and not yet solved, or null if none can be made
+     */
+    private static Board load(int size) {
+
+        Board board = Board.createBoard(size);
+        if (board == null || !board.isSolvable() || board.isGoal())
+            return null;
+        return board;
+
+    }
+
+}
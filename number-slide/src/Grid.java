@@ -0,0 +1,568 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Class describing the geometry of a number slide grid in the compact form
+ * used by the search algorithms.
+ * <p>
+ * A board state is an int[] of tile values in row-major order, with 0 as the
+ * blank. A move is the direction the blank travels in, encoded so that the
+ * reverse of move d is always (3 - d):
+ * UP = 0, LEFT = 1, RIGHT = 2, DOWN = 3
+ * <p>
+ * The goal arrangement defaults to the standard 1, 2, ..., n-1, 0 layout, but
+ * any reachable arrangement can be supplied (used when re-optimizing pieces
+ * of an existing solution).
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public final class Grid {
+
+    // blank move directions
+    public static final int UP = 0;
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+    public static final int DOWN = 3;
+
+    // grid dimensions
+    private final int rows;
+    private final int cols;
+    private final int cells;
+
+    // neighbors[cell * 4 + dir] = cell the blank reaches, -1 if off the grid
+    private final int[] neighbors;
+
+    // goal arrangement and the goal cell of each tile value
+    private final int[] goal;
+    private final int[] goalCell;
+
+    // distance[tile * cells + cell] = manhattan distance from cell to goal
+    private final int[] distance;
+
+    // zobrist[tile * cells + cell] = random key, built on first use
+    private volatile long[] zobrist;
+
+
+/* **************************************************************************
+ *            * Constructors *
+ ***************************************************************************/
+
+    /**
+     * Constructor for a grid with the standard goal arrangement.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     */
+    public Grid(int rows, int cols) {
+
+        this(rows, cols, standardGoal(rows, cols));
+
+    }
+
+    /**
+     * Constructor for a grid with an arbitrary goal arrangement.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @param goal int[] goal arrangement in row-major order
+     */
+    public Grid(int rows, int cols, int[] goal) {
+
+        if (rows < 2 || cols < 2)
+            throw new IllegalArgumentException("Grid must be at least 2x2");
+        if (goal.length != rows * cols)
+            throw new IllegalArgumentException("Goal does not match grid dimensions");
+
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.goal = goal.clone();
+
+        this.goalCell = new int[cells];
+        for (int cell = 0; cell < cells; cell++)
+            goalCell[goal[cell]] = cell;
+
+        this.neighbors = new int[cells * 4];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / cols;
+            int col = cell % cols;
+            neighbors[cell * 4 + UP] = row > 0 ? cell - cols : -1;
+            neighbors[cell * 4 + LEFT] = col > 0 ? cell - 1 : -1;
+            neighbors[cell * 4 + RIGHT] = col < cols - 1 ? cell + 1 : -1;
+            neighbors[cell * 4 + DOWN] = row < rows - 1 ? cell + cols : -1;
+        }
+
+        // blank distance is left at 0 so the heuristic ignores it
+        this.distance = new int[cells * cells];
+        for (int tile = 1; tile < cells; tile++) {
+            int goalRow = goalCell[tile] / cols;
+            int goalCol = goalCell[tile] % cols;
+            for (int cell = 0; cell < cells; cell++)
+                distance[tile * cells + cell] = Math.abs(cell / cols - goalRow) + Math.abs(cell % cols - goalCol);
+        }
+
+    }
+
+    /**
+     * Private helper method used to build the standard goal arrangement.
+     * @param rows int number of rows
+     * @param cols int number of columns
+     * @return int[] holding 1, 2, ..., rows * cols - 1, 0
+     */
+    private static int[] standardGoal(int rows, int cols) {
+
+        int[] goal = new int[rows * cols];
+        for (int cell = 0; cell < goal.length - 1; cell++)
+            goal[cell] = cell + 1;
+        return goal;
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to obtain the number of rows.
+     * @return int number of rows
+     */
+    public int rows() {
+
+        return rows;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of columns.
+     * @return int number of columns
+     */
+    public int cols() {
+
+        return cols;
+
+    }
+
+    /**
+     * Accessor method used to obtain the total number of cells.
+     * @return int rows * cols
+     */
+    public int cells() {
+
+        return cells;
+
+    }
+
+    /**
+     * Returns the cell the blank reaches when moving from cell in direction dir.
+     * @param cell int current blank cell
+     * @param dir int move direction
+     * @return int destination cell, or -1 if the move leaves the grid
+     */
+    public int neighbor(int cell, int dir) {
+
+        return neighbors[cell * 4 + dir];
+
+    }
+
+    /**
+     * Accessor method used to obtain the goal cell of a tile.
+     * @param tile int tile value (0 is the blank)
+     * @return int goal cell of the tile
+     */
+    public int goalCell(int tile) {
+
+        return goalCell[tile];
+
+    }
+
+    /**
+     * Returns the manhattan distance of a tile sitting at a given cell.
+     * @param tile int tile value
+     * @param cell int cell the tile occupies
+     * @return int distance to the goal cell, always 0 for the blank
+     */
+    public int distance(int tile, int cell) {
+
+        return distance[tile * cells + cell];
+
+    }
+
+    /**
+     * Returns a copy of the goal arrangement.
+     * @return int[] goal tiles in row-major order
+     */
+    public int[] goal() {
+
+        return goal.clone();
+
+    }
+
+    /**
+     * Returns the reverse of a move direction.
+     * @param dir int move direction
+     * @return int direction undoing dir
+     */
+    public static int reverse(int dir) {
+
+        return 3 - dir;
+
+    }
+
+
+/* **************************************************************************
+ *            * State Methods *
+ ***************************************************************************/
+
+    /**
+     * Used to check whether a state is the goal arrangement.
+     * @param tiles int[] state to check
+     * @return true if every tile is in its goal cell
+     */
+    public boolean isGoal(int[] tiles) {
+
+        return Arrays.equals(tiles, goal);
+
+    }
+
+    /**
+     * Finds the cell holding the blank.
+     * @param tiles int[] state to search
+     * @return int cell of the blank
+     */
+    public static int blankCell(int[] tiles) {
+
+        for (int cell = 0; cell < tiles.length; cell++) {
+            if (tiles[cell] == 0)
+                return cell;
+        }
+        throw new IllegalArgumentException("State has no blank");
+
+    }
+
+    /**
+     * Moves the blank of a state in place.
+     * @param tiles int[] state to update
+     * @param blank int current blank cell
+     * @param dir int direction to move the blank
+     * @return int new blank cell, or -1 if the move was not possible
+     */
+    public int move(int[] tiles, int blank, int dir) {
+
+        int next = neighbors[blank * 4 + dir];
+        if (next < 0)
+            return -1;
+        tiles[blank] = tiles[next];
+        tiles[next] = 0;
+        return next;
+
+    }
+
+    /**
+     * Applies a sequence of moves to a copy of the state provided.
+     * @param tiles int[] starting state (left unchanged)
+     * @param moves int[] move directions
+     * @return int[] state after every move
+     * @throws IllegalArgumentException if a move leaves the grid
+     */
+    public int[] apply(int[] tiles, int[] moves) {
+
+        int[] result = tiles.clone();
+        int blank = blankCell(result);
+        for (int dir : moves) {
+            blank = move(result, blank, dir);
+            if (blank < 0)
+                throw new IllegalArgumentException("Move sequence leaves the grid");
+        }
+        return result;
+
+    }
+
+    /**
+     * Sum of the manhattan distances of every tile to its goal cell.
+     * @param tiles int[] state to score
+     * @return int manhattan distance of the state
+     */
+    public int manhattan(int[] tiles) {
+
+        int total = 0;
+        for (int cell = 0; cell < cells; cell++)
+            total += distance[tiles[cell] * cells + cell];
+        return total;
+
+    }
+
+    /**
+     * The number of tiles that must leave a row so that every tile of that row
+     * already in its goal row appears in goal order.
+     * Each such tile costs at least two extra moves over manhattan distance.
+     *
+     * @param tiles int[] state to score
+     * @param row int row to check
+     * @param scratch int[] work space of at least scratchSize() entries
+     * @return int number of conflicting tiles in the row
+     */
+    public int rowConflicts(int[] tiles, int row, int[] scratch) {
+
+        int count = 0;
+        for (int col = 0; col < cols; col++) {
+            int tile = tiles[row * cols + col];
+            if (tile != 0 && goalCell[tile] / cols == row)
+                scratch[count++] = goalCell[tile] % cols;
+        }
+        return count - longestIncreasing(scratch, count);
+
+    }
+
+    /**
+     * The number of tiles that must leave a column so that every tile of that
+     * column already in its goal column appears in goal order.
+     *
+     * @param tiles int[] state to score
+     * @param col int column to check
+     * @param scratch int[] work space of at least scratchSize() entries
+     * @return int number of conflicting tiles in the column
+     */
+    public int colConflicts(int[] tiles, int col, int[] scratch) {
+
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            int tile = tiles[row * cols + col];
+            if (tile != 0 && goalCell[tile] % cols == col)
+                scratch[count++] = goalCell[tile] / cols;
+        }
+        return count - longestIncreasing(scratch, count);
+
+    }
+
+    /**
+     * Size of the work space needed by the conflict methods. Callers on a hot
+     * path keep one of these per thread to avoid allocating on every move.
+     * @return int minimum scratch array length
+     */
+    public int scratchSize() {
+
+        return 2 * Math.max(rows, cols);
+
+    }
+
+    /**
+     * Manhattan distance plus linear conflicts. Admissible for any goal.
+     * @param tiles int[] state to score
+     * @return int lower bound on the moves needed to reach the goal
+     */
+    public int heuristic(int[] tiles) {
+
+        int[] scratch = new int[scratchSize()];
+        int conflicts = 0;
+        for (int row = 0; row < rows; row++)
+            conflicts += rowConflicts(tiles, row, scratch);
+        for (int col = 0; col < cols; col++)
+            conflicts += colConflicts(tiles, col, scratch);
+        return manhattan(tiles) + 2 * conflicts;
+
+    }
+
+    /**
+     * Heuristic of a state one move away from a state whose heuristic is
+     * known. Only the manhattan distance of the moved tile and the conflicts
+     * of the two lines it moved between are recomputed.
+     *
+     * @param h int heuristic of the parent state
+     * @param parent int[] state before the move
+     * @param child int[] state after the tile at next slid into blank
+     * @param blank int blank cell of the parent
+     * @param next int blank cell of the child
+     * @param scratch int[] work space of at least scratchSize()
+     * @return int heuristic of the child state
+     */
+    public int heuristicAfterMove(int h, int[] parent, int[] child, int blank, int next, int[] scratch) {
+
+        int tile = child[blank];
+        h += distance(tile, blank) - distance(tile, next);
+        if (blank % cols == next % cols) {
+            // the tile changed rows, so only those two rows are affected
+            h += 2 * (rowConflicts(child, blank / cols, scratch) + rowConflicts(child, next / cols, scratch)
+                    - rowConflicts(parent, blank / cols, scratch) - rowConflicts(parent, next / cols, scratch));
+        } else {
+            h += 2 * (colConflicts(child, blank % cols, scratch) + colConflicts(child, next % cols, scratch)
+                    - colConflicts(parent, blank % cols, scratch) - colConflicts(parent, next % cols, scratch));
+        }
+        return h;
+
+    }
+
+    /**
+     * Private helper method returning the length of the longest strictly
+     * increasing subsequence of the first count values. The second half of
+     * the values array is used as work space.
+     */
+    private static int longestIncreasing(int[] values, int count) {
+
+        if (count < 2)
+            return count;
+
+        int offset = values.length / 2;
+        int longest = 0;
+        for (int i = 0; i < count; i++) {
+            int best = 1;
+            for (int j = 0; j < i; j++) {
+                if (values[j] < values[i] && values[offset + j] + 1 > best)
+                    best = values[offset + j] + 1;
+            }
+            values[offset + i] = best;
+            longest = Math.max(longest, best);
+        }
+        return longest;
+
+    }
+
+    /**
+     * Used to determine whether the goal can be reached from a state.
+     * Sliding moves preserve the parity of the tile permutation combined with
+     * the blank's taxicab distance from its goal cell, for any grid shape.
+     *
+     * @param tiles int[] state to check
+     * @return true if the goal is reachable
+     */
+    public boolean isSolvable(int[] tiles) {
+
+        // permutation taking each cell to the goal cell of its tile
+        int[] target = new int[cells];
+        for (int cell = 0; cell < cells; cell++)
+            target[cell] = goalCell[tiles[cell]];
+
+        // parity from the number of even-length cycles
+        boolean[] seen = new boolean[cells];
+        int parity = 0;
+        for (int start = 0; start < cells; start++) {
+            if (seen[start])
+                continue;
+            int length = 0;
+            for (int cell = start; !seen[cell]; cell = target[cell]) {
+                seen[cell] = true;
+                length++;
+            }
+            if (length % 2 == 0)
+                parity ^= 1;
+        }
+
+        int blank = blankCell(tiles);
+        int blankDistance = Math.abs(blank / cols - goalCell[0] / cols) + Math.abs(blank % cols - goalCell[0] % cols);
+
+        return parity == blankDistance % 2;
+
+    }
+
+
+/* **************************************************************************
+ *            * Hashing Methods *
+ ***************************************************************************/
+
+    /**
+     * Returns the Zobrist key of a tile sitting at a given cell. The hash of a
+     * state is the XOR of the keys of every (tile, cell) pair, so a single
+     * move updates the hash with four XORs (see hashMove()).
+     *
+     * @param tile int tile value (0 is the blank)
+     * @param cell int cell the tile occupies
+     * @return long random key
+     */
+    public long zobrist(int tile, int cell) {
+
+        return zobristTable()[tile * cells + cell];
+
+    }
+
+    /**
+     * Computes the Zobrist hash of a whole state.
+     * @param tiles int[] state to hash
+     * @return long hash of the state
+     */
+    public long hash(int[] tiles) {
+
+        long[] table = zobristTable();
+        long hash = 0L;
+        for (int cell = 0; cell < cells; cell++)
+            hash ^= table[tiles[cell] * cells + cell];
+        return hash;
+
+    }
+
+    /**
+     * Updates a Zobrist hash for the tile at next sliding into the blank cell.
+     * @param hash long hash before the move
+     * @param tile int tile that slides
+     * @param blank int blank cell before the move
+     * @param next int cell the tile leaves (the new blank cell)
+     * @return long hash after the move
+     */
+    public long hashMove(long hash, int tile, int blank, int next) {
+
+        long[] table = zobristTable();
+        return hash
+                ^ table[tile * cells + next] ^ table[tile * cells + blank]
+                ^ table[blank] ^ table[next];
+
+    }
+
+    /**
+     * Private helper method that builds the Zobrist keys the first time they
+     * are needed. The keys are seeded by the grid dimensions, so every Grid
+     * of the same shape hashes identically.
+     */
+    private long[] zobristTable() {
+
+        long[] table = zobrist;
+        if (table == null) {
+            SplittableRandom random = new SplittableRandom(31L * rows + cols);
+            table = new long[cells * cells];
+            for (int i = 0; i < table.length; i++)
+                table[i] = random.nextLong();
+            zobrist = table;
+        }
+        return table;
+
+    }
+
+
+/* **************************************************************************
+ *            * Board Conversion Methods *
+ ***************************************************************************/
+
+    /**
+     * Extracts the compact state of a Board.
+     * @param board Board to convert
+     * @return int[] tile values in row-major order
+     */
+    public static int[] tilesOf(Board board) {
+
+        int rows = board.rows();
+        int cols = board.cols();
+        int[] tiles = new int[rows * cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                Tile tile = board.getTile(row, col);
+                tiles[row * cols + col] = tile == null ? 0 : tile.val();
+            }
+        }
+        return tiles;
+
+    }
+
+    /**
+     * Builds a Board from a compact state.
+     * @param tiles int[] tile values in row-major order
+     * @return Board with the same configuration
+     */
+    public Board toBoard(int[] tiles) {
+
+        Tile[][] boardTiles = new Tile[rows][cols];
+        for (int cell = 0; cell < cells; cell++) {
+            int val = tiles[cell];
+            if (val != 0)
+                boardTiles[cell / cols][cell % cols] = new Tile(val, rows, cols);
+        }
+        return new Board(boardTiles);
+
+    }
+
+}
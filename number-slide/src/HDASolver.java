@@ -0,0 +1,534 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class implements hash-distributed A* (HDA*), an optimal parallel best-first
+ * search for the Number Slide puzzle game.
+ * <p>
+ * Every worker thread owns the states whose Zobrist hash maps to it, and keeps
+ * their open list and best known cost privately, so duplicate detection needs
+ * no locks. A generated state is sent to its owner: states owned by the
+ * generating worker are handled at once, the rest are batched and handed over
+ * through lock-free queues.
+ * <p>
+ * The cheapest solution found so far (the incumbent) is shared by every
+ * worker and prunes any state that cannot beat it. The search is over once
+ * every worker is idle and no batch is in flight, at which point the
+ * incumbent is optimal. Termination is detected with a count of batches in
+ * flight plus a count of idle workers, re-checked against a count of
+ * activations so that a worker waking up between the two reads is noticed.
+ * <p>
+ * The heuristic is manhattan distance plus linear conflicts (see Grid).
+ * Solutions are reported as a list of blank move directions.
+ */
+public class HDASolver {
+
+    // states per batch sent to another worker
+    private static final int BATCH_SIZE = 64;
+
+    // expansions between forced flushes of partly filled batches
+    private static final int FLUSH_INTERVAL = 256;
+
+    // pause of an idle worker between checks of its inbox
+    private static final long IDLE_PARK_NANOS = 50_000L;
+
+    /**
+     * Private inner class Node holds one state of the search. Nodes are never
+     * changed once created, so other workers can safely follow prev links.
+     */
+    private static class Node {
+        final byte[] tiles;
+        final long hash;
+        final int blank;
+        final int g;
+        final int h;
+        final Node prev;
+        final int dir;
+
+        Node(byte[] tiles, long hash, int blank, int g, int h, Node prev, int dir) {
+            this.tiles = tiles;
+            this.hash = hash;
+            this.blank = blank;
+            this.g = g;
+            this.h = h;
+            this.prev = prev;
+            this.dir = dir;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Node && Arrays.equals(tiles, ((Node) other).tiles);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    // search parameters
+    private final Grid grid;
+    private final int threads;
+    private final long nodeLimit;
+    private final Worker[] workers;
+
+    // termination detection
+    private final AtomicLong inFlight;
+    private final AtomicInteger idleWorkers;
+    private final AtomicLong activations;
+    private volatile boolean finished;
+    private volatile boolean aborted;
+
+    // incumbent solution shared by every worker
+    private volatile int bestCost;
+    private Node bestGoal;
+
+    // caching variables
+    private final boolean solvable;
+    private boolean solved;
+    private int[] solution;
+    private long nodes;
+
+    // search statistics, null when sampling is disabled
+    private final SolverStats stats;
+
+
+/* **************************************************************************
+ *            * Constructors (HDA* Implementation) *
+ ***************************************************************************/
+
+    /**
+     * Solves the state provided with one worker per available core.
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     */
+    public HDASolver(Grid grid, int[] start) {
+
+        this(grid, start, Runtime.getRuntime().availableProcessors(), Long.MAX_VALUE);
+
+    }
+
+    /**
+     * Solves the state provided, giving up once the workers together store
+     * about nodeLimit states. Use solved() to check whether a solution was
+     * found.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param threads int number of worker threads
+     * @param nodeLimit long maximum number of states stored
+     */
+    public HDASolver(Grid grid, int[] start, int threads, long nodeLimit) {
+
+        if (grid == null || start == null)
+            throw new IllegalArgumentException("Grid and start state must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one worker thread is required");
+
+        this.grid = grid;
+        this.threads = threads;
+        this.nodeLimit = nodeLimit;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Worker(i);
+        this.inFlight = new AtomicLong();
+        this.idleWorkers = new AtomicInteger();
+        this.activations = new AtomicLong();
+        this.bestCost = Integer.MAX_VALUE;
+        this.stats = SolverStats.ENABLED ? new SolverStats("HDA*") : null;
+
+        SolverStats.SolveEvent event = new SolverStats.SolveEvent();
+        event.begin();
+
+        this.solvable = grid.isSolvable(start);
+        if (solvable)
+            search(start);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.solver = "HDA*";
+            event.rows = grid.rows();
+            event.cols = grid.cols();
+            event.moves = moves();
+            event.expanded = nodes;
+            event.commit();
+        }
+
+    }
+
+    /**
+     * Private helper method that seeds the owner of the start state, runs the
+     * workers to completion and recovers the solution path.
+     * @param start int[] initial state
+     */
+    private void search(int[] start) {
+
+        long setupStart = System.nanoTime();
+        long hash = grid.hash(start);
+        Node root = new Node(pack(start), hash, Grid.blankCell(start), 0, grid.heuristic(start), null, -1);
+        workers[owner(hash)].receive(root);
+
+        long searchStart = System.nanoTime();
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            running[i] = new Thread(workers[i], "hda-worker-" + i);
+            running[i].start();
+        }
+        for (Thread thread : running) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finished = true;
+                aborted = true;
+            }
+        }
+
+        long pathStart = System.nanoTime();
+        for (Worker worker : workers)
+            nodes += worker.expanded;
+        if (!aborted && bestGoal != null) {
+            solved = true;
+            solution = new int[bestGoal.g];
+            for (Node node = bestGoal; node.prev != null; node = node.prev)
+                solution[node.g - 1] = node.dir;
+        }
+
+        if (SolverStats.ENABLED) {
+            stats.initialHeuristic(root.h);
+            stats.timing(searchStart - setupStart, pathStart - searchStart, System.nanoTime() - pathStart);
+        }
+
+    }
+
+    // private helper method mapping a state hash to the worker owning it
+    private int owner(long hash) {
+
+        return (int) Long.remainderUnsigned(hash >>> 17, threads);
+
+    }
+
+    // private helper method used to record a goal state reached by a worker
+    private synchronized void offerGoal(Node goal) {
+
+        if (goal.g < bestCost) {
+            bestGoal = goal;
+            bestCost = goal.g;
+        }
+
+    }
+
+    /**
+     * Private helper method checking whether the search is over: every worker
+     * idle and no batch in flight, with no worker woken up meanwhile.
+     */
+    private void checkTermination() {
+
+        long before = activations.get();
+        if (idleWorkers.get() == threads && inFlight.get() == 0 && activations.get() == before)
+            finished = true;
+
+    }
+
+    // private helper method used to store a state one byte per cell
+    private static byte[] pack(int[] tiles) {
+
+        byte[] packed = new byte[tiles.length];
+        for (int cell = 0; cell < tiles.length; cell++)
+            packed[cell] = (byte) tiles[cell];
+        return packed;
+
+    }
+
+
+/* **************************************************************************
+ *            * Worker *
+ ***************************************************************************/
+
+    /**
+     * Private inner class Worker searches the states it owns.
+     */
+    private class Worker implements Runnable {
+
+        final int id;
+
+        // batches sent by other workers
+        final Queue<Node[]> inbox = new ConcurrentLinkedQueue<>();
+
+        // owned states: open list and best known cost of each state seen
+        final PriorityQueue<Node> open = new PriorityQueue<>((x, y) -> {
+            int order = Integer.compare(x.g + x.h, y.g + y.h);
+            return order != 0 ? order : Integer.compare(y.g, x.g);
+        });
+        final Map<Node, Node> seen = new HashMap<>();
+
+        // states waiting to be sent, one list per destination worker
+        final List<List<Node>> outgoing = new ArrayList<>();
+
+        // expansion work space
+        final int[] parent = new int[grid.cells()];
+        final int[] child = new int[grid.cells()];
+        final int[] scratch = new int[grid.scratchSize()];
+        long expanded;
+
+        // per-thread sampling, flushed into the shared statistics at the end
+        long generated;
+        long duplicates;
+        long heuristicSum;
+        long[] fCounts = new long[0];
+        int maxOpen;
+
+        Worker(int id) {
+            this.id = id;
+            for (int i = 0; i < threads; i++)
+                outgoing.add(new ArrayList<>(BATCH_SIZE));
+        }
+
+        /**
+         * Worker loop: handle incoming batches first, then expand the best
+         * owned state, and go idle once there is nothing left to do.
+         */
+        @Override
+        public void run() {
+
+            boolean idle = false;
+            int sinceFlush = 0;
+
+            while (!finished) {
+                Node[] batch = inbox.poll();
+                if (batch != null) {
+                    if (idle) {
+                        activations.incrementAndGet();
+                        idleWorkers.decrementAndGet();
+                        idle = false;
+                    }
+                    for (Node node : batch)
+                        receive(node);
+                    inFlight.decrementAndGet();
+                    continue;
+                }
+
+                Node node = nextOpen();
+                if (node != null) {
+                    expand(node);
+                    if (++sinceFlush >= FLUSH_INTERVAL) {
+                        flushAll();
+                        sinceFlush = 0;
+                    }
+                    if (seen.size() > nodeLimit / threads) {
+                        aborted = true;
+                        finished = true;
+                    }
+                    continue;
+                }
+
+                flushAll();
+                if (!idle) {
+                    idleWorkers.incrementAndGet();
+                    idle = true;
+                }
+                checkTermination();
+                if (!finished)
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+
+            if (SolverStats.ENABLED) {
+                stats.addCounts(generated, expanded, duplicates);
+                stats.addHeuristic(heuristicSum, generated);
+                stats.addHistogram(fCounts);
+                stats.queueSize(maxOpen);
+            }
+
+        }
+
+        /**
+         * Handles a state owned by this worker: drops it if already reached as
+         * cheaply, records a goal, or queues it for expansion.
+         * @param node Node reached by some worker
+         */
+        void receive(Node node) {
+
+            Node known = seen.get(node);
+            if (known != null && known.g <= node.g) {
+                if (SolverStats.ENABLED)
+                    duplicates++;
+                return;
+            }
+            seen.put(node, node);
+
+            if (node.h == 0)
+                offerGoal(node);
+            else if (node.g + node.h < bestCost) {
+                open.add(node);
+                if (SolverStats.ENABLED && open.size() > maxOpen)
+                    maxOpen = open.size();
+            }
+
+        }
+
+        // returns the best open state that is still current and can beat the incumbent
+        Node nextOpen() {
+
+            while (!open.isEmpty()) {
+                Node node = open.poll();
+                if (node.g + node.h >= bestCost) {
+                    // every remaining state is at least as costly
+                    open.clear();
+                    return null;
+                }
+                if (seen.get(node) == node)
+                    return node;
+            }
+            return null;
+
+        }
+
+        /**
+         * Generates the neighbors of a state and sends each to its owner.
+         * The heuristic is updated incrementally from the parent's value.
+         * @param node Node being expanded
+         */
+        void expand(Node node) {
+
+            expanded++;
+            for (int cell = 0; cell < parent.length; cell++)
+                parent[cell] = node.tiles[cell];
+
+            int blank = node.blank;
+            for (int dir = 0; dir < 4; dir++) {
+                if (dir == Grid.reverse(node.dir))
+                    continue;
+                int next = grid.neighbor(blank, dir);
+                if (next < 0)
+                    continue;
+
+                System.arraycopy(parent, 0, child, 0, parent.length);
+                int tile = child[next];
+                child[blank] = tile;
+                child[next] = 0;
+
+                int h = grid.heuristicAfterMove(node.h, parent, child, blank, next, scratch);
+
+                int g = node.g + 1;
+                if (g + h >= bestCost)
+                    continue;
+
+                long hash = grid.hashMove(node.hash, tile, blank, next);
+                Node generated = new Node(pack(child), hash, next, g, h, node, dir);
+                if (SolverStats.ENABLED) {
+                    this.generated++;
+                    heuristicSum += h;
+                    fCounts = SolverStats.count(fCounts, g + h);
+                }
+                int owner = owner(hash);
+                if (owner == id) {
+                    receive(generated);
+                } else {
+                    List<Node> batch = outgoing.get(owner);
+                    batch.add(generated);
+                    if (batch.size() >= BATCH_SIZE)
+                        flush(owner);
+                }
+            }
+
+        }
+
+        // sends every partly filled batch
+        void flushAll() {
+
+            for (int owner = 0; owner < threads; owner++) {
+                if (!outgoing.get(owner).isEmpty())
+                    flush(owner);
+            }
+
+        }
+
+        // sends the batch waiting for one worker (counted before it becomes visible)
+        void flush(int owner) {
+
+            List<Node> batch = outgoing.get(owner);
+            inFlight.incrementAndGet();
+            workers[owner].inbox.add(batch.toArray(new Node[0]));
+            batch.clear();
+
+        }
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to check whether the goal can be reached at all.
+     * @return true if the start state has the goal's parity
+     */
+    public boolean solvable() {
+
+        return solvable;
+
+    }
+
+    /**
+     * Accessor method used to check whether an optimal solution was found.
+     * @return true if the search finished within the node limit
+     */
+    public boolean solved() {
+
+        return solved;
+
+    }
+
+    /**
+     * Accessor method used to obtain the optimal number of moves.
+     * @return int solution length, or -1 if no solution was found
+     */
+    public int moves() {
+
+        return solved ? solution.length : -1;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of states expanded.
+     * @return long expansions made by every worker together
+     */
+    public long nodes() {
+
+        return nodes;
+
+    }
+
+    /**
+     * Accessor method used to obtain the search statistics.
+     * @return SolverStats of the solve, or null if sampling is disabled
+     */
+    public SolverStats stats() {
+
+        return stats;
+
+    }
+
+    /**
+     * Accessor method used to obtain the optimal solution.
+     * @return int[] blank move directions, or null if no solution was found
+     */
+    public int[] solution() {
+
+        return solved ? solution.clone() : null;
+
+    }
+
+}
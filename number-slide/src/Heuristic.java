@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interface for the state evaluations used to rank states in BeamSolver.
+ * <p>
+ * An estimate need not be admissible; lower simply means closer to the goal,
+ * and 0 must mean the goal itself. Implementations must be safe to call from
+ * several threads at once.
+ */
+public interface Heuristic {
+
+    /**
+     * Evaluates a whole state.
+     * @param tiles int[] state to score
+     * @return int estimate, 0 at the goal
+     */
+    int estimate(int[] tiles);
+
+    /**
+     * Evaluates the state reached by sliding the tile at next into the blank
+     * cell, without changing tiles. The default re-evaluates a copy of the
+     * state; implementations should update h incrementally instead.
+     *
+     * @param h int estimate of tiles
+     * @param tiles int[] state before the move (left unchanged)
+     * @param where int[] cell of every tile of the state before the move
+     * @param blank int blank cell before the move
+     * @param next int cell the tile leaves (the new blank cell)
+     * @return int estimate of the state after the move
+     */
+    default int afterMove(int h, int[] tiles, int[] where, int blank, int next) {
+
+        int[] child = tiles.clone();
+        child[blank] = child[next];
+        child[next] = 0;
+        return estimate(child);
+
+    }
+
+    /**
+     * Groups estimates into phases within which the same tiles are relevant
+     * (see relevant()). Phases count progress: BeamSolver never keeps a
+     * state in an earlier phase than the state it came from. The default has
+     * a single phase.
+     *
+     * @param h int estimate of a state
+     * @return int phase of states with that estimate
+     */
+    default int phase(int h) {
+
+        return 0;
+
+    }
+
+    /**
+     * Whether the position of a tile can affect the estimates of a phase.
+     * Two states that only differ in where irrelevant tiles sit are treated
+     * as the same state by BeamSolver, which keeps a beam from drifting over
+     * a plateau of equally scored states forever. The default makes every
+     * tile relevant.
+     *
+     * @param tile int tile value
+     * @param phase int phase from phase()
+     * @return true if the tile's position matters in that phase
+     */
+    default boolean relevant(int tile, int phase) {
+
+        return true;
+
+    }
+
+    /**
+     * Plain manhattan distance (see Grid).
+     * @param grid Grid describing the board geometry and goal
+     * @return Heuristic summing every tile's distance to its goal cell
+     */
+    static Heuristic manhattan(Grid grid) {
+
+        return new Heuristic() {
+            @Override
+            public int estimate(int[] tiles) {
+                return grid.manhattan(tiles);
+            }
+
+            @Override
+            public int afterMove(int h, int[] tiles, int[] where, int blank, int next) {
+                int tile = tiles[next];
+                return h + grid.distance(tile, blank) - grid.distance(tile, next);
+            }
+        };
+
+    }
+
+    /**
+     * Staged heuristic following the order in which a person (or the
+     * ReductionSolver) places the tiles: the top row, then the left column,
+     * and so on inward until a 3x3 region is left. Only the first unfinished
+     * line counts: its tiles' manhattan distance, weighted toward the start
+     * of the line, comes first, and the blank's
+     * distance to the first misplaced tile of the line breaks ties, drawing
+     * the blank to the next tile to place. Each unfinished line adds more
+     * than any single line can cost, so a beam finishes the outer lines one
+     * at a time and never disturbs a finished line again. Each line is a
+     * phase in which the tiles of later lines are irrelevant.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @return Heuristic scoring the first unfinished line
+     */
+    static Heuristic reduction(Grid grid) {
+
+        int rows = grid.rows();
+        int cols = grid.cols();
+        int[] goal = grid.goal();
+
+        // tiles of each line in placing order, then of the final region
+        List<int[]> lines = new ArrayList<>();
+        int top = 0;
+        int left = 0;
+        while (rows - top > 3 || cols - left > 3) {
+            if (rows - top >= cols - left) {
+                int[] line = new int[cols - left];
+                for (int col = left; col < cols; col++)
+                    line[col - left] = goal[top * cols + col];
+                lines.add(line);
+                top++;
+            } else {
+                int[] line = new int[rows - top];
+                for (int row = top; row < rows; row++)
+                    line[row - top] = goal[row * cols + left];
+                lines.add(line);
+                left++;
+            }
+        }
+        int[] region = new int[(rows - top) * (cols - left)];
+        int size = 0;
+        for (int row = top; row < rows; row++) {
+            for (int col = left; col < cols; col++) {
+                if (goal[row * cols + col] != 0)
+                    region[size++] = goal[row * cols + col];
+            }
+        }
+        lines.add(Arrays.copyOf(region, size));
+
+        int[][] members = lines.toArray(new int[0][]);
+        int[] group = new int[grid.cells()];
+        for (int g = 0; g < members.length; g++) {
+            for (int tile : members[g])
+                group[tile] = g;
+        }
+
+        // a step of a tile outweighs any blank distance, a line outweighs any line
+        int step = rows + cols;
+        int longest = Math.max(size, Math.max(rows, cols));
+        int stage = step * (longest * (longest + 1) / 2) * (rows + cols) + step;
+
+        return new Heuristic() {
+            @Override
+            public int estimate(int[] tiles) {
+                int[] where = new int[tiles.length];
+                for (int cell = 0; cell < tiles.length; cell++)
+                    where[tiles[cell]] = cell;
+                return score(0, where, -1, -1);
+            }
+
+            @Override
+            public int afterMove(int h, int[] tiles, int[] where, int blank, int next) {
+                int tile = tiles[next];
+                return score(Math.min(phase(h), group[tile]), where, tile, blank);
+            }
+
+            @Override
+            public int phase(int h) {
+                return Math.min(members.length - h / stage, members.length - 1);
+            }
+
+            @Override
+            public boolean relevant(int tile, int phase) {
+                return group[tile] <= phase;
+            }
+
+            /*
+             * Scores a state whose lines before first are finished. The state
+             * is the one described by where, except that moved (unless -1)
+             * has slid into cell, leaving the blank where it was.
+             */
+            private int score(int first, int[] where, int moved, int cell) {
+                int empty = moved < 0 ? where[0] : where[moved];
+                for (int g = first; g < members.length; g++) {
+                    int distance = 0;
+                    int target = -1;
+                    int[] line = members[g];
+                    for (int i = 0; i < line.length; i++) {
+                        int at = line[i] == moved ? cell : where[line[i]];
+                        int d = grid.distance(line[i], at);
+                        // tiles earlier in the line weigh more, so they are placed first
+                        distance += (line.length - i) * d;
+                        if (d > 0 && target < 0)
+                            target = at;
+                    }
+                    if (distance > 0) {
+                        int reach = Math.abs(target / cols - empty / cols) + Math.abs(target % cols - empty % cols);
+                        return (members.length - g) * stage + step * distance + reach;
+                    }
+                }
+                return 0;
+            }
+        };
+
+    }
+
+}
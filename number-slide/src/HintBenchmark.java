@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Class used to measure the latency of the HintEngine on pre-computed
+ * puzzles (from the indexed pack of every known puzzle, or the medium pack
+ * if there is none).
+ * <p>
+ * Every puzzle is played to the goal the way a player asking for hints
+ * would: mostly following the hints, but with a random off-path move every
+ * so often, which forces a fresh search. Each hint is timed, and the
+ * latency percentiles are reported separately for cold hints (the first
+ * hint of a puzzle, or the first after leaving the cached path) and for
+ * every hint together. A first pass over the puzzles warms up the JIT.
+ * <p>
+ * Usage: HintBenchmark [size] [budget ms] [deviation rate]
+ */
+public class HintBenchmark {
+
+    // target 99th percentile latency
+    private static final double TARGET_MILLIS = 50.0;
+
+    /**
+     * Client runs the benchmark described in the class description.
+     * @param args String[] optional grid size, time budget and chance of an off-path move
+     */
+    public static void main(String[] args) {
+
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : HintEngine.DEFAULT_BUDGET_MILLIS;
+        double deviation = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+
+        List<int[]> puzzles = puzzles(size);
+        if (puzzles.isEmpty()) {
+            System.out.println("No " + size + "x" + size + " puzzles found");
+            return;
+        }
+        Grid grid = new Grid(size, size);
+
+        // warm-up pass, results discarded
+        play(grid, puzzles, budget, deviation, new ArrayList<>(), new ArrayList<>());
+
+        List<Long> cold = new ArrayList<>();
+        List<Long> all = new ArrayList<>();
+        int suboptimal = play(grid, puzzles, budget, deviation, cold, all);
+
+        System.out.printf("%d puzzles (%dx%d), budget %d ms, %d hints, %d not optimal%n",
+                puzzles.size(), size, size, budget, all.size(), suboptimal);
+        report("cold", cold);
+        report("all", all);
+        double p99 = percentile(all, 0.99) / 1e6;
+        System.out.printf("p99 %.2f ms - %s%n", p99, p99 < TARGET_MILLIS ? "within target" : "OVER TARGET");
+
+    }
+
+    /**
+     * Private helper method that plays every puzzle to the goal with hints.
+     * @param grid Grid of the puzzles
+     * @param puzzles List of starting states
+     * @param budget long search time budget in milliseconds
+     * @param deviation double chance of an off-path move instead of the hint
+     * @param cold List collecting the nanoseconds of cold hints
+     * @param all List collecting the nanoseconds of every hint
+     * @return int number of hints that were not optimal
+     */
+    private static int play(Grid grid, List<int[]> puzzles, long budget, double deviation,
+                            List<Long> cold, List<Long> all) {
+
+        SplittableRandom random = new SplittableRandom(42);
+        int suboptimal = 0;
+        for (int[] puzzle : puzzles) {
+            HintEngine engine = new HintEngine(grid, budget);
+            int[] tiles = puzzle.clone();
+            int blank = Grid.blankCell(tiles);
+            boolean onPath = false;
+            // bound the play-through in case deviations keep undoing progress
+            for (int step = 0; step < 1000 && !grid.isGoal(tiles); step++) {
+                long start = System.nanoTime();
+                int dir = engine.hint(tiles);
+                long nanos = System.nanoTime() - start;
+
+                all.add(nanos);
+                if (!onPath)
+                    cold.add(nanos);
+                if (!engine.lastOptimal())
+                    suboptimal++;
+                onPath = true;
+
+                if (random.nextDouble() < deviation) {
+                    int other = random.nextInt(4);
+                    if (other != dir && grid.neighbor(blank, other) >= 0) {
+                        dir = other;
+                        onPath = false;
+                    }
+                }
+                blank = grid.move(tiles, blank, dir);
+            }
+        }
+        return suboptimal;
+
+    }
+
+    // private helper method printing the latency percentiles of a sample
+    private static void report(String label, List<Long> nanos) {
+
+        System.out.printf("%-5s n=%-6d p50 %.3f ms  p90 %.3f ms  p99 %.3f ms  max %.3f ms%n", label, nanos.size(),
+                percentile(nanos, 0.50) / 1e6, percentile(nanos, 0.90) / 1e6,
+                percentile(nanos, 0.99) / 1e6, percentile(nanos, 1.0) / 1e6);
+
+    }
+
+    // private helper method returning a percentile (nearest rank) of a sample
+    private static long percentile(List<Long> nanos, double p) {
+
+        if (nanos.isEmpty())
+            return 0;
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, rank)];
+
+    }
+
+    // private helper method loading the puzzles of a grid size
+    private static List<int[]> puzzles(int size) {
+
+        List<int[]> puzzles = new ArrayList<>();
+        PuzzlePack pack = Board.puzzlePack(size, Board.ALL_PUZZLES);
+        if (pack == null)
+            pack = Board.puzzlePack(size, "medium");
+        if (pack != null) {
+            for (int i = 0; i < pack.size(); i++)
+                puzzles.add(pack.tiles(i));
+        }
+        return puzzles;
+
+    }
+
+}
@@ -0,0 +1,348 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class used to answer hint requests: the next move on an optimal path from
+ * the current state of a board.
+ * <p>
+ * Hints come from the cheapest source that applies:
+ * * the cached solution, when the state lies on it (the player has followed
+ *   the earlier hints, or a solution was offered or speculated in advance)
+ * * a perfect table of every state's distance to the goal, for boards of
+ *   nine cells or fewer (3x3), built once by breadth-first search
+ * * an IDASolver search bounded by a time budget, whose solution becomes
+ *   the new cached solution
+ * <p>
+ * If the bounded search runs out of time the hint falls back to the first
+ * move of a ReductionSolver solution, which always makes progress but may
+ * not be optimal (see lastOptimal()).
+ * <p>
+ * Hints are reported as blank move directions (see Grid). Engines are safe
+ * to use from the game thread while speculate() runs in the background. One
+ * background thread serves speculations, always solving the latest state
+ * requested, so a player moving quickly never queues up stale searches.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class HintEngine {
+
+    // time allowed for a search when the cached solution does not apply
+    public static final long DEFAULT_BUDGET_MILLIS = 40;
+
+    // nodes a background speculation may spend before giving up
+    private static final long SPECULATION_NODE_LIMIT = 20_000_000L;
+
+    // largest board (in cells) answered from a perfect distance table
+    private static final int PERFECT_MAX_CELLS = 9;
+
+    // perfect distance tables already built, by grid shape and goal
+    private static final Map<String, byte[]> PERFECT = new ConcurrentHashMap<>();
+
+    // marks a state not reached by the table's breadth-first search
+    private static final byte UNREACHED = -1;
+
+    // search parameters
+    private final Grid grid;
+    private final long budgetNanos;
+
+    // the optimal solution hints are currently read from, replaced as a whole
+    private volatile Path cached;
+
+    // source of the last hint
+    private volatile boolean lastOptimal;
+
+    // latest state waiting to be speculated on, and whether a thread is serving speculations
+    private final AtomicReference<int[]> pending = new AtomicReference<>();
+    private final AtomicBoolean speculating = new AtomicBoolean();
+
+    /**
+     * Private inner class holding a cached optimal solution: every state along
+     * it, by Zobrist hash, with the move to make from that state.
+     */
+    private static class Path {
+        final Map<Long, Integer> index = new HashMap<>();
+        final int[][] states;
+        final int[] moves;
+
+        Path(Grid grid, int[] start, int[] moves) {
+            this.moves = moves;
+            this.states = new int[moves.length][];
+            int[] tiles = start.clone();
+            int blank = Grid.blankCell(tiles);
+            for (int i = 0; i < moves.length; i++) {
+                states[i] = tiles.clone();
+                index.putIfAbsent(grid.hash(tiles), i);
+                blank = grid.move(tiles, blank, moves[i]);
+            }
+        }
+
+        // move to make from a state on the path, or -1 if it is not on it
+        int next(Grid grid, int[] tiles) {
+            Integer i = index.get(grid.hash(tiles));
+            if (i == null || !Arrays.equals(states[i], tiles))
+                return -1;
+            return moves[i];
+        }
+    }
+
+
+/* **************************************************************************
+ *            * Constructors *
+ ***************************************************************************/
+
+    /**
+     * Constructor for an engine with the default time budget.
+     * @param grid Grid describing the board geometry and goal
+     */
+    public HintEngine(Grid grid) {
+
+        this(grid, DEFAULT_BUDGET_MILLIS);
+
+    }
+
+    /**
+     * Constructor for an engine with a given time budget.
+     * @param grid Grid describing the board geometry and goal
+     * @param budgetMillis long time allowed for a search, in milliseconds
+     */
+    public HintEngine(Grid grid, long budgetMillis) {
+
+        if (grid == null)
+            throw new IllegalArgumentException("Grid provided is null");
+
+        this.grid = grid;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.lastOptimal = true;
+
+    }
+
+
+/* **************************************************************************
+ *            * Hint Methods *
+ ***************************************************************************/
+
+    /**
+     * Returns the next move toward the goal from the state provided.
+     * @param tiles int[] current state (left unchanged)
+     * @return int blank move direction, or -1 if the state is solved or unsolvable
+     */
+    public int hint(int[] tiles) {
+
+        if (tiles.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+        lastOptimal = true;
+        if (grid.isGoal(tiles) || !grid.isSolvable(tiles))
+            return -1;
+
+        Path path = cached;
+        if (path != null) {
+            int move = path.next(grid, tiles);
+            if (move >= 0)
+                return move;
+        }
+
+        if (grid.cells() <= PERFECT_MAX_CELLS)
+            return perfectMove(tiles);
+
+        IDASolver solver = new IDASolver(grid, tiles, Long.MAX_VALUE, null, System.nanoTime() + budgetNanos);
+        if (solver.solved()) {
+            cached = new Path(grid, tiles, solver.solution());
+            return solver.solution()[0];
+        }
+
+        lastOptimal = false;
+        return new ReductionSolver(grid, tiles).solution()[0];
+
+    }
+
+    /**
+     * Stores an optimal solution to answer later hints from. Any state along
+     * the solution is then answered in O(1).
+     * @param start int[] state the solution starts from
+     * @param solution int[] optimal blank move directions from start
+     */
+    public void offer(int[] start, int[] solution) {
+
+        cached = new Path(grid, start, solution);
+
+    }
+
+    /**
+     * Solves a state on a background thread and caches its solution, so a
+     * hint asked for at that state (or further along its solution) is
+     * answered at once. Used to prepare the next hint while the player
+     * thinks. Unlike hint(), the search is bounded by a node limit rather
+     * than the time budget. States already on the cached solution are
+     * skipped, and a state still waiting is replaced by a newer one.
+     *
+     * @param tiles int[] state to solve (left unchanged)
+     */
+    public void speculate(int[] tiles) {
+
+        int[] start = tiles.clone();
+        if (grid.cells() <= PERFECT_MAX_CELLS || !grid.isSolvable(start) || grid.isGoal(start))
+            return;
+        Path path = cached;
+        if (path != null && path.next(grid, start) >= 0)
+            return;
+
+        pending.set(start);
+        if (!speculating.compareAndSet(false, true))
+            return;
+
+        Thread search = new Thread(this::speculatePending, "hint-speculation");
+        search.setDaemon(true);
+        search.setPriority(Thread.MIN_PRIORITY);
+        search.start();
+
+    }
+
+    // private helper method solving the latest pending state until none is left
+    private void speculatePending() {
+
+        while (true) {
+            int[] start = pending.getAndSet(null);
+            if (start == null) {
+                speculating.set(false);
+                // a state set before the flag was cleared is served here, unless a new thread took it
+                if (pending.get() == null || !speculating.compareAndSet(false, true))
+                    return;
+                continue;
+            }
+            IDASolver solver = new IDASolver(grid, start, SPECULATION_NODE_LIMIT);
+            if (solver.solved())
+                cached = new Path(grid, start, solver.solution());
+        }
+
+    }
+
+    /**
+     * Accessor method used to check the source of the last hint.
+     * @return true if the last hint was on an optimal path
+     */
+    public boolean lastOptimal() {
+
+        return lastOptimal;
+
+    }
+
+
+/* **************************************************************************
+ *            * Perfect Table Methods *
+ ***************************************************************************/
+
+    /**
+     * Private helper method answering a hint from the perfect distance table:
+     * any move to a state one step closer to the goal is optimal.
+     * @param tiles int[] current state, not the goal
+     * @return int blank move direction
+     */
+    private int perfectMove(int[] tiles) {
+
+        byte[] table = PERFECT.computeIfAbsent(grid.rows() + "x" + grid.cols() + Arrays.toString(grid.goal()),
+                shape -> buildPerfect(grid));
+        int distance = table[rank(tiles)];
+        int[] child = tiles.clone();
+        int blank = Grid.blankCell(child);
+        for (int dir = 0; dir < 4; dir++) {
+            int next = grid.move(child, blank, dir);
+            if (next < 0)
+                continue;
+            int childDistance = table[rank(child)];
+            grid.move(child, next, Grid.reverse(dir));
+            if (childDistance == distance - 1)
+                return dir;
+        }
+        throw new IllegalStateException("Perfect table has no move closer to the goal");
+
+    }
+
+    /**
+     * Private helper method that builds the distance to the goal of every
+     * state of a small grid by breadth-first search backward from the goal.
+     * @param grid Grid to build the table for
+     * @return byte[] distance of each state by rank, UNREACHED if unsolvable
+     */
+    private static byte[] buildPerfect(Grid grid) {
+
+        int cells = grid.cells();
+        int states = 1;
+        for (int i = 2; i <= cells; i++)
+            states *= i;
+
+        byte[] table = new byte[states];
+        Arrays.fill(table, UNREACHED);
+        int[] queue = new int[states / 2];
+        int head = 0;
+        int tail = 0;
+
+        int[] tiles = new int[cells];
+        int goal = rank(grid.goal());
+        table[goal] = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int state = queue[head++];
+            unrank(state, tiles);
+            int blank = Grid.blankCell(tiles);
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.move(tiles, blank, dir);
+                if (next < 0)
+                    continue;
+                int child = rank(tiles);
+                if (table[child] == UNREACHED) {
+                    table[child] = (byte) (table[state] + 1);
+                    queue[tail++] = child;
+                }
+                grid.move(tiles, next, Grid.reverse(dir));
+            }
+        }
+        return table;
+
+    }
+
+    // private helper method returning the lexicographic rank of a permutation
+    private static int rank(int[] tiles) {
+
+        int rank = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int smaller = 0;
+            for (int j = i + 1; j < tiles.length; j++) {
+                if (tiles[j] < tiles[i])
+                    smaller++;
+            }
+            rank = rank * (tiles.length - i) + smaller;
+        }
+        return rank;
+
+    }
+
+    // private helper method that reverses rank()
+    private static void unrank(int rank, int[] tiles) {
+
+        int n = tiles.length;
+        int[] digits = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            digits[i] = rank % (n - i);
+            rank /= n - i;
+        }
+        boolean[] used = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int skip = digits[i];
+            for (int value = 0; value < n; value++) {
+                if (used[value])
+                    continue;
+                if (skip-- == 0) {
+                    tiles[i] = value;
+                    used[value] = true;
+                    break;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,424 @@
+/**
+ * Class implements the IDA* (iterative deepening A*) search algorithm for the
+ * Number Slide puzzle game.
+ * <p>
+ * Unlike Solver, which keeps every generated Board on a priority queue, this
+ * implementation works on a single compact int[] state that is updated in
+ * place, so memory use is linear in the solution length.
+ * The heuristic is manhattan distance plus linear conflicts, both updated
+ * incrementally after each move.
+ * <p>
+ * An optional TranspositionTable remembers lower bounds learned by earlier
+ * iterations: every fully searched subtree stores the smallest cost that any
+ * of its paths to the goal could still have, and a later visit to the same
+ * state, by any route or in any later iteration, cuts the subtree as soon as
+ * g plus that bound exceeds the threshold. Moves skipped by the MovePruner are
+ * bounded by their own heuristic, so stored bounds hold for every route into
+ * a state and the search stays optimal.
+ * <p>
+ * Solutions are reported as a list of blank move directions (see Grid).
+ */
+public class IDASolver {
+
+    // sentinel returned by the depth-first search once the goal is found
+    private static final int FOUND = -1;
+
+    // threshold returned when the search ran out of nodes
+    private static final int ABORTED = -2;
+
+    // longest solution the search will consider
+    private static final int MAX_DEPTH = 1024;
+
+    // expansions between deadline checks
+    private static final int CLOCK_CHECK = 1024;
+
+    // search parameters
+    private final Grid grid;
+    private final int[] tiles;
+    private final long nodeLimit;
+    private final long deadline;
+
+    // optional bound cache, and the Zobrist hash of the current state
+    private final TranspositionTable table;
+    private long hash;
+
+    // lower bound on the distance to the goal of the last state searched
+    private int bound;
+
+    // incremental heuristic state
+    private final int[] rowConflicts;
+    private final int[] colConflicts;
+    private final int[] scratch;
+    private int manhattan;
+    private int conflicts;
+
+    // current search path
+    private final int[] path;
+
+    // caching variables
+    private boolean solvable;
+    private boolean solved;
+    private int moves;
+    private long nodes;
+
+    // sampling (only used when SolverStats.ENABLED)
+    private final SolverStats stats;
+    private long generated;
+    private long heuristicSum;
+    private long[] fCounts;
+
+
+/* **************************************************************************
+ *            * Constructors (IDA* Implementation) *
+ ***************************************************************************/
+
+    /**
+     * Solves the state provided with no limit on the search effort.
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     */
+    public IDASolver(Grid grid, int[] start) {
+
+        this(grid, start, Long.MAX_VALUE);
+
+    }
+
+    /**
+     * Solves the state provided, giving up once nodeLimit nodes have been
+     * expanded. Use solved() to check whether a solution was found.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param nodeLimit long maximum number of nodes to expand
+     */
+    public IDASolver(Grid grid, int[] start, long nodeLimit) {
+
+        this(grid, start, nodeLimit, null);
+
+    }
+
+    /**
+     * Solves the state provided with a transposition table, giving up once
+     * nodeLimit nodes have been expanded. The table must only be shared
+     * between searches for the same goal (on the same Grid), and may be shared
+     * by searches running in parallel.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param nodeLimit long maximum number of nodes to expand
+     * @param table TranspositionTable for the search, or null for none
+     */
+    public IDASolver(Grid grid, int[] start, long nodeLimit, TranspositionTable table) {
+
+        this(grid, start, nodeLimit, table, Long.MAX_VALUE);
+
+    }
+
+    /**
+     * Solves the state provided, giving up once nodeLimit nodes have been
+     * expanded or the deadline has passed, whichever comes first.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param nodeLimit long maximum number of nodes to expand
+     * @param table TranspositionTable for the search, or null for none
+     * @param deadline long System.nanoTime() after which the search stops
+     */
+    public IDASolver(Grid grid, int[] start, long nodeLimit, TranspositionTable table, long deadline) {
+
+        if (grid == null || start == null)
+            throw new IllegalArgumentException("Grid and start state must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+
+        this.grid = grid;
+        this.tiles = start.clone();
+        this.nodeLimit = nodeLimit;
+        this.deadline = deadline;
+        this.table = table;
+        this.rowConflicts = new int[grid.rows()];
+        this.colConflicts = new int[grid.cols()];
+        this.scratch = new int[grid.scratchSize()];
+        this.path = new int[MAX_DEPTH];
+        this.moves = -1;
+        this.stats = SolverStats.ENABLED ? new SolverStats("IDA*") : null;
+        this.fCounts = new long[0];
+
+        SolverStats.SolveEvent event = new SolverStats.SolveEvent();
+        event.begin();
+
+        this.solvable = grid.isSolvable(tiles);
+        if (solvable)
+            search();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.solver = "IDA*";
+            event.rows = grid.rows();
+            event.cols = grid.cols();
+            event.moves = moves;
+            event.expanded = nodes;
+            event.commit();
+        }
+
+    }
+
+    /**
+     * Private helper method that runs the iterative deepening loop.
+     * Each iteration is a depth-first search bounded by f = g + h, and the next
+     * threshold is the smallest f that exceeded the current one.
+     */
+    private void search() {
+
+        long start = System.nanoTime();
+
+        // initialize the incremental heuristic
+        manhattan = grid.manhattan(tiles);
+        conflicts = 0;
+        for (int row = 0; row < grid.rows(); row++) {
+            rowConflicts[row] = grid.rowConflicts(tiles, row, scratch);
+            conflicts += rowConflicts[row];
+        }
+        for (int col = 0; col < grid.cols(); col++) {
+            colConflicts[col] = grid.colConflicts(tiles, col, scratch);
+            conflicts += colConflicts[col];
+        }
+
+        if (table != null)
+            hash = grid.hash(tiles);
+
+        int blank = Grid.blankCell(tiles);
+        int threshold = manhattan + 2 * conflicts;
+        long searchStart = System.nanoTime();
+
+        while (true) {
+            long iterationStart = System.nanoTime();
+            long iterationNodes = nodes;
+            SolverStats.IterationEvent event = new SolverStats.IterationEvent();
+            event.begin();
+
+            int next = depthFirst(blank, 0, threshold, MovePruner.START);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.solver = "IDA*";
+                event.threshold = threshold;
+                event.expanded = nodes - iterationNodes;
+                event.commit();
+            }
+            if (SolverStats.ENABLED)
+                stats.iteration(threshold, nodes - iterationNodes, System.nanoTime() - iterationStart);
+
+            if (next == FOUND) {
+                solved = true;
+                break;
+            }
+            if (next == ABORTED || next == Integer.MAX_VALUE)
+                break;
+            threshold = next;
+        }
+
+        if (SolverStats.ENABLED) {
+            stats.initialHeuristic(manhattan + 2 * conflicts);
+            stats.addCounts(generated, nodes, 0);
+            stats.addHeuristic(heuristicSum, generated);
+            stats.addHistogram(fCounts);
+            stats.timing(searchStart - start, System.nanoTime() - searchStart, 0);
+        }
+
+    }
+
+    /**
+     * Private recursive depth-first search bounded by the threshold.
+     *
+     * @param blank int current blank cell
+     * @param g int moves made from the root
+     * @param threshold int current f bound
+     * @param state int move pruner state of the path so far
+     * @return FOUND, ABORTED, or the smallest f that exceeded the threshold
+     */
+    private int depthFirst(int blank, int g, int threshold, int state) {
+
+        int h = manhattan + 2 * conflicts;
+        if (table != null)
+            h = Math.max(h, table.bound(hash));
+        int f = g + h;
+        if (SolverStats.ENABLED) {
+            generated++;
+            heuristicSum += h;
+            fCounts = SolverStats.count(fCounts, f);
+        }
+        bound = h;
+        if (f > threshold)
+            return f;
+        if (manhattan == 0) {
+            moves = g;
+            return FOUND;
+        }
+        if (++nodes > nodeLimit || nodes % CLOCK_CHECK == 0 && System.nanoTime() > deadline)
+            return ABORTED;
+        if (g == path.length)
+            return Integer.MAX_VALUE;
+
+        int min = Integer.MAX_VALUE;
+        int lower = MAX_DEPTH;
+        for (int dir = 0; dir < 4; dir++) {
+            int next = grid.neighbor(blank, dir);
+            if (next < 0)
+                continue;
+            // skip moves that undo or repeat a shorter route (see MovePruner)
+            int nextState = MovePruner.next(state, dir);
+            if (nextState < 0) {
+                if (table != null)
+                    lower = Math.min(lower, 1 + prunedBound(blank, next, dir));
+                continue;
+            }
+
+            slide(blank, next, dir);
+            path[g] = dir;
+            int result = depthFirst(next, g + 1, threshold, nextState);
+            slide(next, blank, Grid.reverse(dir));
+
+            if (result == FOUND || result == ABORTED)
+                return result;
+            if (result < min)
+                min = result;
+            lower = Math.min(lower, 1 + bound);
+        }
+
+        // every route from here costs at least lower, whichever way we arrived
+        bound = Math.max(h, lower);
+        if (table != null)
+            table.store(hash, bound, threshold - g);
+        return min;
+
+    }
+
+    /**
+     * Private helper method bounding a move the pruner skipped, from the
+     * heuristic and any stored bound of the state it leads to.
+     */
+    private int prunedBound(int blank, int next, int dir) {
+
+        slide(blank, next, dir);
+        int h = Math.max(manhattan + 2 * conflicts, table.bound(hash));
+        slide(next, blank, Grid.reverse(dir));
+        return h;
+
+    }
+
+    /**
+     * Private helper method that slides the tile at next into the blank cell,
+     * updating manhattan distance and the linear conflicts of the two lines
+     * whose contents changed.
+     */
+    private void slide(int blank, int next, int dir) {
+
+        int tile = tiles[next];
+        manhattan += grid.distance(tile, blank) - grid.distance(tile, next);
+        tiles[blank] = tile;
+        tiles[next] = 0;
+        if (table != null)
+            hash = grid.hashMove(hash, tile, blank, next);
+
+        int cols = grid.cols();
+        if (dir == Grid.UP || dir == Grid.DOWN) {
+            // tile changed rows, so only those two rows are affected
+            updateRow(blank / cols);
+            updateRow(next / cols);
+        } else {
+            updateCol(blank % cols);
+            updateCol(next % cols);
+        }
+
+    }
+
+    // private helper method used to refresh the conflicts of a single row
+    private void updateRow(int row) {
+
+        int updated = grid.rowConflicts(tiles, row, scratch);
+        conflicts += updated - rowConflicts[row];
+        rowConflicts[row] = updated;
+
+    }
+
+    // private helper method used to refresh the conflicts of a single column
+    private void updateCol(int col) {
+
+        int updated = grid.colConflicts(tiles, col, scratch);
+        conflicts += updated - colConflicts[col];
+        colConflicts[col] = updated;
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to check whether the goal can be reached at all.
+     * @return true if the start state has the goal's parity
+     */
+    public boolean solvable() {
+
+        return solvable;
+
+    }
+
+    /**
+     * Accessor method used to check whether the search found a solution
+     * within its node limit.
+     * @return true if solution() holds an optimal solution
+     */
+    public boolean solved() {
+
+        return solved;
+
+    }
+
+    /**
+     * Accessor method used to obtain the optimal number of moves.
+     * @return int solution length, or -1 if not solved
+     */
+    public int moves() {
+
+        return moves;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of nodes expanded.
+     * @return long nodes expanded over every iteration
+     */
+    public long nodes() {
+
+        return nodes;
+
+    }
+
+    /**
+     * Accessor method used to obtain the search statistics.
+     * @return SolverStats of the solve, or null if sampling is disabled
+     */
+    public SolverStats stats() {
+
+        return stats;
+
+    }
+
+    /**
+     * Returns the optimal solution as blank move directions.
+     * @return int[] move directions, or null if not solved
+     */
+    public int[] solution() {
+
+        if (!solved)
+            return null;
+        int[] solution = new int[moves];
+        System.arraycopy(path, 0, solution, 0, moves);
+        return solution;
+
+    }
+
+}
@@ -0,0 +1,677 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Class implements A* within a fixed heap budget for the Number Slide puzzle
+ * game, spilling the search frontier to disk instead of running out of memory.
+ * <p>
+ * States are expanded one f-layer at a time. The frontier is kept in memory,
+ * bucketed by f, until its share of the budget is used up; the whole frontier
+ * is then sorted by (f, state) and written sequentially as one run file, and
+ * memory is cleared. When an f-layer comes up, its in-memory bucket and its
+ * segment of every run are merged in state order, so duplicates arriving
+ * through different paths meet each other and are dropped (delayed duplicate
+ * detection).
+ * <p>
+ * Expanded states are remembered in a fixed-size in-memory table sized from
+ * the other half of the budget. Once the table is full new states are simply
+ * not remembered: some states may then be expanded again, which costs time
+ * but never correctness.
+ * <p>
+ * Each record carries its own move path (two bits per move), so the solution
+ * is known as soon as the goal is expanded. States are packed into 128 bits,
+ * which covers every board up to 5x5.
+ */
+public class MemoryBoundedSolver {
+
+    // longest solution the search will consider (two bits per move)
+    private static final int MAX_MOVES = 252;
+    private static final int PATH_BYTES = MAX_MOVES / 4;
+
+    // on-disk record: state (16), g, h, f (2 each), last move (1), path
+    private static final int RECORD_BYTES = 16 + 2 + 2 + 2 + 1 + PATH_BYTES;
+
+    // approximate heap used by one in-memory record and one table slot
+    private static final int RECORD_MEMORY = 48 + 16 + PATH_BYTES;
+    private static final int SLOT_MEMORY = 8 + 8 + 2;
+
+    // I/O buffer used for each run being written or read
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Private inner class Record holds one frontier state.
+     */
+    private static class Record {
+        long hi;
+        long lo;
+        int g;
+        int h;
+        int f;
+        int dir;
+        byte[] path;
+    }
+
+    // orders records by packed state, so duplicates end up next to each other
+    private static final Comparator<Record> BY_STATE = (x, y) -> {
+        int order = Long.compareUnsigned(x.hi, y.hi);
+        return order != 0 ? order : Long.compareUnsigned(x.lo, y.lo);
+    };
+
+    /**
+     * Private inner class Run is one spilled frontier, sorted by (f, state),
+     * with the position and record count of each f-segment.
+     */
+    private static class Run {
+        Path file;
+        TreeMap<Integer, long[]> segments = new TreeMap<>();
+    }
+
+    // search parameters
+    private final Grid grid;
+    private final int bits;
+    private final Path spillDir;
+    private final long frontierCapacity;
+
+    // in-memory frontier bucketed by f, and spilled runs
+    private final TreeMap<Integer, List<Record>> buckets;
+    private long frontierSize;
+    private final List<Run> runs;
+
+    // expanded states: open addressing on the packed state
+    private final long[] closedHi;
+    private final long[] closedLo;
+    private final short[] closedG;
+    private final int closedMask;
+    private int closedSize;
+
+    // expansion work space
+    private final int[] parent;
+    private final int[] child;
+    private final int[] scratch;
+
+    // caching variables
+    private final boolean solvable;
+    private boolean solved;
+    private int[] solution;
+    private long nodes;
+    private int spilledRuns;
+    private long spilledBytes;
+
+
+/* **************************************************************************
+ *            * Constructors *
+ ***************************************************************************/
+
+    /**
+     * Solves the state provided using a temporary directory for spilled runs.
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param heapBudget long bytes of heap the search may use
+     * @throws UncheckedIOException if the spill directory cannot be used
+     */
+    public MemoryBoundedSolver(Grid grid, int[] start, long heapBudget) {
+
+        this(grid, start, heapBudget, null);
+
+    }
+
+    /**
+     * Solves the state provided, spilling the frontier to the given directory
+     * whenever it outgrows its half of the heap budget.
+     *
+     * @param grid Grid describing the board geometry and goal
+     * @param start int[] initial state (left unchanged)
+     * @param heapBudget long bytes of heap the search may use
+     * @param spillDir Path directory for run files, or null for a temporary one
+     * @throws UncheckedIOException if the spill directory cannot be used
+     */
+    public MemoryBoundedSolver(Grid grid, int[] start, long heapBudget, Path spillDir) {
+
+        if (grid == null || start == null)
+            throw new IllegalArgumentException("Grid and start state must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+
+        this.grid = grid;
+        this.bits = 32 - Integer.numberOfLeadingZeros(grid.cells() - 1);
+        if (bits * grid.cells() > 128)
+            throw new IllegalArgumentException("Memory-bounded search supports boards of at most 128 state bits (5x5)");
+
+        // half of the budget for the frontier, half for the expanded states
+        this.frontierCapacity = Math.max(1024, heapBudget / 2 / RECORD_MEMORY);
+        int slots = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(1024, heapBudget / 2 / SLOT_MEMORY)));
+        this.closedHi = new long[slots];
+        this.closedLo = new long[slots];
+        this.closedG = new short[slots];
+        this.closedMask = slots - 1;
+
+        this.buckets = new TreeMap<>();
+        this.runs = new ArrayList<>();
+        this.parent = new int[grid.cells()];
+        this.child = new int[grid.cells()];
+        this.scratch = new int[grid.scratchSize()];
+
+        this.solvable = grid.isSolvable(start);
+        if (!solvable) {
+            this.spillDir = null;
+            return;
+        }
+
+        try {
+            this.spillDir = spillDir != null ? Files.createDirectories(spillDir)
+                    : Files.createTempDirectory("numberslide-spill");
+            search(start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill search frontier to disk", e);
+        } finally {
+            cleanUp(spillDir == null);
+        }
+
+    }
+
+    /**
+     * Private helper method that expands f-layers in increasing order until
+     * the goal is expanded or the frontier is exhausted.
+     * @param start int[] initial state
+     */
+    private void search(int[] start) throws IOException {
+
+        Record root = new Record();
+        long[] packed = pack(start);
+        root.hi = packed[0];
+        root.lo = packed[1];
+        root.h = grid.heuristic(start);
+        root.f = root.h;
+        root.dir = -1;
+        root.path = new byte[PATH_BYTES];
+        add(root);
+
+        while (true) {
+            int f = nextLayer();
+            if (f == Integer.MAX_VALUE)
+                return;
+            // the layer is merged again while expanding it adds states to it
+            while (hasLayer(f)) {
+                if (expandLayer(f))
+                    return;
+            }
+        }
+
+    }
+
+
+/* **************************************************************************
+ *            * Layer Methods *
+ ***************************************************************************/
+
+    // private helper method returning the lowest f waiting in memory or on disk
+    private int nextLayer() {
+
+        int f = buckets.isEmpty() ? Integer.MAX_VALUE : buckets.firstKey();
+        for (Run run : runs) {
+            if (!run.segments.isEmpty())
+                f = Math.min(f, run.segments.firstKey());
+        }
+        return f;
+
+    }
+
+    // private helper method checking for states of the given f anywhere
+    private boolean hasLayer(int f) {
+
+        if (buckets.containsKey(f))
+            return true;
+        for (Run run : runs) {
+            if (run.segments.containsKey(f))
+                return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * Private helper method that merges every source of one f-layer in state
+     * order and expands each distinct state.
+     * @param f int layer to expand
+     * @return true once the goal has been expanded
+     */
+    private boolean expandLayer(int f) throws IOException {
+
+        List<Cursor> cursors = new ArrayList<>();
+        List<Record> bucket = buckets.remove(f);
+        if (bucket != null) {
+            frontierSize -= bucket.size();
+            bucket.sort(BY_STATE);
+            cursors.add(new MemoryCursor(bucket));
+        }
+        List<Run> finished = new ArrayList<>();
+        for (Run run : runs) {
+            long[] segment = run.segments.remove(f);
+            if (segment != null)
+                cursors.add(new RunCursor(run.file, segment[0], segment[1]));
+            if (run.segments.isEmpty())
+                finished.add(run);
+        }
+
+        PriorityQueue<Cursor> merge = new PriorityQueue<>((x, y) -> BY_STATE.compare(x.head, y.head));
+        for (Cursor cursor : cursors) {
+            if (cursor.advance())
+                merge.add(cursor);
+        }
+
+        boolean found = false;
+        Record previous = null;
+        while (!merge.isEmpty() && !found) {
+            Cursor cursor = merge.poll();
+            Record record = cursor.head;
+            if (cursor.advance())
+                merge.add(cursor);
+
+            // equal states sit next to each other: keep the cheapest of the run
+            if (previous != null && BY_STATE.compare(previous, record) == 0) {
+                if (record.g >= previous.g)
+                    continue;
+            } else if (previous != null) {
+                found = expand(previous);
+            }
+            previous = record;
+        }
+        if (!found && previous != null)
+            found = expand(previous);
+
+        for (Cursor cursor : cursors)
+            cursor.close();
+        for (Run run : finished) {
+            runs.remove(run);
+            Files.deleteIfExists(run.file);
+        }
+        return found;
+
+    }
+
+    /**
+     * Private helper method that expands one state, queueing its children.
+     * @param record Record of the state
+     * @return true if the state is the goal
+     */
+    private boolean expand(Record record) throws IOException {
+
+        if (record.h == 0) {
+            solved = true;
+            solution = new int[record.g];
+            for (int i = 0; i < record.g; i++)
+                solution[i] = (record.path[i >> 2] >> ((i & 3) << 1)) & 3;
+            return true;
+        }
+        if (!remember(record.hi, record.lo, record.g))
+            return false;
+        if (record.g == MAX_MOVES)
+            return false;
+
+        nodes++;
+        unpack(record.hi, record.lo, parent);
+        int blank = Grid.blankCell(parent);
+        for (int dir = 0; dir < 4; dir++) {
+            if (record.dir >= 0 && dir == Grid.reverse(record.dir))
+                continue;
+            int next = grid.neighbor(blank, dir);
+            if (next < 0)
+                continue;
+
+            System.arraycopy(parent, 0, child, 0, parent.length);
+            child[blank] = child[next];
+            child[next] = 0;
+
+            long[] packed = pack(child);
+            int g = record.g + 1;
+            if (seen(packed[0], packed[1], g))
+                continue;
+
+            Record generated = new Record();
+            generated.hi = packed[0];
+            generated.lo = packed[1];
+            generated.g = g;
+            generated.h = grid.heuristicAfterMove(record.h, parent, child, blank, next, scratch);
+            // pathmax keeps f from dropping below the parent's
+            generated.f = Math.max(record.f, g + generated.h);
+            generated.dir = dir;
+            generated.path = record.path.clone();
+            generated.path[record.g >> 2] |= (byte) (dir << ((record.g & 3) << 1));
+            add(generated);
+        }
+        return false;
+
+    }
+
+    // private helper method that queues a state, spilling the frontier when full
+    private void add(Record record) throws IOException {
+
+        buckets.computeIfAbsent(record.f, key -> new ArrayList<>()).add(record);
+        if (++frontierSize >= frontierCapacity)
+            spill();
+
+    }
+
+
+/* **************************************************************************
+ *            * Disk Methods *
+ ***************************************************************************/
+
+    /**
+     * Private helper method that writes the whole in-memory frontier to a new
+     * run file, sorted by (f, state), then releases it.
+     */
+    private void spill() throws IOException {
+
+        Run run = new Run();
+        run.file = Files.createTempFile(spillDir, "run", ".bin");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+
+        try (FileChannel channel = FileChannel.open(run.file, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<Integer, List<Record>> bucket : buckets.entrySet()) {
+                List<Record> records = bucket.getValue();
+                records.sort(BY_STATE);
+                run.segments.put(bucket.getKey(), new long[]{position, records.size()});
+                for (Record record : records) {
+                    if (buffer.remaining() < RECORD_BYTES)
+                        drain(channel, buffer);
+                    buffer.putLong(record.hi).putLong(record.lo);
+                    buffer.putShort((short) record.g).putShort((short) record.h).putShort((short) record.f);
+                    buffer.put((byte) record.dir).put(record.path);
+                }
+                position += (long) records.size() * RECORD_BYTES;
+            }
+            drain(channel, buffer);
+            spilledBytes += position;
+        }
+
+        runs.add(run);
+        spilledRuns++;
+        buckets.clear();
+        frontierSize = 0;
+
+    }
+
+    // private helper method used to write out a full buffer
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+
+    }
+
+    // private helper method that deletes remaining runs (and the directory if ours)
+    private void cleanUp(boolean deleteDir) {
+
+        try {
+            for (Run run : runs)
+                Files.deleteIfExists(run.file);
+            runs.clear();
+            if (deleteDir && spillDir != null)
+                Files.deleteIfExists(spillDir);
+        } catch (IOException e) {
+            // leftover temporary files are harmless
+        }
+
+    }
+
+    /**
+     * Private inner class Cursor walks one sorted source of records.
+     */
+    private abstract static class Cursor {
+        Record head;
+
+        abstract boolean advance() throws IOException;
+
+        void close() throws IOException {
+        }
+    }
+
+    /**
+     * Private inner class MemoryCursor walks a sorted in-memory bucket.
+     */
+    private static class MemoryCursor extends Cursor {
+        final List<Record> records;
+        int index;
+
+        MemoryCursor(List<Record> records) {
+            this.records = records;
+        }
+
+        boolean advance() {
+            if (index == records.size())
+                return false;
+            head = records.get(index++);
+            return true;
+        }
+    }
+
+    /**
+     * Private inner class RunCursor reads one f-segment of a run sequentially.
+     */
+    private static class RunCursor extends Cursor {
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        long remaining;
+
+        RunCursor(Path file, long position, long count) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.channel.position(position);
+            this.buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES - IO_BUFFER_BYTES % RECORD_BYTES);
+            this.buffer.limit(0);
+            this.remaining = count;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            if (buffer.remaining() < RECORD_BYTES) {
+                buffer.compact();
+                while (buffer.position() < RECORD_BYTES && channel.read(buffer) >= 0) {
+                    // keep reading until at least one record is available
+                }
+                buffer.flip();
+            }
+            Record record = new Record();
+            record.hi = buffer.getLong();
+            record.lo = buffer.getLong();
+            record.g = buffer.getShort();
+            record.h = buffer.getShort();
+            record.f = buffer.getShort();
+            record.dir = buffer.get();
+            record.path = new byte[PATH_BYTES];
+            buffer.get(record.path);
+            head = record;
+            remaining--;
+            return true;
+        }
+
+        @Override
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+
+/* **************************************************************************
+ *            * State Methods *
+ ***************************************************************************/
+
+    /**
+     * Private helper method that packs a state into 128 bits, bits per tile
+     * in cell order, starting from the low bits of lo.
+     * @param tiles int[] state to pack
+     * @return long[] {hi, lo}
+     */
+    private long[] pack(int[] tiles) {
+
+        long hi = 0L;
+        long lo = 0L;
+        for (int cell = 0; cell < tiles.length; cell++) {
+            int shift = cell * bits;
+            long tile = tiles[cell];
+            if (shift < 64) {
+                lo |= tile << shift;
+                if (shift + bits > 64)
+                    hi |= tile >>> (64 - shift);
+            } else {
+                hi |= tile << (shift - 64);
+            }
+        }
+        return new long[]{hi, lo};
+
+    }
+
+    // private helper method that reverses pack()
+    private void unpack(long hi, long lo, int[] tiles) {
+
+        long mask = (1L << bits) - 1;
+        for (int cell = 0; cell < tiles.length; cell++) {
+            int shift = cell * bits;
+            long tile;
+            if (shift < 64) {
+                tile = lo >>> shift;
+                if (shift + bits > 64)
+                    tile |= hi << (64 - shift);
+            } else {
+                tile = hi >>> (shift - 64);
+            }
+            tiles[cell] = (int) (tile & mask);
+        }
+
+    }
+
+    // private helper method locating the table slot of a packed state
+    private int slot(long hi, long lo) {
+
+        long hash = hi * 0x9E3779B97F4A7C15L ^ lo;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        int slot = (int) hash & closedMask;
+        while ((closedHi[slot] != 0 || closedLo[slot] != 0) && (closedHi[slot] != hi || closedLo[slot] != lo))
+            slot = (slot + 1) & closedMask;
+        return slot;
+
+    }
+
+    // private helper method checking for a state already expanded at cost g or less
+    private boolean seen(long hi, long lo, int g) {
+
+        int slot = slot(hi, lo);
+        return closedHi[slot] == hi && closedLo[slot] == lo && closedG[slot] <= g;
+
+    }
+
+    /**
+     * Private helper method that records an expanded state.
+     * @return false if the state was already expanded at cost g or less
+     */
+    private boolean remember(long hi, long lo, int g) {
+
+        int slot = slot(hi, lo);
+        boolean present = closedHi[slot] == hi && closedLo[slot] == lo;
+        if (present && closedG[slot] <= g)
+            return false;
+        if (present) {
+            closedG[slot] = (short) g;
+        } else if (closedSize < closedMask / 4 * 3) {
+            closedHi[slot] = hi;
+            closedLo[slot] = lo;
+            closedG[slot] = (short) g;
+            closedSize++;
+        }
+        return true;
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to check whether the goal can be reached at all.
+     * @return true if the start state has the goal's parity
+     */
+    public boolean solvable() {
+
+        return solvable;
+
+    }
+
+    /**
+     * Accessor method used to check whether a solution was found.
+     * @return true if the goal was reached within the move limit
+     */
+    public boolean solved() {
+
+        return solved;
+
+    }
+
+    /**
+     * Accessor method used to obtain the optimal number of moves.
+     * @return int solution length, or -1 if no solution was found
+     */
+    public int moves() {
+
+        return solved ? solution.length : -1;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of states expanded.
+     * @return long expansions made by the search
+     */
+    public long nodes() {
+
+        return nodes;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of runs spilled to disk.
+     * @return int run files written during the search
+     */
+    public int spilledRuns() {
+
+        return spilledRuns;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of bytes spilled to disk.
+     * @return long bytes written to run files
+     */
+    public long spilledBytes() {
+
+        return spilledBytes;
+
+    }
+
+    /**
+     * Accessor method used to obtain the optimal solution.
+     * @return int[] blank move directions, or null if no solution was found
+     */
+    public int[] solution() {
+
+        return solved ? solution.clone() : null;
+
+    }
+
+}
@@ -0,0 +1,118 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Class used to forbid redundant blank move sequences during a search.
+ * <p>
+ * A finite-state machine is run over the moves on the current search path.
+ * Its table is built offline by MovePrunerBuilder from every pair of short
+ * move sequences that lead to the same state, and forbids the longer (or
+ * lexicographically larger) sequence of each pair - going straight back to
+ * the previous state, short cycles such as three laps around a 2x2 block,
+ * and transpositions all become a single table lookup, with no hashing and
+ * no memory growth.
+ * <p>
+ * A search starts in state START and, for each move it considers, calls
+ * next(state, dir): -1 means the move is pruned, otherwise the result is the
+ * machine state to carry into the child. A pruned sequence is only pruned
+ * when its replacement stays inside the same bounding box, so at least one
+ * optimal path always survives on any board size.
+ * <p>
+ * The table file is found like the puzzle packs and indexes (see
+ * Board.puzzlePack()): relative to the working directory the game is run
+ * from. If it is missing, the pruner says so and falls back to forbidding
+ * only the reverse of the previous move. A table file that exists but cannot
+ * be read is an error, not a silent fallback.
+ */
+public final class MovePruner {
+
+    // location of the table written by MovePrunerBuilder
+    public static final String TABLE_FILE = "puzzles/moves.fsm";
+
+    // machine state at the root of a search
+    public static final int START = 0;
+
+    // next state table, TABLE[state * 4 + dir], -1 for a pruned move
+    private static final int[] TABLE = load();
+
+    // not instantiated
+    private MovePruner() {
+    }
+
+    /**
+     * Returns the machine state after a move, or -1 if the move is pruned.
+     * @param state int machine state before the move
+     * @param dir int blank move direction
+     * @return int machine state after the move, -1 if the move is redundant
+     */
+    public static int next(int state, int dir) {
+
+        return TABLE[(state << 2) | dir];
+
+    }
+
+    /**
+     * Returns the number of machine states in the loaded table.
+     * @return int number of states
+     */
+    public static int states() {
+
+        return TABLE.length / 4;
+
+    }
+
+    /**
+     * Private helper method that reads the table from disk, checking that
+     * every entry names a valid state.
+     * @return int[] next state table
+     * @throws UncheckedIOException if the file exists but cannot be read
+     * @throws IllegalStateException if the file exists but is not a valid table
+     */
+    private static int[] load() {
+
+        File file = new File(TABLE_FILE);
+        if (!file.isFile()) {
+            System.out.println("No move table at " + file.getAbsolutePath()
+                    + ", pruning only immediate reversals (run MovePrunerBuilder)");
+            return parentOnly();
+        }
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            int states = in.readInt();
+            if (states < 1)
+                throw new IllegalStateException("Malformed move table " + file + ": " + states + " states");
+            int[] table = new int[states * 4];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = in.readShort();
+                if (table[i] < -1 || table[i] >= states)
+                    throw new IllegalStateException("Malformed move table " + file + ": bad state " + table[i]);
+            }
+            if (in.read() >= 0)
+                throw new IllegalStateException("Malformed move table " + file + ": trailing data");
+            return table;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read move table " + file, e);
+        }
+
+    }
+
+    /**
+     * Private helper method building the fallback machine: state d + 1 means
+     * the last move was d, and only its reverse is pruned.
+     * @return int[] next state table
+     */
+    private static int[] parentOnly() {
+
+        int[] table = new int[5 * 4];
+        for (int state = 0; state < 5; state++) {
+            for (int dir = 0; dir < 4; dir++)
+                table[state * 4 + dir] = state > 0 && dir == Grid.reverse(state - 1) ? -1 : dir + 1;
+        }
+        return table;
+
+    }
+
+}
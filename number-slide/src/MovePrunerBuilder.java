@@ -0,0 +1,352 @@
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Class used to build the move pruning table read by MovePruner.
+ * <p>
+ * Every sequence of blank moves up to a given length is enumerated breadth
+ * first, in order of length and then of move directions, from the middle of a
+ * board large enough that no sequence reaches its edge. A sequence that ends
+ * in the same state as an earlier (shorter, or equally long and
+ * lexicographically smaller) sequence is a duplicate, and is recorded as a
+ * forbidden pattern - but only if the earlier sequence stays inside the
+ * bounding box of the later one, so that replacing one by the other never
+ * walks off the edge of a real board. Sequences holding a forbidden pattern
+ * are not extended any further.
+ * <p>
+ * The patterns are then compiled into an Aho-Corasick automaton, which
+ * recognizes a forbidden pattern ending at any point of a move sequence, and
+ * the automaton is minimized so the table written to disk stays small.
+ * <p>
+ * Usage: MovePrunerBuilder [max pattern length] [output file]
+ */
+public class MovePrunerBuilder {
+
+    // default longest pattern searched for (length 14 needs over 32767 states)
+    private static final int DEFAULT_DEPTH = 12;
+
+    /**
+     * Private inner class Sequence is one move sequence of the enumeration.
+     * Moves are packed two bits each, first move in the lowest bits.
+     */
+    private static class Sequence {
+        long moves;
+        int length;
+        int blank;
+        long hash;
+        int[] box;          // {min row, max row, min col, max col}
+    }
+
+    /**
+     * Client builds the table and writes it to disk.
+     * @param args String[] optional maximum pattern length and output file
+     */
+    public static void main(String[] args) throws IOException {
+
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        String fileName = args.length > 1 ? args[1] : MovePruner.TABLE_FILE;
+
+        List<int[]> patterns = findPatterns(depth);
+        int[] table = minimize(compile(patterns));
+        write(table, fileName);
+
+        System.out.println(patterns.size() + " patterns up to length " + depth + ", "
+                + table.length / 4 + " automaton states written to " + fileName);
+
+    }
+
+
+/* **************************************************************************
+ *            * Pattern Search *
+ ***************************************************************************/
+
+    /**
+     * Enumerates move sequences breadth first and returns the duplicates.
+     * @param depth int longest sequence to enumerate
+     * @return List of forbidden patterns, each an int[] of move directions
+     */
+    public static List<int[]> findPatterns(int depth) {
+
+        int size = 2 * depth + 3;
+        Grid grid = new Grid(size, size);
+        int[] tiles = grid.goal();
+        int center = (size / 2) * size + size / 2;
+        tiles[grid.cells() - 1] = tiles[center];
+        tiles[center] = 0;
+
+        Map<Long, List<Sequence>> seen = new HashMap<>();
+        Set<Long> forbidden = new HashSet<>();
+        List<int[]> patterns = new ArrayList<>();
+
+        Sequence root = new Sequence();
+        root.blank = center;
+        root.hash = grid.hash(tiles);
+        root.box = new int[]{0, 0, 0, 0};
+        seen.computeIfAbsent(root.hash, key -> new ArrayList<>()).add(root);
+
+        List<Sequence> layer = new ArrayList<>();
+        layer.add(root);
+        for (int length = 1; length <= depth; length++) {
+            List<Sequence> next = new ArrayList<>();
+            for (Sequence parent : layer) {
+                int[] state = grid.apply(tiles, unpack(parent.moves, parent.length));
+                for (int dir = 0; dir < 4; dir++) {
+                    Sequence child = extend(grid, state, center, parent, dir);
+                    if (containsForbidden(forbidden, child))
+                        continue;
+
+                    List<Sequence> same = seen.get(child.hash);
+                    if (same != null && duplicates(grid, tiles, same, child)) {
+                        forbidden.add(key(child.moves, child.length));
+                        patterns.add(unpack(child.moves, child.length));
+                        continue;
+                    }
+                    seen.computeIfAbsent(child.hash, key -> new ArrayList<>()).add(child);
+                    next.add(child);
+                }
+            }
+            layer = next;
+        }
+        return patterns;
+
+    }
+
+    // private helper method building the sequence one move longer than parent
+    private static Sequence extend(Grid grid, int[] state, int center, Sequence parent, int dir) {
+
+        int size = grid.cols();
+        Sequence child = new Sequence();
+        child.moves = parent.moves | ((long) dir << (2 * parent.length));
+        child.length = parent.length + 1;
+        child.blank = grid.neighbor(parent.blank, dir);
+        child.hash = grid.hashMove(parent.hash, state[child.blank], parent.blank, child.blank);
+        int row = child.blank / size - center / size;
+        int col = child.blank % size - center % size;
+        child.box = new int[]{Math.min(parent.box[0], row), Math.max(parent.box[1], row),
+                Math.min(parent.box[2], col), Math.max(parent.box[3], col)};
+        return child;
+
+    }
+
+    // private helper method checking every suffix of a sequence against the patterns
+    private static boolean containsForbidden(Set<Long> forbidden, Sequence sequence) {
+
+        for (int start = 0; start < sequence.length - 1; start++) {
+            int length = sequence.length - start;
+            if (forbidden.contains(key(sequence.moves >>> (2 * start), length)))
+                return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * Private helper method checking whether an earlier sequence reaching the
+     * same hash really reaches the same state, inside the later one's box.
+     */
+    private static boolean duplicates(Grid grid, int[] tiles, List<Sequence> earlier, Sequence sequence) {
+
+        int[] state = grid.apply(tiles, unpack(sequence.moves, sequence.length));
+        for (Sequence other : earlier) {
+            boolean inside = other.box[0] >= sequence.box[0] && other.box[1] <= sequence.box[1]
+                    && other.box[2] >= sequence.box[2] && other.box[3] <= sequence.box[3];
+            if (inside && Arrays.equals(state, grid.apply(tiles, unpack(other.moves, other.length))))
+                return true;
+        }
+        return false;
+
+    }
+
+    // private helper method returning a set key for a packed sequence
+    private static long key(long moves, int length) {
+
+        long mask = length == 32 ? -1L : (1L << (2 * length)) - 1;
+        return (moves & mask) * 64 + length;
+
+    }
+
+    // private helper method expanding packed moves into directions
+    private static int[] unpack(long moves, int length) {
+
+        int[] dirs = new int[length];
+        for (int i = 0; i < length; i++)
+            dirs[i] = (int) (moves >>> (2 * i)) & 3;
+        return dirs;
+
+    }
+
+
+/* **************************************************************************
+ *            * Automaton Methods *
+ ***************************************************************************/
+
+    /**
+     * Compiles the patterns into an Aho-Corasick automaton.
+     * @param patterns List of forbidden move sequences
+     * @return int[] table[state * 4 + dir] = next state, or -1 if forbidden
+     */
+    public static int[] compile(List<int[]> patterns) {
+
+        // trie of the patterns
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        children.add(new int[]{-1, -1, -1, -1});
+        terminal.add(false);
+        for (int[] pattern : patterns) {
+            int node = 0;
+            for (int dir : pattern) {
+                if (children.get(node)[dir] < 0) {
+                    children.get(node)[dir] = children.size();
+                    children.add(new int[]{-1, -1, -1, -1});
+                    terminal.add(false);
+                }
+                node = children.get(node)[dir];
+            }
+            terminal.set(node, true);
+        }
+
+        // failure links in breadth first order turn the trie into an automaton
+        int states = children.size();
+        int[] fail = new int[states];
+        boolean[] forbidden = new boolean[states];
+        int[] table = new int[states * 4];
+        Queue<Integer> queue = new ArrayDeque<>();
+        forbidden[0] = terminal.get(0);
+        for (int dir = 0; dir < 4; dir++) {
+            int child = children.get(0)[dir];
+            table[dir] = child < 0 ? 0 : child;
+            if (child >= 0) {
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            forbidden[node] = terminal.get(node) || forbidden[fail[node]];
+            for (int dir = 0; dir < 4; dir++) {
+                int child = children.get(node)[dir];
+                if (child < 0) {
+                    table[node * 4 + dir] = table[fail[node] * 4 + dir];
+                } else {
+                    table[node * 4 + dir] = child;
+                    fail[child] = table[fail[node] * 4 + dir];
+                    queue.add(child);
+                }
+            }
+        }
+
+        // moves into a forbidden state are marked -1
+        for (int i = 0; i < table.length; i++) {
+            if (forbidden[table[i]])
+                table[i] = -1;
+        }
+        return table;
+
+    }
+
+    /**
+     * Minimizes an automaton by partition refinement (Moore's algorithm),
+     * dropping states that can no longer be reached. State 0 stays the start.
+     *
+     * @param table int[] automaton from compile()
+     * @return int[] equivalent automaton with the fewest states
+     */
+    public static int[] minimize(int[] table) {
+
+        int states = table.length / 4;
+
+        // keep reachable states only
+        boolean[] reachable = new boolean[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        reachable[0] = true;
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int dir = 0; dir < 4; dir++) {
+                int next = table[state * 4 + dir];
+                if (next >= 0 && !reachable[next]) {
+                    reachable[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+
+        // refine classes until each class agrees on every transition
+        int[] group = new int[states];
+        int groups = 1;
+        while (true) {
+            Map<List<Integer>, Integer> signatures = new HashMap<>();
+            int[] refined = new int[states];
+            for (int state = 0; state < states; state++) {
+                if (!reachable[state])
+                    continue;
+                List<Integer> signature = new ArrayList<>(5);
+                signature.add(group[state]);
+                for (int dir = 0; dir < 4; dir++) {
+                    int next = table[state * 4 + dir];
+                    signature.add(next < 0 ? -1 : group[next]);
+                }
+                Integer id = signatures.get(signature);
+                if (id == null) {
+                    id = signatures.size();
+                    signatures.put(signature, id);
+                }
+                refined[state] = id;
+            }
+            group = refined;
+            if (signatures.size() == groups)
+                break;
+            groups = signatures.size();
+        }
+
+        // renumber so the start state's class is 0
+        int[] number = new int[groups];
+        Arrays.fill(number, -1);
+        int count = 0;
+        number[group[0]] = count++;
+        for (int state = 0; state < states; state++) {
+            if (reachable[state] && number[group[state]] < 0)
+                number[group[state]] = count++;
+        }
+
+        int[] minimal = new int[groups * 4];
+        for (int state = 0; state < states; state++) {
+            if (!reachable[state])
+                continue;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = table[state * 4 + dir];
+                minimal[number[group[state]] * 4 + dir] = next < 0 ? -1 : number[group[next]];
+            }
+        }
+        return minimal;
+
+    }
+
+    /**
+     * Writes an automaton as a state count followed by its transitions.
+     * @param table int[] automaton to write
+     * @param fileName String location to write the table
+     */
+    private static void write(int[] table, String fileName) throws IOException {
+
+        if (table.length / 4 > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Too many automaton states for the table format: " + table.length / 4);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(fileName))) {
+            out.writeInt(table.length / 4);
+            for (int next : table)
+                out.writeShort(next);
+        }
+
+    }
+
+}
@@ -1,4 +1,7 @@
 import java.awt.Color;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Class used to represent the game console / display.
@@ -10,8 +13,28 @@ public class NumberDisplay {
     // the main puzzle board
     private Board board;
 
+    // keeps the next board of each selectable size ready
+    private final BoardPrefetcher prefetcher;
+
+    // answers hint requests for the current board, created on the first request or move
+    private Grid hintGrid;
+    private HintEngine hints;
+
+    // largest grid size solved optimally when the user asks for a solution
+    private static final int OPTIMAL_SOLVER_SIZE = 4;
+
+    // largest grid size solved with the anytime search, its initial weight and time allowed
+    private static final int ANYTIME_SOLVER_SIZE = 5;
+    private static final double ANYTIME_WEIGHT = 3.0;
+    private static final long ANYTIME_TIME = 2000;
+
+    // smallest grid size solved with the streaming beam search
+    private static final int BEAM_SOLVER_SIZE = 10;
+
     // animating the tile swap mechanism
+    private static final int HINT_TIME = 600;
     private static final int SOLUTION_SWAP_TIME = 500;
+    private static final int REDUCTION_SWAP_TIME = 100;
     private static final int ANIMATED_SWAP_TIME = 150;
     private static final int ANIMATED_FPS = 40;
 
@@ -64,12 +87,15 @@ public class NumberDisplay {
 
     /**
      * Simple constructor. Assigns the active board to null.
-     * Initializes the board later when the user chooses a board size.
+     * Initializes the board later when the user chooses a board size, and
+     * starts loading a board of every size in the background meanwhile.
      * Sets up the canvas and StdDraw with initial settings.
      */
     public NumberDisplay() {
 
         this.board = null;
+        this.prefetcher = new BoardPrefetcher(3, 4, 5);
+        prefetcher.prefetch();
 
         // set up canvas and StdDraw parameters
         StdDraw.enableDoubleBuffering();
@@ -201,10 +227,14 @@ public class NumberDisplay {
      * Displays the new game screen and allows the user to select the grid
      * size of the new game.
      * Once a grid size is selected, the board is initialized and scale is set
-     * before returning.
+     * before returning. Boards come from the prefetcher, which replaces each
+     * one in the background while the game is played.
      */
     public void startNewGame() {
 
+        this.hintGrid = null;
+        this.hints = null;
+
         StdDraw.clear();
         double xCenter = 0.5 * CANVAS_XSCALE;
         double yCenter = 0.5 * CANVAS_YSCALE;
@@ -223,7 +253,7 @@ public class NumberDisplay {
 
                 if (click3x3(x, y)) {
                     System.out.println("clicked 3x3");
-                    this.board = Board.createBoard(3);
+                    this.board = prefetcher.take(3);
                     System.out.println("3x3 board generated");
                     this.board.setScale(boardXMin, boardYMin, boardXMax, boardYMax);
                     System.out.println("scale set");
@@ -231,7 +261,7 @@ public class NumberDisplay {
                 }
                 if (click4x4(x, y)) {
                     System.out.println("clicked 4x4");
-                    this.board = Board.createBoard(4);
+                    this.board = prefetcher.take(4);
                     System.out.println("4x4 board generated");
                     this.board.setScale(boardXMin, boardYMin, boardXMax, boardYMax);
                     System.out.println("scale set");
@@ -239,7 +269,7 @@ public class NumberDisplay {
                 }
                 if (click5x5(x, y)) {
                     System.out.println("clicked 5x5");
-                    this.board = Board.createBoard(5);
+                    this.board = prefetcher.take(5);
                     System.out.println("5x5 board generated");
                     this.board.setScale(boardXMin, boardYMin, boardXMax, boardYMax);
                     System.out.println("scale set");
@@ -253,25 +283,182 @@ public class NumberDisplay {
 
     /**
      * Runs the solver visualization when a user selects the solve badge icon.
-     * Iterates through each Board in the solution given by Solver, updates
-     * current board, and displays step to user.
+     * Boards are placed by their number of cells, so rectangular boards are
+     * handled like the square board of about the same size.
+     * Boards up to 4x4 are solved optimally with IDASolver. 5x5 boards use the
+     * anytime AnytimeSolver: the first answer is animated at once while the
+     * search keeps improving it in the background. Boards from 10x10 up use
+     * the BeamSolver, whose moves are replayed as they are found. Other boards
+     * (or any the searches above give up on) use the ReductionSolver, which
+     * answers in milliseconds at any size.
+     * Replays each move on the current board and displays step to user.
      * Stops once goal is reached, and gameplay is over.
      */
     public void runSolver() {
 
-        board.cacheDistance();
-        Solver solver = new Solver(board);
+        Grid grid = new Grid(board.rows(), board.cols());
+        int cells = grid.cells();
+        int[] tiles = Grid.tilesOf(board);
+
+        if (cells <= OPTIMAL_SOLVER_SIZE * OPTIMAL_SOLVER_SIZE) {
+            int[] solution = new IDASolver(grid, tiles).solution();
+            if (solution == null) {
+                System.out.println("Board is unsolvable.");
+                return;
+            }
+            System.out.println("Optimal solution length: " + solution.length);
+            hintEngine().offer(tiles, solution);
+            replaySolution(grid, solution, SOLUTION_SWAP_TIME);
+            return;
+        }
+
+        if (cells >= BEAM_SOLVER_SIZE * BEAM_SOLVER_SIZE) {
+            replayBeamSolution(grid, tiles);
+            if (board.isGoal())
+                return;
+            // the beam gave up part way: finish from where the replay stopped
+            tiles = Grid.tilesOf(board);
+        }
+
+        int[] solution = null;
+        if (cells <= ANYTIME_SOLVER_SIZE * ANYTIME_SOLVER_SIZE)
+            solution = firstAnytimeSolution(grid, tiles);
+
+        if (solution == null) {
+            solution = new ReductionSolver(grid, tiles).solution();
+            if (solution == null) {
+                System.out.println("Board is unsolvable.");
+                return;
+            }
+            SolutionOptimizer optimizer = new SolutionOptimizer(grid, tiles, solution);
+            solution = optimizer.solution();
+            System.out.println("Reduction solution length: " + optimizer.before() + " -> " + optimizer.after());
+        }
+
+        replaySolution(grid, solution, REDUCTION_SWAP_TIME);
+
+    }
 
-        if (solver.unsolvable()) {
-            System.out.println("Board is unsolvable.");
+    /**
+     * Shows the user a hint: the tile to move next on an optimal path is
+     * briefly drawn with its colors inverted. The hint is not played.
+     * The hint after a followed hint is answered from the cached solution,
+     * as is a hint after any move, once its speculation has finished.
+     */
+    public void showHint() {
+
+        HintEngine engine = hintEngine();
+        int dir = engine.hint(Grid.tilesOf(board));
+        if (dir < 0)
             return;
+        if (!engine.lastOptimal())
+            System.out.println("Hint search ran out of time, hint may not be optimal.");
+
+        int blank = board.getZeroRow() * board.cols() + board.getZeroCol();
+        int cell = hintGrid.neighbor(blank, dir);
+
+        StdDraw.clear();
+        drawDisplayBorder();
+        drawBackground();
+        board.draw();
+        board.drawHighlighted(cell / board.cols(), cell % board.cols());
+        StdDraw.show();
+        StdDraw.pause(HINT_TIME);
+        refresh();
+
+    }
+
+    // private helper method returning the hint engine of the current board, creating it if needed
+    private HintEngine hintEngine() {
+
+        if (hints == null) {
+            hintGrid = new Grid(board.rows(), board.cols());
+            hints = new HintEngine(hintGrid);
         }
+        return hints;
+
+    }
 
-        for (Board b : solver.solution()) {
-            this.board = b;
-            b.setScale(boardXMin, boardYMin, boardXMax, boardYMax);
+    /**
+     * Private helper method that starts the anytime search on a background
+     * thread and returns as soon as its first solution is found. Later
+     * improvements are reported on standard output as they arrive.
+     *
+     * @param grid Grid matching the current board
+     * @param tiles int[] compact state of the current board
+     * @return int[] first solution found, or null if the search found none
+     */
+    private int[] firstAnytimeSolution(Grid grid, int[] tiles) {
+
+        CompletableFuture<int[]> first = new CompletableFuture<>();
+        AnytimeSolver.Listener listener = (solution, bound) -> {
+            System.out.printf("%s solution length: %d (at most %.2fx optimal)%n",
+                    first.isDone() ? "Improved" : "Anytime", solution.length, bound);
+            first.complete(solution);
+        };
+
+        Thread search = new Thread(() -> {
+            new AnytimeSolver(grid, tiles, ANYTIME_WEIGHT, ANYTIME_TIME, listener);
+            first.complete(null);
+        }, "anytime-solver");
+        search.setDaemon(true);
+        search.start();
+
+        return first.join();
+
+    }
+
+    /**
+     * Private helper method that runs the beam search on a background thread
+     * and replays its moves while it is still searching, as each part of the
+     * solution becomes final.
+     *
+     * @param grid Grid matching the current board
+     * @param tiles int[] compact state of the current board
+     */
+    private void replayBeamSolution(Grid grid, int[] tiles) {
+
+        // committed moves in order, then an empty array once the search ends
+        BlockingQueue<int[]> committed = new LinkedBlockingQueue<>();
+        Thread search = new Thread(() -> {
+            try {
+                BeamSolver solver = new BeamSolver(grid, tiles, BeamSolver.DEFAULT_WIDTH,
+                        Heuristic.reduction(grid), committed::add);
+                if (solver.solved())
+                    System.out.println("Beam solution length: " + solver.moves());
+            } finally {
+                committed.add(new int[0]);
+            }
+        }, "beam-solver");
+        search.setDaemon(true);
+        search.start();
+
+        try {
+            for (int[] moves = committed.take(); moves.length > 0; moves = committed.take())
+                replaySolution(grid, moves, REDUCTION_SWAP_TIME);
+        } catch (InterruptedException e) {
+            System.out.println("Beam replay interrupted.");
+        }
+
+    }
+
+    /**
+     * Private helper method that plays a list of blank moves on the current
+     * board, pausing between each displayed step.
+     *
+     * @param grid Grid matching the current board
+     * @param solution int[] blank move directions
+     * @param swapTime int milliseconds to wait after each move
+     */
+    private void replaySolution(Grid grid, int[] solution, int swapTime) {
+
+        int cols = board.cols();
+        for (int dir : solution) {
+            int blank = board.getZeroRow() * cols + board.getZeroCol();
+            int cell = grid.neighbor(blank, dir);
+            board.zeroSwapTile(cell / cols, cell % cols);
             refresh();
-            StdDraw.pause(SOLUTION_SWAP_TIME);
+            StdDraw.pause(swapTime);
         }
 
     }
@@ -291,7 +478,8 @@ public class NumberDisplay {
 
     /**
      * Accessor method that allows for swapping a tile.
-     * Calls the board matching method.
+     * Calls the board matching method. After a successful move the next hint
+     * is solved in the background while the player thinks.
      *
      * @param row int row of tile to swap
      * @param col int column of tile to swap
@@ -299,7 +487,10 @@ public class NumberDisplay {
      */
     public boolean zeroSwapTile(int row, int col) {
 
-        return board.zeroSwapTile(row, col);
+        boolean moved = board.zeroSwapTile(row, col);
+        if (moved)
+            hintEngine().speculate(Grid.tilesOf(board));
+        return moved;
 
     }
 
@@ -357,59 +548,68 @@ public class NumberDisplay {
 
     /**
      * Method used to check whether a user has clicked inside puzzle board.
+     * A rectangular board is centered within the board frame, so only the
+     * area its tiles cover counts, not the empty margin around it.
      *
      * @param x double x coordinate of click location
      * @param y double y coordinate of click location
-     * @return true if (x,y) is inside the total board area
+     * @return true if (x,y) is inside the area covered by the tiles
      */
     public boolean clickInsideBoard(double x, double y) {
 
-        boolean xBounded = boardXMin < x && x < boardXMax;
-        boolean yBounded = boardYMin < y && y < boardYMax;
-
-        return (xBounded && yBounded);
+        return clickRow(y) >= 0 && clickCol(x) >= 0;
 
     }
 
     /**
      * Private helper method called when the user clicks inside the board.
-     * Finds the nearest row in the board given the click location.
+     * Finds the row of the board containing the click location.
      *
      * @param y double click y-coordinate
-     * @return int row closest or containing the y-coordinate
+     * @return int row containing the y-coordinate, or -1 if above or below the tiles
      */
     public int clickRow(double y) {
 
-        double bracket = (boardYMax - boardYMin) / ((double) board.dimension());
+        double bracket = tileBracket();
+        double top = 0.5 * (boardYMax + boardYMin) + 0.5 * board.rows() * bracket;
 
-        for (int row = 0; row < board.dimension(); row++) {
-            double rowCutoff = boardYMax - (row + 1) * bracket;
-            if (y > rowCutoff)
-                return row;
-        }
-
-        return -1;
+        double row = Math.floor((top - y) / bracket);
+        if (row < 0 || row >= board.rows())
+            return -1;
+        return (int) row;
 
     }
 
     /**
      * Private helper method called when the user clicks inside the board.
-     * Finds the nearest column in the board given the click location.
+     * Finds the column of the board containing the click location.
      *
      * @param x double click x-coordinate
-     * @return int column closest or containing the x-coordinate
+     * @return int column containing the x-coordinate, or -1 if left or right of the tiles
      */
     public int clickCol(double x) {
 
-        double bracket = (boardXMax - boardXMin) / ((double) board.dimension());
+        double bracket = tileBracket();
+        double left = 0.5 * (boardXMin + boardXMax) - 0.5 * board.cols() * bracket;
 
-        for (int col = 0; col < board.dimension(); col++) {
-            double colCutoff = boardXMin + (col + 1) * bracket;
-            if (x < colCutoff)
-                return col;
-        }
+        double col = Math.floor((x - left) / bracket);
+        if (col < 0 || col >= board.cols())
+            return -1;
+        return (int) col;
+
+    }
+
+    /**
+     * Private helper method returning the width of one tile on screen. Tiles
+     * are square, so a rectangular board is centered along its shorter side
+     * (see Board.setScale()).
+     *
+     * @return double tile width in canvas coordinates
+     */
+    private double tileBracket() {
 
-        return -1;
+        return Math.min((boardXMax - boardXMin) / ((double) board.cols()),
+                (boardYMax - boardYMin) / ((double) board.rows()));
 
     }
 
@@ -0,0 +1,118 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class used to build the indexed puzzle packs under puzzles/, one per grid shape:
+ * puzzles/puzzle4x4/{easy,medium,hard}/*.txt, *.pack -> puzzles/puzzle4x4/puzzle4x4_all.pack
+ * <p>
+ * Every distinct puzzle of a shape, from any difficulty folder or pack, is
+ * solved optimally with the IDASolver, in parallel on one worker per core.
+ * The pack records the optimal length, the nodes the search needed, the
+ * manhattan distance and the hash of each puzzle (see PuzzlePack), so the
+ * game can pick puzzles by true difficulty without searching. Unsolvable
+ * puzzles are left out.
+ * <p>
+ * Usage: PuzzleIndexer [puzzles directory]
+ */
+public class PuzzleIndexer {
+
+    /**
+     * Client indexes every shape directory found.
+     * @param args String[] optional puzzles directory
+     */
+    public static void main(String[] args) {
+
+        String root = args.length > 0 ? args[0] : "puzzles";
+
+        File[] shapeDirs = new File(root).listFiles((dir, name) -> name.matches("puzzle\\d+x\\d+"));
+        if (shapeDirs == null) {
+            System.out.println("No puzzle directories found under " + root);
+            return;
+        }
+        Arrays.sort(shapeDirs);
+
+        for (File shapeDir : shapeDirs) {
+            String indexName = new File(shapeDir, shapeDir.getName() + "_" + Board.ALL_PUZZLES + ".pack").getPath();
+            long start = System.nanoTime();
+            int total = index(shapeDir, indexName);
+            System.out.printf("Indexed %d puzzles to %s in %.1f s%n", total, indexName, (System.nanoTime() - start) / 1e9);
+        }
+
+    }
+
+    /**
+     * Solves every distinct puzzle of a shape directory and writes its
+     * indexed pack. A previous indexed pack is not read back as a source.
+     *
+     * @param shapeDir File directory holding the difficulty folders and packs
+     * @param indexName String location of the indexed pack to write
+     * @return int number of puzzles indexed
+     */
+    public static int index(File shapeDir, String indexName) {
+
+        String[] shape = shapeDir.getName().substring("puzzle".length()).split("x");
+        int rows = Integer.parseInt(shape[0]);
+        int cols = Integer.parseInt(shape[1]);
+
+        // distinct puzzles in the order found, text puzzles first
+        Map<String, int[]> found = new LinkedHashMap<>();
+        File[] subDirs = shapeDir.listFiles(File::isDirectory);
+        if (subDirs != null) {
+            Arrays.sort(subDirs);
+            for (File subDir : subDirs) {
+                File[] files = subDir.listFiles((dir, name) -> name.endsWith(".txt"));
+                if (files == null)
+                    continue;
+                Arrays.sort(files);
+                for (File file : files) {
+                    Board board = new Board(file.getPath());
+                    if (board.rows() != rows || board.cols() != cols)
+                        throw new IllegalArgumentException(file + " is not " + rows + "x" + cols);
+                    int[] tiles = Grid.tilesOf(board);
+                    found.putIfAbsent(Arrays.toString(tiles), tiles);
+                }
+            }
+        }
+        File index = new File(indexName);
+        File[] packFiles = shapeDir.listFiles(file -> file.getName().endsWith(".pack") && !file.equals(index));
+        if (packFiles != null) {
+            Arrays.sort(packFiles);
+            for (File packFile : packFiles) {
+                PuzzlePack pack = new PuzzlePack(packFile.getPath());
+                if (pack.rows() != rows || pack.cols() != cols)
+                    throw new IllegalArgumentException(packFile + " is not " + rows + "x" + cols);
+                for (int i = 0; i < pack.size(); i++) {
+                    int[] tiles = pack.tiles(i);
+                    found.putIfAbsent(Arrays.toString(tiles), tiles);
+                }
+            }
+        }
+
+        Grid grid = new Grid(rows, cols);
+        List<int[]> candidates = new ArrayList<>(found.values());
+        IDASolver[] solvers = candidates.parallelStream()
+                .map(tiles -> new IDASolver(grid, tiles))
+                .toArray(IDASolver[]::new);
+
+        List<int[]> puzzles = new ArrayList<>();
+        int[] lengths = new int[solvers.length];
+        long[] nodes = new long[solvers.length];
+        for (int i = 0; i < solvers.length; i++) {
+            if (!solvers[i].solved())
+                continue;
+            lengths[puzzles.size()] = solvers[i].moves();
+            nodes[puzzles.size()] = solvers[i].nodes();
+            puzzles.add(candidates.get(i));
+        }
+
+        int total = puzzles.size();
+        PuzzlePack.write(indexName, rows, cols, puzzles, Arrays.copyOf(lengths, total), Arrays.copyOf(nodes, total));
+        return total;
+
+    }
+
+}
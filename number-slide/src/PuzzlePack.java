@@ -0,0 +1,428 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class used to read a binary puzzle pack: every puzzle of one grid size and
+ * difficulty in a single memory-mapped file.
+ * <p>
+ * File layout (big-endian):
+ * * header   - magic, version, rows, cols, flags, record count, record size
+ * * lengths  - (only if flagged) min and max optimal length followed by
+ * *            (max - min + 2) record offsets, one per optimal length
+ * * records  - fixed-size: one unsigned byte per tile in row-major order,
+ * *            then (if flagged) a short holding the optimal length, then
+ * *            (if flagged) the manhattan distance (short), the IDA* nodes
+ * *            needed to solve the puzzle and its Zobrist hash (longs)
+ * <p>
+ * When optimal lengths are present the records are sorted by length, so the
+ * records of any given length form a contiguous range found in O(1). Solver
+ * statistics are only written alongside lengths; the PuzzleIndexer writes
+ * them for the "all" pack of each shape, which holds every known puzzle.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class PuzzlePack {
+
+    // file identification
+    private static final int MAGIC = 0x4E53504B;   // "NSPK"
+    private static final short VERSION = 1;
+
+    // flag bits
+    private static final int FLAG_LENGTHS = 1;
+    private static final int FLAG_STATS = 2;
+
+    // solver statistics following the optimal length: manhattan, nodes, hash
+    private static final int STATS_BYTES = 2 + 8 + 8;
+
+    // fixed header: magic, version, rows, cols, flags, count, record size
+    private static final int HEADER_BYTES = 4 + 2 + 1 + 1 + 1 + 4 + 2;
+
+    // pack contents
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int cols;
+    private final int count;
+    private final int recordSize;
+    private final boolean hasLengths;
+    private final boolean hasStats;
+    private final int minLength;
+    private final int maxLength;
+    private final int lengthTable;
+    private final int recordsStart;
+
+    // used to convert records back into Boards
+    private final Grid grid;
+
+
+/* **************************************************************************
+ *            * Constructor *
+ ***************************************************************************/
+
+    /**
+     * Constructor maps the pack file into memory and reads its header.
+     * @param fileName String location of the pack on disk
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a puzzle pack
+     */
+    public PuzzlePack(String fileName) {
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open puzzle pack " + fileName, e);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION)
+            throw new IllegalArgumentException("Not a puzzle pack: " + fileName);
+
+        this.rows = buffer.get(6) & 0xFF;
+        this.cols = buffer.get(7) & 0xFF;
+        this.hasLengths = (buffer.get(8) & FLAG_LENGTHS) != 0;
+        this.hasStats = hasLengths && (buffer.get(8) & FLAG_STATS) != 0;
+        this.count = buffer.getInt(9);
+        this.recordSize = buffer.getShort(13) & 0xFFFF;
+
+        if (hasLengths) {
+            this.minLength = buffer.getShort(HEADER_BYTES) & 0xFFFF;
+            this.maxLength = buffer.getShort(HEADER_BYTES + 2) & 0xFFFF;
+            this.lengthTable = HEADER_BYTES + 4;
+            this.recordsStart = lengthTable + 4 * (maxLength - minLength + 2);
+        } else {
+            this.minLength = -1;
+            this.maxLength = -1;
+            this.lengthTable = -1;
+            this.recordsStart = HEADER_BYTES;
+        }
+
+        this.grid = new Grid(rows, cols);
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to obtain the number of puzzles in the pack.
+     * @return int total puzzles
+     */
+    public int size() {
+
+        return count;
+
+    }
+
+    /**
+     * Accessor method used to obtain the grid rows of every puzzle.
+     * @return int number of rows
+     */
+    public int rows() {
+
+        return rows;
+
+    }
+
+    /**
+     * Accessor method used to obtain the grid columns of every puzzle.
+     * @return int number of columns
+     */
+    public int cols() {
+
+        return cols;
+
+    }
+
+    /**
+     * Accessor method used to check for optimal length metadata.
+     * @return true if every record stores its optimal solution length
+     */
+    public boolean hasLengths() {
+
+        return hasLengths;
+
+    }
+
+    /**
+     * Accessor method used to check for solver statistics (manhattan
+     * distance, IDA* nodes and hash) stored with each record.
+     * @return true if every record stores its solver statistics
+     */
+    public boolean hasStats() {
+
+        return hasStats;
+
+    }
+
+    /**
+     * Accessor method used to obtain the shortest optimal length in the pack.
+     * @return int optimal length of the easiest puzzle, or -1 if the pack holds no lengths
+     */
+    public int minLength() {
+
+        return minLength;
+
+    }
+
+    /**
+     * Accessor method used to obtain the longest optimal length in the pack.
+     * @return int optimal length of the hardest puzzle, or -1 if the pack holds no lengths
+     */
+    public int maxLength() {
+
+        return maxLength;
+
+    }
+
+    /**
+     * Reads the tiles of a puzzle.
+     * @param index int puzzle index between 0 and size() - 1
+     * @return int[] compact state of the puzzle
+     */
+    public int[] tiles(int index) {
+
+        int offset = record(index);
+        int cells = rows * cols;
+        int[] tiles = new int[cells];
+        for (int cell = 0; cell < cells; cell++)
+            tiles[cell] = buffer.get(offset + cell) & 0xFF;
+        return tiles;
+
+    }
+
+    /**
+     * Creates a Board from a puzzle in the pack.
+     * @param index int puzzle index between 0 and size() - 1
+     * @return Board holding the puzzle
+     */
+    public Board board(int index) {
+
+        return grid.toBoard(tiles(index));
+
+    }
+
+    /**
+     * Reads the optimal solution length of a puzzle.
+     * @param index int puzzle index between 0 and size() - 1
+     * @return int optimal length, or -1 if the pack holds no lengths
+     */
+    public int optimalLength(int index) {
+
+        int offset = record(index);
+        if (!hasLengths)
+            return -1;
+        return buffer.getShort(offset + rows * cols) & 0xFFFF;
+
+    }
+
+    /**
+     * Reads the manhattan distance of a puzzle.
+     * @param index int puzzle index between 0 and size() - 1
+     * @return int manhattan distance of the starting state
+     * @throws UnsupportedOperationException if the pack holds no solver statistics
+     */
+    public int manhattan(int index) {
+
+        return buffer.getShort(stats(index)) & 0xFFFF;
+
+    }
+
+    /**
+     * Reads the number of nodes IDA* needed to solve a puzzle, a measure of
+     * how hard the puzzle is to search beyond its length alone.
+     * @param index int puzzle index between 0 and size() - 1
+     * @return long nodes generated by the IDASolver
+     * @throws UnsupportedOperationException if the pack holds no solver statistics
+     */
+    public long nodes(int index) {
+
+        return buffer.getLong(stats(index) + 2);
+
+    }
+
+    /**
+     * Reads the Zobrist hash of a puzzle (see Grid.hash()).
+     * @param index int puzzle index between 0 and size() - 1
+     * @return long hash of the starting state
+     * @throws UnsupportedOperationException if the pack holds no solver statistics
+     */
+    public long hash(int index) {
+
+        return buffer.getLong(stats(index) + 10);
+
+    }
+
+    /**
+     * Returns the index of the first puzzle with the given optimal length.
+     * Together with countWithLength() this selects puzzles by difficulty.
+     *
+     * @param length int optimal solution length
+     * @return int index of the first such puzzle
+     * @throws UnsupportedOperationException if the pack holds no lengths
+     */
+    public int firstWithLength(int length) {
+
+        if (!hasLengths)
+            throw new UnsupportedOperationException("Puzzle pack has no optimal lengths");
+        if (length < minLength)
+            return 0;
+        if (length > maxLength)
+            return count;
+        return buffer.getInt(lengthTable + 4 * (length - minLength));
+
+    }
+
+    /**
+     * Returns the number of puzzles with the given optimal length.
+     * @param length int optimal solution length
+     * @return int number of such puzzles
+     */
+    public int countWithLength(int length) {
+
+        return firstWithLength(length + 1) - firstWithLength(length);
+
+    }
+
+    // private helper method returning the offset of a record, after validating its index
+    private int record(int index) {
+
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Puzzle index " + index + " outside pack of " + count);
+        return recordsStart + index * recordSize;
+
+    }
+
+    // private helper method returning the offset of a record's solver statistics
+    private int stats(int index) {
+
+        int offset = record(index);
+        if (!hasStats)
+            throw new UnsupportedOperationException("Puzzle pack has no solver statistics");
+        return offset + rows * cols + 2;
+
+    }
+
+
+/* **************************************************************************
+ *            * Writer *
+ ***************************************************************************/
+
+    /**
+     * Writes a pack file holding the puzzles provided.
+     * If lengths are supplied the records are written sorted by length.
+     *
+     * @param fileName String location to write the pack
+     * @param rows int number of rows of every puzzle
+     * @param cols int number of columns of every puzzle
+     * @param puzzles List of compact states
+     * @param lengths int[] optimal length of each puzzle, or null
+     * @throws IllegalArgumentException if a length is negative or does not fit in an unsigned short
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void write(String fileName, int rows, int cols, List<int[]> puzzles, int[] lengths) {
+
+        write(fileName, rows, cols, puzzles, lengths, null);
+
+    }
+
+    /**
+     * Writes a pack file holding the puzzles provided, with solver statistics.
+     * If lengths are supplied the records are written sorted by length.
+     *
+     * @param fileName String location to write the pack
+     * @param rows int number of rows of every puzzle
+     * @param cols int number of columns of every puzzle
+     * @param puzzles List of compact states
+     * @param lengths int[] optimal length of each puzzle, or null
+     * @param nodes long[] IDA* nodes needed to solve each puzzle, or null
+     * @throws IllegalArgumentException if nodes are supplied without lengths, or a
+     *         length is negative or does not fit in an unsigned short
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void write(String fileName, int rows, int cols, List<int[]> puzzles, int[] lengths, long[] nodes) {
+
+        if (nodes != null && lengths == null)
+            throw new IllegalArgumentException("Solver statistics need optimal lengths");
+        if (lengths != null) {
+            if (lengths.length != puzzles.size())
+                throw new IllegalArgumentException("Expected " + puzzles.size() + " optimal lengths");
+            for (int length : lengths) {
+                if (length < 0 || length > 0xFFFF)
+                    throw new IllegalArgumentException("Optimal length " + length + " outside 0.." + 0xFFFF);
+            }
+        }
+
+        Grid grid = new Grid(rows, cols);
+        int cells = rows * cols;
+        int count = puzzles.size();
+        boolean hasLengths = lengths != null;
+        boolean hasStats = nodes != null;
+        int recordSize = cells + (hasLengths ? 2 : 0) + (hasStats ? STATS_BYTES : 0);
+
+        // sort record order by optimal length (stable, so file order is kept within a length)
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+        int minLength = 0;
+        int maxLength = 0;
+        if (hasLengths) {
+            Arrays.sort(order, (a, b) -> Integer.compare(lengths[a], lengths[b]));
+            minLength = count == 0 ? 0 : lengths[order[0]];
+            maxLength = count == 0 ? 0 : lengths[order[count - 1]];
+        }
+
+        int tableBytes = hasLengths ? 4 + 4 * (maxLength - minLength + 2) : 0;
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + tableBytes + count * recordSize);
+
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.put((byte) rows);
+        out.put((byte) cols);
+        out.put((byte) ((hasLengths ? FLAG_LENGTHS : 0) | (hasStats ? FLAG_STATS : 0)));
+        out.putInt(count);
+        out.putShort((short) recordSize);
+
+        if (hasLengths) {
+            out.putShort((short) minLength);
+            out.putShort((short) maxLength);
+            // offset table: first record index of each length, plus an end marker
+            int index = 0;
+            for (int length = minLength; length <= maxLength + 1; length++) {
+                while (index < count && lengths[order[index]] < length)
+                    index++;
+                out.putInt(index);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int[] tiles = puzzles.get(order[i]);
+            if (tiles.length != cells)
+                throw new IllegalArgumentException("Puzzle does not match pack dimensions");
+            for (int tile : tiles)
+                out.put((byte) tile);
+            if (hasLengths)
+                out.putShort((short) lengths[order[i]]);
+            if (hasStats) {
+                out.putShort((short) grid.manhattan(tiles));
+                out.putLong(nodes[order[i]]);
+                out.putLong(grid.hash(tiles));
+            }
+        }
+
+        try {
+            Files.write(Paths.get(fileName), out.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write puzzle pack " + fileName, e);
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+import edu.princeton.cs.algs4.In;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class used to convert the text puzzles under puzzles/ into binary puzzle
+ * packs, one per grid size and difficulty:
+ * puzzles/puzzle4x4/medium/*.txt -> puzzles/puzzle4x4/puzzle4x4_medium.pack
+ * <p>
+ * With the --lengths option every puzzle is solved optimally with the
+ * IDASolver first, and the pack is written with optimal length metadata.
+ * <p>
+ * Usage: PuzzlePackConverter [--lengths] [puzzles directory]
+ */
+public class PuzzlePackConverter {
+
+    // difficulty sub-directories converted for each size
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+
+    /**
+     * Client converts every size / difficulty directory found.
+     * @param args String[] optional --lengths flag and puzzles directory
+     */
+    public static void main(String[] args) {
+
+        boolean withLengths = false;
+        String root = "puzzles";
+        for (String arg : args) {
+            if (arg.equals("--lengths"))
+                withLengths = true;
+            else
+                root = arg;
+        }
+
+        File[] sizeDirs = new File(root).listFiles((dir, name) -> name.matches("puzzle\\d+x\\d+"));
+        if (sizeDirs == null) {
+            System.out.println("No puzzle directories found under " + root);
+            return;
+        }
+        Arrays.sort(sizeDirs);
+
+        for (File sizeDir : sizeDirs) {
+            for (String difficulty : DIFFICULTIES) {
+                File puzzleDir = new File(sizeDir, difficulty);
+                if (!puzzleDir.isDirectory())
+                    continue;
+                String packName = new File(sizeDir, sizeDir.getName() + "_" + difficulty + ".pack").getPath();
+                int total = convert(puzzleDir, packName, withLengths);
+                System.out.println("Wrote " + total + " puzzles to " + packName);
+            }
+        }
+
+    }
+
+    /**
+     * Converts every text puzzle in a directory (in file name order) into a
+     * single pack. When solving for lengths, unsolvable puzzles are reported
+     * and left out of the pack.
+     *
+     * @param puzzleDir File directory of text puzzles
+     * @param packName String location of the pack to write
+     * @param withLengths boolean solve each puzzle and store optimal lengths
+     * @return int number of puzzles written
+     */
+    public static int convert(File puzzleDir, String packName, boolean withLengths) {
+
+        File[] files = puzzleDir.listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null || files.length == 0)
+            return 0;
+        Arrays.sort(files);
+
+        List<int[]> puzzles = new ArrayList<>();
+        int rows = -1;
+        int cols = -1;
+        for (File file : files) {
+            In in = new In(file);
+            String[] dimensions = in.readLine().trim().split("\\s+");
+            int fileRows = Integer.parseInt(dimensions[0]);
+            int fileCols = dimensions.length > 1 ? Integer.parseInt(dimensions[1]) : fileRows;
+            if (rows < 0) {
+                rows = fileRows;
+                cols = fileCols;
+            } else if (fileRows != rows || fileCols != cols)
+                throw new IllegalArgumentException("Mixed grid sizes in " + puzzleDir);
+
+            int[] tiles = new int[rows * cols];
+            for (int cell = 0; cell < tiles.length; cell++)
+                tiles[cell] = in.readInt();
+            in.close();
+            puzzles.add(tiles);
+        }
+
+        int[] lengths = null;
+        if (withLengths) {
+            Grid grid = new Grid(rows, cols);
+            IDASolver[] solvers = puzzles.parallelStream()
+                    .map(tiles -> new IDASolver(grid, tiles))
+                    .toArray(IDASolver[]::new);
+
+            List<int[]> solved = new ArrayList<>();
+            lengths = new int[solvers.length];
+            for (int i = 0; i < solvers.length; i++) {
+                if (!solvers[i].solved()) {
+                    System.out.println("Skipping unsolvable puzzle " + files[i]);
+                    continue;
+                }
+                lengths[solved.size()] = solvers[i].moves();
+                solved.add(puzzles.get(i));
+            }
+            puzzles = solved;
+            lengths = Arrays.copyOf(lengths, puzzles.size());
+        }
+
+        PuzzlePack.write(packName, rows, cols, puzzles, lengths);
+        return puzzles.size();
+
+    }
+
+}
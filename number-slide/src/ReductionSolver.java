@@ -0,0 +1,477 @@
+import java.util.Arrays;
+
+/**
+ * Class implements a fast, suboptimal solver for large Number Slide boards.
+ * <p>
+ * The board is solved the way a person would: the top row is placed tile by
+ * tile, then the left column, shrinking the unsolved region by one row or
+ * column each time. Once the region is down to 3x3 (nine cells or fewer) it
+ * is finished optimally with the IDASolver.
+ * <p>
+ * Each tile is walked toward its goal one step at a time, routing the blank
+ * around the tile with a small breadth-first search over the free cells.
+ * If the greedy walk gets stuck, a breadth-first search over (tile, blank)
+ * positions inside the free region is used instead.
+ * The last two tiles of a line use the usual corner maneuver: the first is
+ * parked in the corner, the second just beyond it, and both rotate in.
+ * <p>
+ * Solutions are reported as a list of blank move directions (see Grid).
+ */
+public class ReductionSolver {
+
+    // regions with this many cells or fewer are solved optimally
+    private static final int OPTIMAL_CELLS = 9;
+
+    // search parameters
+    private final Grid grid;
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int[] goal;
+    private final int[] tiles;
+    private int blank;
+
+    // cells holding tiles that are already placed for good
+    private final boolean[] locked;
+
+    // unsolved region bounds (inclusive top/left, exclusive bottom/right)
+    private int top;
+    private int left;
+
+    // breadth-first search work space, reused between searches
+    private final int[] queue;
+    private final int[] parent;
+    private final int[] visited;
+    private int stamp;
+
+    // recorded solution
+    private int[] solution;
+    private int moves;
+    private boolean solvable;
+
+
+/* **************************************************************************
+ *            * Constructor *
+ ***************************************************************************/
+
+    /**
+     * Solves the state provided. The grid must use the standard goal layout.
+     * @param grid Grid describing the board geometry
+     * @param start int[] initial state (left unchanged)
+     */
+    public ReductionSolver(Grid grid, int[] start) {
+
+        if (grid == null || start == null)
+            throw new IllegalArgumentException("Grid and start state must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+        if (grid.goalCell(0) != grid.cells() - 1)
+            throw new IllegalArgumentException("Reduction requires the blank to finish in the last cell");
+
+        this.grid = grid;
+        this.rows = grid.rows();
+        this.cols = grid.cols();
+        this.cells = grid.cells();
+        this.goal = grid.goal();
+        this.tiles = start.clone();
+        this.blank = Grid.blankCell(tiles);
+        this.locked = new boolean[cells];
+        this.solution = new int[Math.max(64, cells * 8)];
+
+        this.queue = new int[cells * cells];
+        this.parent = new int[cells * cells];
+        this.visited = new int[cells * cells];
+
+        this.solvable = grid.isSolvable(tiles);
+        if (solvable)
+            solve();
+
+    }
+
+    /**
+     * Private helper method that runs the reduction: rows and columns are
+     * solved until the remaining region is small enough to finish optimally.
+     */
+    private void solve() {
+
+        int height = rows;
+        int width = cols;
+
+        while (height * width > OPTIMAL_CELLS) {
+            if (height >= width) {
+                solveLine(top * cols + left, Grid.RIGHT, width);
+                top++;
+                height--;
+            } else {
+                solveLine(top * cols + left, Grid.DOWN, height);
+                left++;
+                width--;
+            }
+        }
+
+        solveRegionOptimally(height, width);
+
+    }
+
+
+/* **************************************************************************
+ *            * Line Placement *
+ ***************************************************************************/
+
+    /**
+     * Private helper method that places every tile of a row or column.
+     *
+     * @param first int cell at the start of the line
+     * @param lineDir int direction along the line (RIGHT for rows, DOWN for columns)
+     * @param length int number of cells in the line
+     */
+    private void solveLine(int first, int lineDir, int length) {
+
+        int step = lineDir == Grid.RIGHT ? 1 : cols;
+        int beyond = lineDir == Grid.RIGHT ? cols : 1;
+        int last = first + (length - 1) * step;
+
+        // every tile but the last two goes straight to its goal cell
+        for (int i = 0; i < length - 2; i++) {
+            int target = first + i * step;
+            placeTile(goalTile(target), target);
+            locked[target] = true;
+        }
+
+        int a = goalTile(last - step);
+        int b = goalTile(last);
+
+        // the last two tiles may already be in place
+        if (tiles[last - step] == a && tiles[last] == b) {
+            locked[last - step] = true;
+            locked[last] = true;
+            return;
+        }
+
+        // park the first tile in the corner, the second just beyond it
+        placeTile(a, last);
+        locked[last] = true;
+
+        // the slot before the corner is now a dead end: if the second tile is in
+        // it, or at its mouth with the blank inside, it can never get out.
+        // Move it two cells away from the line while the corner is free, then
+        // park the first tile again
+        int pocket = last - step;
+        if (tiles[pocket] == b || (blank == pocket && tiles[pocket + beyond] == b)) {
+            locked[last] = false;
+            int away = pocket + 2 * beyond;
+            placeTile(b, away);
+            locked[away] = true;
+            placeTile(a, last);
+            locked[last] = true;
+            locked[away] = false;
+        }
+
+        placeTile(b, last + beyond);
+        locked[last + beyond] = true;
+
+        // blank into the slot before the corner, then rotate both tiles in
+        moveBlankTo(last - step);
+        record(lineDir);
+        record(lineDir == Grid.RIGHT ? Grid.DOWN : Grid.RIGHT);
+
+        locked[last + beyond] = false;
+        locked[last - step] = true;
+        locked[last] = true;
+
+    }
+
+    // private helper method returning the tile whose goal is the given cell
+    private int goalTile(int cell) {
+
+        return goal[cell];
+
+    }
+
+    /**
+     * Private helper method that moves a tile to a target cell without
+     * disturbing any locked cell.
+     *
+     * @param tile int tile value to move
+     * @param target int cell the tile must reach
+     */
+    private void placeTile(int tile, int target) {
+
+        int position = find(tile);
+
+        // greedy walk: step the tile toward the target while the blank can get around
+        while (position != target) {
+            int next = stepToward(position, target);
+            if (next < 0) {
+                searchTile(position, target);
+                return;
+            }
+            // blank to the cell the tile is about to enter, then swap
+            locked[position] = true;
+            boolean reached = moveBlankTo(next);
+            locked[position] = false;
+            if (!reached) {
+                searchTile(position, target);
+                return;
+            }
+            record(directionBetween(next, position));
+            position = next;
+        }
+
+    }
+
+    /**
+     * Private helper method choosing the next cell on the tile's way to the
+     * target. Prefers closing the column gap first, then the row gap.
+     *
+     * @return int next cell, or -1 if every step toward the target is locked
+     */
+    private int stepToward(int position, int target) {
+
+        int row = position / cols;
+        int col = position % cols;
+        int targetRow = target / cols;
+        int targetCol = target % cols;
+
+        int[] options = new int[2];
+        int count = 0;
+        if (col != targetCol)
+            options[count++] = position + (col < targetCol ? 1 : -1);
+        if (row != targetRow)
+            options[count++] = position + (row < targetRow ? cols : -cols);
+
+        for (int i = 0; i < count; i++) {
+            if (!locked[options[i]] && inRegion(options[i]))
+                return options[i];
+        }
+        return -1;
+
+    }
+
+    // private helper method used to check a cell is inside the unsolved region
+    private boolean inRegion(int cell) {
+
+        return cell / cols >= top && cell % cols >= left;
+
+    }
+
+    // private helper method returning the blank direction from one cell to an adjacent cell
+    private int directionBetween(int from, int to) {
+
+        if (to == from - cols)
+            return Grid.UP;
+        if (to == from - 1)
+            return Grid.LEFT;
+        if (to == from + 1)
+            return Grid.RIGHT;
+        return Grid.DOWN;
+
+    }
+
+    // private helper method returning the cell currently holding a tile
+    private int find(int tile) {
+
+        for (int cell = 0; cell < cells; cell++) {
+            if (tiles[cell] == tile)
+                return cell;
+        }
+        throw new IllegalStateException("Tile " + tile + " missing from state");
+
+    }
+
+
+/* **************************************************************************
+ *            * Local Searches *
+ ***************************************************************************/
+
+    /**
+     * Private helper method that moves the blank to a cell through free cells
+     * only, along a shortest route.
+     *
+     * @param target int cell the blank must reach
+     * @return true if the blank reached the target
+     */
+    private boolean moveBlankTo(int target) {
+
+        if (blank == target)
+            return true;
+
+        stamp++;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = blank;
+        visited[blank] = stamp;
+        parent[blank] = -1;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell == target)
+                break;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next < 0 || locked[next] || visited[next] == stamp)
+                    continue;
+                visited[next] = stamp;
+                parent[next] = cell;
+                queue[tail++] = next;
+            }
+        }
+
+        if (visited[target] != stamp)
+            return false;
+
+        // unwind the route, then replay it forward
+        int length = 0;
+        for (int cell = target; parent[cell] != -1; cell = parent[cell])
+            length++;
+        int[] route = new int[length];
+        for (int cell = target, i = length - 1; parent[cell] != -1; cell = parent[cell], i--)
+            route[i] = directionBetween(parent[cell], cell);
+        for (int dir : route)
+            record(dir);
+        return true;
+
+    }
+
+    /**
+     * Private helper method used when the greedy walk is blocked: breadth-first
+     * search over (tile cell, blank cell) pairs within the free cells.
+     *
+     * @param position int current cell of the tile
+     * @param target int cell the tile must reach
+     */
+    private void searchTile(int position, int target) {
+
+        stamp++;
+        int head = 0;
+        int tail = 0;
+        int start = position * cells + blank;
+        queue[tail++] = start;
+        visited[start] = stamp;
+        parent[start] = -1;
+        int found = -1;
+
+        while (head < tail) {
+            int state = queue[head++];
+            int tileCell = state / cells;
+            int blankCell = state % cells;
+            if (tileCell == target) {
+                found = state;
+                break;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(blankCell, dir);
+                if (next < 0 || locked[next])
+                    continue;
+                // the blank swapping with the tile moves the tile
+                int nextTile = next == tileCell ? blankCell : tileCell;
+                int nextState = nextTile * cells + next;
+                if (visited[nextState] == stamp)
+                    continue;
+                visited[nextState] = stamp;
+                parent[nextState] = state;
+                queue[tail++] = nextState;
+            }
+        }
+
+        if (found < 0)
+            throw new IllegalStateException("Reduction could not place tile at cell " + target);
+
+        int length = 0;
+        for (int state = found; parent[state] != -1; state = parent[state])
+            length++;
+        int[] route = new int[length];
+        for (int state = found, i = length - 1; parent[state] != -1; state = parent[state], i--)
+            route[i] = directionBetween(parent[state] % cells, state % cells);
+        for (int dir : route)
+            record(dir);
+
+    }
+
+    /**
+     * Private helper method that finishes the remaining region optimally by
+     * mapping it onto a small Grid of its own.
+     *
+     * @param height int rows left in the region
+     * @param width int columns left in the region
+     */
+    private void solveRegionOptimally(int height, int width) {
+
+        int regionCells = height * width;
+        int[] localGoal = new int[regionCells];
+        int[] localStart = new int[regionCells];
+
+        // local tile id = local goal cell + 1, blank stays 0
+        int[] localId = new int[cells];
+        for (int i = 0; i < regionCells; i++) {
+            int cell = (top + i / width) * cols + left + i % width;
+            localId[goal[cell]] = goal[cell] == 0 ? 0 : i + 1;
+        }
+        for (int i = 0; i < regionCells; i++) {
+            int cell = (top + i / width) * cols + left + i % width;
+            localGoal[i] = localId[goal[cell]];
+            localStart[i] = localId[tiles[cell]];
+        }
+
+        if (Arrays.equals(localStart, localGoal))
+            return;
+
+        Grid local = new Grid(height, width, localGoal);
+        IDASolver solver = new IDASolver(local, localStart);
+        for (int dir : solver.solution())
+            record(dir);
+
+    }
+
+    /**
+     * Private helper method that applies a blank move to the working state
+     * and appends it to the solution.
+     * @param dir int blank move direction
+     */
+    private void record(int dir) {
+
+        blank = grid.move(tiles, blank, dir);
+        if (moves == solution.length)
+            solution = Arrays.copyOf(solution, 2 * moves);
+        solution[moves++] = dir;
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to check whether the goal can be reached at all.
+     * @return true if the start state has the goal's parity
+     */
+    public boolean solvable() {
+
+        return solvable;
+
+    }
+
+    /**
+     * Accessor method used to obtain the solution length.
+     * @return int number of moves, or -1 if unsolvable
+     */
+    public int moves() {
+
+        return solvable ? moves : -1;
+
+    }
+
+    /**
+     * Returns the solution as blank move directions.
+     * @return int[] move directions, or null if unsolvable
+     */
+    public int[] solution() {
+
+        if (!solvable)
+            return null;
+        return Arrays.copyOf(solution, moves);
+
+    }
+
+}
@@ -0,0 +1,295 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class used to shorten a solution found by a fast, suboptimal solver such as
+ * the ReductionSolver. The optimized solution reaches the same final state.
+ * <p>
+ * Three passes are applied, each linear in the solution length:
+ * * cancellation - a move followed by its reverse is removed
+ * * cycles       - every state on the path is hashed; returning to a state
+ * *                seen earlier removes the moves in between
+ * * windows      - each run of window moves only disturbs the tiles inside
+ * *                the bounding box of the blank's path, so that box is solved
+ * *                optimally (IDASolver, bounded by a node limit) from the
+ * *                state before the run to the state after it, and the run is
+ * *                replaced whenever the optimal route is shorter
+ * <p>
+ * The window pass is repeated with the windows shifted by half their length,
+ * so runs that straddle a window boundary get a second chance.
+ */
+public class SolutionOptimizer {
+
+    // default number of moves re-optimized at once
+    private static final int DEFAULT_WINDOW = 16;
+
+    // nodes the IDASolver may spend on a single window
+    private static final long WINDOW_NODE_LIMIT = 50_000L;
+
+    // rounds of (cancel, cycles, windows) before giving up on further gains
+    private static final int MAX_ROUNDS = 4;
+
+    // optimization parameters
+    private final Grid grid;
+    private final int[] start;
+    private final int window;
+
+    // window work space: global tile -> local tile inside the window box
+    private final int[] localTile;
+
+    // results
+    private final int before;
+    private int[] solution;
+
+
+/* **************************************************************************
+ *            * Constructors *
+ ***************************************************************************/
+
+    /**
+     * Optimizes the solution provided with the default window length.
+     * @param grid Grid describing the board geometry
+     * @param start int[] state the solution starts from (left unchanged)
+     * @param moves int[] blank move directions to optimize (left unchanged)
+     */
+    public SolutionOptimizer(Grid grid, int[] start, int[] moves) {
+
+        this(grid, start, moves, DEFAULT_WINDOW);
+
+    }
+
+    /**
+     * Optimizes the solution provided.
+     * @param grid Grid describing the board geometry
+     * @param start int[] state the solution starts from (left unchanged)
+     * @param moves int[] blank move directions to optimize (left unchanged)
+     * @param window int number of moves re-optimized at once
+     * @throws IllegalArgumentException if the moves leave the grid
+     */
+    public SolutionOptimizer(Grid grid, int[] start, int[] moves, int window) {
+
+        if (grid == null || start == null || moves == null)
+            throw new IllegalArgumentException("Grid, start state and moves must be non-null");
+        if (start.length != grid.cells())
+            throw new IllegalArgumentException("State does not match grid dimensions");
+        if (window < 2)
+            throw new IllegalArgumentException("Window must hold at least two moves");
+
+        this.grid = grid;
+        this.start = start.clone();
+        this.window = window;
+        this.localTile = new int[grid.cells()];
+        this.before = moves.length;
+
+        int[] target = grid.apply(start, moves);
+        int[] result = moves.clone();
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            int length = result.length;
+            result = removeCycles(cancelPairs(result));
+            result = optimizeWindows(result, round % 2 == 0 ? 0 : window / 2);
+            result = removeCycles(cancelPairs(result));
+            if (result.length == length)
+                break;
+        }
+
+        // a hash collision could in theory cut a path wrongly, so verify
+        this.solution = Arrays.equals(grid.apply(start, result), target) ? result : moves.clone();
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to obtain the length of the original solution.
+     * @return int number of moves before optimizing
+     */
+    public int before() {
+
+        return before;
+
+    }
+
+    /**
+     * Accessor method used to obtain the length of the optimized solution.
+     * @return int number of moves after optimizing
+     */
+    public int after() {
+
+        return solution.length;
+
+    }
+
+    /**
+     * Accessor method used to obtain the optimized solution.
+     * @return int[] blank move directions
+     */
+    public int[] solution() {
+
+        return solution.clone();
+
+    }
+
+
+/* **************************************************************************
+ *            * Optimization Passes *
+ ***************************************************************************/
+
+    /**
+     * Private helper method that removes every move immediately undone by the
+     * next one. Uses the result as a stack, so nested pairs such as
+     * LEFT UP DOWN RIGHT collapse completely.
+     *
+     * @param moves int[] blank move directions
+     * @return int[] moves without back-and-forth pairs
+     */
+    private int[] cancelPairs(int[] moves) {
+
+        int[] kept = new int[moves.length];
+        int size = 0;
+        for (int dir : moves) {
+            if (size > 0 && kept[size - 1] == Grid.reverse(dir))
+                size--;
+            else
+                kept[size++] = dir;
+        }
+        return Arrays.copyOf(kept, size);
+
+    }
+
+    /**
+     * Private helper method that removes every cycle in the path. The Zobrist
+     * hash of each state on the kept path is indexed by its position; when a
+     * move lands on an indexed state, the path is cut back to that position.
+     *
+     * @param moves int[] blank move directions
+     * @return int[] moves visiting no state twice
+     */
+    private int[] removeCycles(int[] moves) {
+
+        int[] tiles = start.clone();
+        int blank = Grid.blankCell(tiles);
+        long hash = grid.hash(tiles);
+
+        int[] kept = new int[moves.length];
+        long[] hashes = new long[moves.length + 1];
+        Map<Long, Integer> position = new HashMap<>();
+        int size = 0;
+        hashes[0] = hash;
+        position.put(hash, 0);
+
+        for (int dir : moves) {
+            int next = grid.neighbor(blank, dir);
+            hash = grid.hashMove(hash, tiles[next], blank, next);
+            blank = grid.move(tiles, blank, dir);
+
+            Integer seen = position.get(hash);
+            if (seen != null) {
+                // each removed entry was added once, so cutting stays linear overall
+                for (int i = seen + 1; i <= size; i++)
+                    position.remove(hashes[i]);
+                size = seen;
+            } else {
+                kept[size++] = dir;
+                hashes[size] = hash;
+                position.put(hash, size);
+            }
+        }
+        return Arrays.copyOf(kept, size);
+
+    }
+
+    /**
+     * Private helper method that re-optimizes consecutive windows of moves.
+     * @param moves int[] blank move directions
+     * @param offset int length of the first (shorter) window
+     * @return int[] moves with every improvable window replaced
+     */
+    private int[] optimizeWindows(int[] moves, int offset) {
+
+        int[] tiles = start.clone();
+        int[] result = new int[moves.length];
+        int size = 0;
+
+        int from = 0;
+        int to = offset > 0 ? Math.min(offset, moves.length) : Math.min(window, moves.length);
+        while (from < moves.length) {
+            int[] replacement = optimizeWindow(tiles, moves, from, to);
+            System.arraycopy(replacement, 0, result, size, replacement.length);
+            size += replacement.length;
+            from = to;
+            to = Math.min(from + window, moves.length);
+        }
+        return Arrays.copyOf(result, size);
+
+    }
+
+    /**
+     * Private helper method that solves one window optimally. Only the cells
+     * inside the bounding box of the blank's path (plus a border of one cell,
+     * giving the search room to route around) are searched, mapped onto a
+     * small Grid whose goal is the box contents after the window.
+     *
+     * @param tiles int[] state before the window, advanced past it on return
+     * @param moves int[] blank move directions
+     * @param from int first move of the window
+     * @param to int end of the window (exclusive)
+     * @return int[] optimal moves for the window, or the original moves
+     */
+    private int[] optimizeWindow(int[] tiles, int[] moves, int from, int to) {
+
+        int[] original = Arrays.copyOfRange(moves, from, to);
+        int cols = grid.cols();
+
+        // bounding box of the blank's path
+        int blank = Grid.blankCell(tiles);
+        int top = blank / cols, bottom = top, left = blank % cols, right = left;
+        int cell = blank;
+        for (int dir : original) {
+            cell = grid.neighbor(cell, dir);
+            top = Math.min(top, cell / cols);
+            bottom = Math.max(bottom, cell / cols);
+            left = Math.min(left, cell % cols);
+            right = Math.max(right, cell % cols);
+        }
+        top = Math.max(0, top - 1);
+        left = Math.max(0, left - 1);
+        bottom = Math.min(grid.rows() - 1, bottom + 1);
+        right = Math.min(cols - 1, right + 1);
+
+        int boxRows = bottom - top + 1;
+        int boxCols = right - left + 1;
+        int[] localStart = new int[boxRows * boxCols];
+        int next = 1;
+        for (int row = 0; row < boxRows; row++) {
+            for (int col = 0; col < boxCols; col++) {
+                int tile = tiles[(top + row) * cols + left + col];
+                localTile[tile] = tile == 0 ? 0 : next++;
+                localStart[row * boxCols + col] = localTile[tile];
+            }
+        }
+
+        // advance past the window; tiles outside the box never move
+        for (int dir : original)
+            blank = grid.move(tiles, blank, dir);
+
+        if (original.length < 2)
+            return original;
+
+        int[] localGoal = new int[localStart.length];
+        for (int row = 0; row < boxRows; row++) {
+            for (int col = 0; col < boxCols; col++)
+                localGoal[row * boxCols + col] = localTile[tiles[(top + row) * cols + left + col]];
+        }
+
+        IDASolver solver = new IDASolver(new Grid(boxRows, boxCols, localGoal), localStart, WINDOW_NODE_LIMIT);
+        if (solver.solved() && solver.moves() < original.length)
+            return solver.solution();
+        return original;
+
+    }
+
+}
@@ -16,6 +16,9 @@ public class Solver {
     private boolean solvable;
     private Stack<Board> solution;
 
+    // search statistics, null when sampling is disabled
+    private SolverStats stats;
+
     /**
      * Private inner class Node used to implement and optimize the A*
      * search algorithm.
@@ -51,13 +54,27 @@ public class Solver {
         if (initial == null)
             throw new IllegalArgumentException("Initial board provided is null");
 
+        SolverStats.SolveEvent event = new SolverStats.SolveEvent();
+        event.begin();
+        long start = System.nanoTime();
+
         // instantiate and initialize all search parameters
         moves = -1;
         solvable = true;
         solution = new Stack<>();
+        stats = SolverStats.ENABLED ? new SolverStats("A*") : null;
         MinPQ<Node> pq = init(initial);
         MinPQ<Node> pqTwin = init(initial.twin());
 
+        // sampling counters for the main search (the twin search is not counted)
+        long generated = 1;
+        long expanded = 0;
+        long duplicates = 0;
+        long heuristicSum = initial.manhattan();
+        long[] fCounts = new long[0];
+        long searchStart = System.nanoTime();
+        long pathNanos = 0;
+
         // algorithm will break once finished
         while (true) {
             // de-queue the next node
@@ -67,11 +84,14 @@ public class Solver {
 
             // if we are at the goal, break
             if (searchBoard.isGoal()) {
+                long pathStart = System.nanoTime();
                 solvable = true;
                 moves = searchNode.moves;
                 solution = findRoot(searchNode);
+                pathNanos = System.nanoTime() - pathStart;
                 break;
             }
+            expanded++;
 
             // for each neighboring board of the current board
             for (Board nbr : searchBoard.neighbors()) {
@@ -84,8 +104,17 @@ public class Solver {
                     tmp.moves = searchNode.moves + 1;
                     tmp.priority = tmp.moves + nbr.manhattan();
                     pq.insert(tmp);
+                    if (SolverStats.ENABLED) {
+                        generated++;
+                        heuristicSum += tmp.priority - tmp.moves;
+                        fCounts = SolverStats.count(fCounts, tmp.priority);
+                    }
+                } else if (SolverStats.ENABLED) {
+                    duplicates++;
                 }
             }
+            if (SolverStats.ENABLED && (expanded & 1023) == 0)
+                stats.queueSize(pq.size());
 
             // create twin search node and run in parallel to ensure runoff
             // condition when a board is unsolvable
@@ -111,6 +140,70 @@ public class Solver {
                 }
             }
         }
+
+        if (SolverStats.ENABLED) {
+            stats.queueSize(pq.size());
+            stats.initialHeuristic(initial.manhattan());
+            stats.addCounts(generated, expanded, duplicates);
+            stats.addHeuristic(heuristicSum, generated);
+            stats.addHistogram(fCounts);
+            stats.timing(searchStart - start, System.nanoTime() - searchStart - pathNanos, pathNanos);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.solver = "A*";
+            event.rows = initial.rows();
+            event.cols = initial.cols();
+            event.moves = moves;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+
+/* **************************************************************************
+ *            * Constructor (Parallel HDA* Implementation) *
+ ***************************************************************************/
+
+    /**
+     * Finds an optimal solution with hash-distributed A* (see HDASolver),
+     * spreading the search over the given number of worker threads.
+     * Unlike the single-threaded constructor, unsolvable boards are detected
+     * up front from their parity rather than by searching the twin board.
+     *
+     * @param initial initial Board to solve (root)
+     * @param threads number of worker threads
+     */
+    public Solver(Board initial, int threads) {
+
+        if (initial == null)
+            throw new IllegalArgumentException("Initial board provided is null");
+
+        Grid grid = new Grid(initial.rows(), initial.cols());
+        int[] tiles = Grid.tilesOf(initial);
+        HDASolver search = new HDASolver(grid, tiles, threads, Long.MAX_VALUE);
+
+        stats = search.stats();
+        moves = -1;
+        solvable = search.solvable();
+        solution = new Stack<>();
+        if (!search.solved())
+            return;
+
+        // replay the moves, then stack the boards so the root comes out first
+        int[] path = search.solution();
+        Board[] boards = new Board[path.length + 1];
+        int blank = Grid.blankCell(tiles);
+        boards[0] = initial;
+        for (int i = 0; i < path.length; i++) {
+            blank = grid.move(tiles, blank, path[i]);
+            boards[i + 1] = grid.toBoard(tiles);
+        }
+        for (int i = boards.length - 1; i >= 0; i--)
+            solution.push(boards[i]);
+        moves = path.length;
+
     }
 
 
@@ -141,6 +234,18 @@ public class Solver {
         return solution;
     }
 
+    /**
+     * Accessor method used to obtain the search statistics: node counts,
+     * peak queue size, heuristic values, f-value histogram and time split.
+     *
+     * @return SolverStats of the solve, or null if sampling is disabled
+     */
+    public SolverStats stats() {
+
+        return stats;
+
+    }
+
     /**
      * Creates and returns an instance of the Comparator ByPriority.
      * This allows for comparison of two custom inner search nodes.
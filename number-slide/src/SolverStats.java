@@ -0,0 +1,394 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class used to collect the metrics of a single solve: node counts, queue
+ * size, heuristic values, a histogram of f-values and a time split.
+ * <p>
+ * Solvers count into plain per-thread fields on their hot path and flush
+ * those into a SolverStats once per iteration or at the end of the search.
+ * The shared counters are striped LongAdders, so flushes from several worker
+ * threads never contend on a single value.
+ * <p>
+ * Sampling is off by default and turned on with -Dnumberslide.stats=true.
+ * ENABLED is a static final constant, so when it is false the JIT removes the
+ * sampling code from the solvers' hot paths entirely and the solvers report
+ * null statistics: the game, its hints and its prefetching pay nothing.
+ * <p>
+ * Independently of sampling, every solve and every IDA* threshold iteration
+ * emits a JDK Flight Recorder event (see SolveEvent and IterationEvent);
+ * these cost nothing unless a recording is running.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public final class SolverStats {
+
+    // whether solvers sample their search at all
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("numberslide.stats", "false"));
+
+    // name of the solver that produced these statistics
+    private final String solver;
+
+    // node counters
+    private final LongAdder generated;
+    private final LongAdder expanded;
+    private final LongAdder duplicates;
+    private final LongAccumulator maxQueue;
+
+    // heuristic statistics
+    private final LongAdder heuristicSum;
+    private final LongAdder heuristicCount;
+    private int initialHeuristic;
+
+    // f-value histogram, merged under the lock of this object
+    private long[] fHistogram;
+
+    // time split and per-iteration details
+    private long setupNanos;
+    private long searchNanos;
+    private long pathNanos;
+    private final List<long[]> iterations;
+
+
+/* **************************************************************************
+ *            * Constructor *
+ ***************************************************************************/
+
+    /**
+     * Constructor creates an empty set of statistics.
+     * @param solver String name of the solver being measured
+     */
+    public SolverStats(String solver) {
+
+        this.solver = solver;
+        this.generated = new LongAdder();
+        this.expanded = new LongAdder();
+        this.duplicates = new LongAdder();
+        this.maxQueue = new LongAccumulator(Math::max, 0L);
+        this.heuristicSum = new LongAdder();
+        this.heuristicCount = new LongAdder();
+        this.fHistogram = new long[0];
+        this.iterations = new ArrayList<>();
+
+    }
+
+
+/* **************************************************************************
+ *            * Recording Methods (called by solvers) *
+ ***************************************************************************/
+
+    /**
+     * Adds node counts gathered by one thread.
+     * @param generated long states generated
+     * @param expanded long states expanded
+     * @param duplicates long states dropped as already seen
+     */
+    public void addCounts(long generated, long expanded, long duplicates) {
+
+        this.generated.add(generated);
+        this.expanded.add(expanded);
+        this.duplicates.add(duplicates);
+
+    }
+
+    /**
+     * Adds heuristic values gathered by one thread.
+     * @param sum long sum of the heuristic over the states sampled
+     * @param count long number of states sampled
+     */
+    public void addHeuristic(long sum, long count) {
+
+        heuristicSum.add(sum);
+        heuristicCount.add(count);
+
+    }
+
+    /**
+     * Adds an f-value histogram gathered by one thread.
+     * @param counts long[] counts[f] = states sampled with that f-value
+     */
+    public synchronized void addHistogram(long[] counts) {
+
+        if (counts.length > fHistogram.length)
+            fHistogram = Arrays.copyOf(fHistogram, counts.length);
+        for (int f = 0; f < counts.length; f++)
+            fHistogram[f] += counts[f];
+
+    }
+
+    /**
+     * Records a queue size, keeping the largest seen.
+     * @param size long number of states waiting in a queue
+     */
+    public void queueSize(long size) {
+
+        maxQueue.accumulate(size);
+
+    }
+
+    /**
+     * Records the heuristic value of the start state.
+     * @param h int heuristic of the start state
+     */
+    public void initialHeuristic(int h) {
+
+        initialHeuristic = h;
+
+    }
+
+    /**
+     * Records one iteration of an iterative deepening search.
+     * @param threshold int f bound of the iteration
+     * @param nodes long states expanded during the iteration
+     * @param nanos long time spent in the iteration
+     */
+    public synchronized void iteration(int threshold, long nodes, long nanos) {
+
+        iterations.add(new long[]{threshold, nodes, nanos});
+
+    }
+
+    /**
+     * Records how the time of the solve was split.
+     * @param setup long nanoseconds preparing the search
+     * @param search long nanoseconds searching
+     * @param path long nanoseconds rebuilding the solution path
+     */
+    public void timing(long setup, long search, long path) {
+
+        this.setupNanos = setup;
+        this.searchNanos = search;
+        this.pathNanos = path;
+
+    }
+
+    /**
+     * Helper used by solvers to count a sample into a per-thread histogram,
+     * growing it as needed.
+     *
+     * @param counts long[] per-thread histogram
+     * @param f int f-value to count
+     * @return long[] the histogram, possibly reallocated
+     */
+    public static long[] count(long[] counts, int f) {
+
+        if (f >= counts.length)
+            counts = Arrays.copyOf(counts, Math.max(f + 1, 2 * counts.length));
+        counts[f]++;
+        return counts;
+
+    }
+
+
+/* **************************************************************************
+ *            * Accessor Methods *
+ ***************************************************************************/
+
+    /**
+     * Accessor method used to obtain the name of the solver measured.
+     * @return String solver name
+     */
+    public String solver() {
+
+        return solver;
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of states generated.
+     * @return long states generated
+     */
+    public long generated() {
+
+        return generated.sum();
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of states expanded.
+     * @return long states expanded
+     */
+    public long expanded() {
+
+        return expanded.sum();
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of duplicates dropped.
+     * @return long states dropped as already seen
+     */
+    public long duplicates() {
+
+        return duplicates.sum();
+
+    }
+
+    /**
+     * Accessor method used to obtain the largest queue size seen.
+     * @return long peak number of queued states (0 for queue-less solvers)
+     */
+    public long maxQueueSize() {
+
+        return maxQueue.get();
+
+    }
+
+    /**
+     * Accessor method used to obtain the heuristic of the start state.
+     * @return int initial heuristic
+     */
+    public int initialHeuristic() {
+
+        return initialHeuristic;
+
+    }
+
+    /**
+     * Accessor method used to obtain the mean heuristic of sampled states.
+     * @return double mean heuristic, 0 if nothing was sampled
+     */
+    public double meanHeuristic() {
+
+        long count = heuristicCount.sum();
+        return count == 0 ? 0.0 : (double) heuristicSum.sum() / count;
+
+    }
+
+    /**
+     * Accessor method used to obtain the f-value histogram.
+     * @return long[] counts[f] = states sampled with that f-value
+     */
+    public synchronized long[] fHistogram() {
+
+        return fHistogram.clone();
+
+    }
+
+    /**
+     * Accessor method used to obtain the iterations of an iterative deepening
+     * search, each as {threshold, nodes expanded, nanoseconds}.
+     *
+     * @return List of iterations in order
+     */
+    public synchronized List<long[]> iterations() {
+
+        List<long[]> copy = new ArrayList<>();
+        for (long[] iteration : iterations)
+            copy.add(iteration.clone());
+        return copy;
+
+    }
+
+    /**
+     * Accessor method used to obtain the time spent preparing the search.
+     * @return long nanoseconds
+     */
+    public long setupNanos() {
+
+        return setupNanos;
+
+    }
+
+    /**
+     * Accessor method used to obtain the time spent searching.
+     * @return long nanoseconds
+     */
+    public long searchNanos() {
+
+        return searchNanos;
+
+    }
+
+    /**
+     * Accessor method used to obtain the time spent rebuilding the path.
+     * @return long nanoseconds
+     */
+    public long pathNanos() {
+
+        return pathNanos;
+
+    }
+
+    /**
+     * Accessor method used to obtain the expansion rate of the search.
+     * @return double states expanded per second of search time
+     */
+    public double expansionRate() {
+
+        return searchNanos == 0 ? 0.0 : expanded() * 1e9 / searchNanos;
+
+    }
+
+    /**
+     * Returns a one line summary of the statistics.
+     * @return String summary
+     */
+    @Override
+    public String toString() {
+
+        return String.format("%s: %d expanded, %d generated, %d duplicates, peak queue %d, "
+                        + "h0 %d, mean h %.1f, %.0f nodes/s, setup %.1f ms, search %.1f ms, path %.1f ms",
+                solver, expanded(), generated(), duplicates(), maxQueueSize(), initialHeuristic,
+                meanHeuristic(), expansionRate(), setupNanos / 1e6, searchNanos / 1e6, pathNanos / 1e6);
+
+    }
+
+
+/* **************************************************************************
+ *            * Flight Recorder Events *
+ ***************************************************************************/
+
+    /**
+     * Flight Recorder event covering one complete solve.
+     */
+    @Name("numberslide.Solve")
+    @Label("Number Slide Solve")
+    @Category({"Number Slide", "Solver"})
+    @Description("One run of a Number Slide solver")
+    public static class SolveEvent extends Event {
+        @Label("Solver")
+        public String solver;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int cols;
+
+        @Label("Moves")
+        @Description("Solution length, -1 if no solution was found")
+        public int moves;
+
+        @Label("Nodes Expanded")
+        public long expanded;
+    }
+
+    /**
+     * Flight Recorder event covering one threshold iteration of IDA*.
+     */
+    @Name("numberslide.Iteration")
+    @Label("Number Slide Search Iteration")
+    @Category({"Number Slide", "Solver"})
+    @Description("One threshold iteration of an iterative deepening search")
+    public static class IterationEvent extends Event {
+        @Label("Solver")
+        public String solver;
+
+        @Label("Threshold")
+        public int threshold;
+
+        @Label("Nodes Expanded")
+        public long expanded;
+    }
+
+}
@@ -3,6 +3,7 @@
  * (1) - Allows the user to choose the grid size and create a new game
  * (2) - Provides a click-based UI for the user to try to solve the game
  * (3) - Presents a visualization of the solution if the user desires
+ * (4) - Shows the next move of an optimal solution when the user presses 'h'
  */
 public class ThreadNumberGame {
 
@@ -64,12 +65,17 @@ public class ThreadNumberGame {
      * (1) User clicks on new game
      * (2) User clicks on solve
      * (3) User clicks on tile adjacent to empty space
+     * Also listens for the 'h' key, which shows a hint.
      */
     private synchronized void runUI() {
 
         // until the board is in its goal state
         while (!display.isGoal()) {
 
+            // listen for the hint key
+            if (StdDraw.hasNextKeyTyped() && Character.toLowerCase(StdDraw.nextKeyTyped()) == 'h')
+                display.showHint();
+
             if (StdDraw.isMousePressed()) {
                 // mouse click (x,y)-coordinates
                 double x = StdDraw.mouseX();
@@ -28,7 +28,8 @@ public class Tile {
 
     // basic tile info
     private final int val;
-    private final int gridSize;
+    private final int rows;
+    private final int cols;
     private final int goalRow;
     private final int goalCol;
 
@@ -54,12 +55,26 @@ public class Tile {
      */
     public Tile(int val, int gridSize) {
 
+        this(val, gridSize, gridSize);
+
+    }
+
+    /**
+     * Constructor for a tile on a rectangular board.
+     * @param val the numerical value of the tile
+     * @param rows the number of rows of the board containing the tile
+     * @param cols the number of columns of the board containing the tile
+     */
+    public Tile(int val, int rows, int cols) {
+
         this.val = val;
-        this.gridSize = gridSize;
-        this.goalRow = (val - 1) / gridSize;
-        this.goalCol = (val - 1) % gridSize;
+        this.rows = rows;
+        this.cols = cols;
+        this.goalRow = (val - 1) / cols;
+        this.goalCol = (val - 1) % cols;
 
-        // set font size
+        // set font size from the larger side, which sets the tile size
+        int gridSize = Math.max(rows, cols);
          if (gridSize == 3)
              this.numberFont = new Font("Courier", Font.BOLD, 32);
          else if (gridSize == 4)
@@ -90,7 +105,7 @@ public class Tile {
      */
     public Tile copy() {
 
-        return new Tile(this.val, this.gridSize);
+        return new Tile(this.val, this.rows, this.cols);
 
     }
 
@@ -220,7 +235,7 @@ public class Tile {
     private void bottomRightLines() {
 
         // don't draw on bottom or right side
-        if (goalRow == gridSize - 1 || goalCol == gridSize - 1)
+        if (goalRow == rows - 1 || goalCol == cols - 1)
             return;
 
         double x1, y1, x2, y2;
@@ -244,7 +259,7 @@ public class Tile {
     private void rightTopLines() {
 
         // don't draw on right side or top
-        if (goalRow == 0 || goalCol == gridSize - 1)
+        if (goalRow == 0 || goalCol == cols - 1)
             return;
 
         double x1, y1, x2, y2;
@@ -293,7 +308,7 @@ public class Tile {
     private void leftBottomLines() {
 
         // don't draw on left side or bottom
-        if (goalRow == gridSize - 1 || goalCol == 0)
+        if (goalRow == rows - 1 || goalCol == 0)
             return;
 
         double x1, y1, x2, y2;
@@ -0,0 +1,167 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Class implements a fixed-size, lossy transposition table for IDA*.
+ * <p>
+ * Each entry is a single long holding the top bits of a state's Zobrist hash
+ * (the tag), a lower bound on the state's distance to the goal, and the depth
+ * still left to search when the bound was found (a measure of the work the
+ * bound represents). Entries are indexed by the low bits of the hash, and a
+ * lookup whose tag does not match is simply a miss.
+ * <p>
+ * Entries are read and written with opaque VarHandle access: a long is never
+ * torn, so any number of threads may share one table without locks. A lost
+ * update only loses a bound, and every stored bound is admissible, so races
+ * never affect the optimality of a search.
+ * <p>
+ * Bounds only depend on the state and the goal, so a table may be shared by
+ * every solve of the same Grid.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Replacement policy used when two states map to the same entry.
+     */
+    public enum Policy {
+        /** the newest bound always wins */
+        ALWAYS_REPLACE,
+        /** a bound found with less depth left never evicts one found with more */
+        DEPTH_PREFERRED
+    }
+
+    // entry layout: tag (46 bits) | bound (10 bits) | depth (8 bits)
+    private static final int DEPTH_BITS = 8;
+    private static final int BOUND_BITS = 10;
+    private static final int TAG_SHIFT = DEPTH_BITS + BOUND_BITS;
+    private static final int MAX_DEPTH = (1 << DEPTH_BITS) - 1;
+    private static final int MAX_BOUND = (1 << BOUND_BITS) - 1;
+
+    // atomic (non-tearing) access to the entries
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // table contents
+    private final long[] entries;
+    private final int mask;
+    private final Policy policy;
+
+
+/* **************************************************************************
+ *            * Constructor *
+ ***************************************************************************/
+
+    /**
+     * Constructor allocates the largest power-of-two table within the budget.
+     * @param bytes long memory budget for the table
+     * @param policy Policy used on collisions
+     */
+    public TranspositionTable(long bytes, Policy policy) {
+
+        if (bytes < Long.BYTES)
+            throw new IllegalArgumentException("Transposition table needs at least one entry");
+        if (policy == null)
+            throw new IllegalArgumentException("Replacement policy must be non-null");
+
+        int capacity = (int) Long.highestOneBit(Math.min(bytes / Long.BYTES, 1L << 30));
+        this.entries = new long[capacity];
+        this.mask = capacity - 1;
+        this.policy = policy;
+
+    }
+
+
+/* **************************************************************************
+ *            * Table Methods *
+ ***************************************************************************/
+
+    /**
+     * Looks up the stored lower bound of a state.
+     * @param hash long Zobrist hash of the state
+     * @return int stored bound, or 0 if the state is not in the table
+     */
+    public int bound(long hash) {
+
+        long entry = (long) ENTRIES.getOpaque(entries, index(hash));
+        if (entry == 0 || (entry >>> TAG_SHIFT) != tag(hash))
+            return 0;
+        return (int) (entry >>> DEPTH_BITS) & MAX_BOUND;
+
+    }
+
+    /**
+     * Stores a lower bound for a state, subject to the replacement policy.
+     * A bound already stored for the same state is only ever raised.
+     *
+     * @param hash long Zobrist hash of the state
+     * @param bound int admissible lower bound on the distance to the goal
+     * @param depth int depth that was left to search below the state
+     */
+    public void store(long hash, int bound, int depth) {
+
+        int index = index(hash);
+        long tag = tag(hash);
+        long old = (long) ENTRIES.getOpaque(entries, index);
+        if (old != 0) {
+            boolean same = (old >>> TAG_SHIFT) == tag;
+            int oldBound = (int) (old >>> DEPTH_BITS) & MAX_BOUND;
+            int oldDepth = (int) old & MAX_DEPTH;
+            if (same && oldBound >= bound)
+                return;
+            if (!same && policy == Policy.DEPTH_PREFERRED && oldDepth > depth)
+                return;
+            if (same)
+                depth = Math.max(depth, oldDepth);
+        }
+
+        long entry = tag << TAG_SHIFT
+                | (long) Math.min(bound, MAX_BOUND) << DEPTH_BITS
+                | Math.min(Math.max(depth, 0), MAX_DEPTH);
+        ENTRIES.setOpaque(entries, index, entry);
+
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+
+        for (int i = 0; i < entries.length; i++)
+            ENTRIES.setOpaque(entries, i, 0L);
+
+    }
+
+    /**
+     * Accessor method used to obtain the number of entries.
+     * @return int table capacity
+     */
+    public int capacity() {
+
+        return entries.length;
+
+    }
+
+    /**
+     * Accessor method used to obtain the replacement policy.
+     * @return Policy used on collisions
+     */
+    public Policy policy() {
+
+        return policy;
+
+    }
+
+    // private helper method mapping a hash to its entry
+    private int index(long hash) {
+
+        return (int) hash & mask;
+
+    }
+
+    // private helper method returning the bits of a hash kept in its entry
+    private static long tag(long hash) {
+
+        return hash >>> TAG_SHIFT;
+
+    }
+
+}
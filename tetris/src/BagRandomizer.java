@@ -0,0 +1,100 @@
+/**
+ * A BagRandomizer deals pieces from a shuffled bag holding one piece of each
+ * type, refilling and reshuffling it once empty (the "7-bag"). Every type
+ * appears once in each run of seven, so no type is ever more than twelve
+ * pieces away.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class BagRandomizer implements PieceRandomizer {
+
+    private final SplitMix64 random;
+
+    // seed of the sequence, and pieces dealt from it
+    private final long seed;
+    private long count;
+
+    // the current bag, dealt from the front
+    private final int[] bag;
+    private int taken;
+
+    /**
+     * Constructor seeds the sequence.
+     * @param seed long seed of the sequence
+     */
+    public BagRandomizer(long seed) {
+
+        this.random = new SplitMix64(seed);
+        this.seed = seed;
+        this.count = 0;
+        this.bag = new int[TetrisPiece.NUM_OF_TYPES];
+        for (int type = 0; type < bag.length; type++)
+            bag[type] = type;
+        this.taken = bag.length;
+
+    }
+
+    // private constructor used by copy()
+    private BagRandomizer(BagRandomizer other) {
+
+        this.random = other.random.copy();
+        this.seed = other.seed;
+        this.count = other.count;
+        this.bag = other.bag.clone();
+        this.taken = other.taken;
+
+    }
+
+    @Override
+    public int next() {
+
+        count++;
+        if (taken == bag.length) {
+            shuffle();
+            taken = 0;
+        }
+        return bag[taken++];
+
+    }
+
+    @Override
+    public PieceRandomizer copy() {
+
+        return new BagRandomizer(this);
+
+    }
+
+    @Override
+    public int kind() {
+
+        return SEVEN_BAG;
+
+    }
+
+    @Override
+    public long seed() {
+
+        return seed;
+
+    }
+
+    @Override
+    public long dealt() {
+
+        return count;
+
+    }
+
+    // private helper method shuffling the bag in place (Fisher-Yates)
+    private void shuffle() {
+
+        for (int i = bag.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = bag[i];
+            bag[i] = bag[j];
+            bag[j] = swap;
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * A HistoryRandomizer remembers the last four types dealt and redraws, up to
+ * a fixed number of times, any piece matching one of them. Repeats become
+ * rare without making the sequence as predictable as a bag.
+ * <p>
+ * The history starts as {Z, Z, S, S}, and the first piece is never an S, Z
+ * or O, so a game never opens on a piece that forces a hole.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class HistoryRandomizer implements PieceRandomizer {
+
+    // types remembered, and draws made before accepting a repeat
+    private static final int HISTORY_LENGTH = 4;
+    private static final int ROLLS = 4;
+
+    private final SplitMix64 random;
+
+    // seed of the sequence, and pieces dealt from it
+    private final long seed;
+    private long count;
+
+    // last types dealt, as a ring buffer
+    private final int[] history;
+    private int oldest;
+    private boolean first;
+
+    /**
+     * Constructor seeds the sequence.
+     * @param seed long seed of the sequence
+     */
+    public HistoryRandomizer(long seed) {
+
+        this.random = new SplitMix64(seed);
+        this.seed = seed;
+        this.count = 0;
+        int s = TetrisPiece.typeIndex('S');
+        int z = TetrisPiece.typeIndex('Z');
+        this.history = new int[] {z, z, s, s};
+        this.oldest = 0;
+        this.first = true;
+
+    }
+
+    // private constructor used by copy()
+    private HistoryRandomizer(HistoryRandomizer other) {
+
+        this.random = other.random.copy();
+        this.seed = other.seed;
+        this.count = other.count;
+        this.history = other.history.clone();
+        this.oldest = other.oldest;
+        this.first = other.first;
+
+    }
+
+    @Override
+    public int next() {
+
+        count++;
+        int type;
+        if (first) {
+            first = false;
+            int o = TetrisPiece.typeIndex('O');
+            do {
+                type = random.nextInt(TetrisPiece.NUM_OF_TYPES);
+            } while (type == o || inHistory(type));
+        } else {
+            type = random.nextInt(TetrisPiece.NUM_OF_TYPES);
+            for (int roll = 1; roll < ROLLS && inHistory(type); roll++)
+                type = random.nextInt(TetrisPiece.NUM_OF_TYPES);
+        }
+
+        history[oldest] = type;
+        oldest = (oldest + 1) % HISTORY_LENGTH;
+        return type;
+
+    }
+
+    @Override
+    public PieceRandomizer copy() {
+
+        return new HistoryRandomizer(this);
+
+    }
+
+    @Override
+    public int kind() {
+
+        return HISTORY;
+
+    }
+
+    @Override
+    public long seed() {
+
+        return seed;
+
+    }
+
+    @Override
+    public long dealt() {
+
+        return count;
+
+    }
+
+    // private helper method checking whether a type was dealt recently
+    private boolean inHistory(int type) {
+
+        for (int recent : history) {
+            if (recent == type)
+                return true;
+        }
+        return false;
+
+    }
+
+}
@@ -1,9 +1,14 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * The driver for this particular implementation of Tetris.
  * The main method performs the following:
  *  (1) Initialize a new TetrisDisplay
  *  (2) Initialize a new ThreadTetrisGame thread using the display.
  *  (3) Run the thread.
+ * <p>
+ * Usage: Main [replay directory] - games are recorded to the directory if given.
  *
  * @author adamm.hockman@gmail.com
  */
@@ -11,7 +16,7 @@ public class Main {
 
     /**
      * Executes our implementation of Tetris.
-     * @param args String[] standard input args
+     * @param args String[] optional directory to record replays to
      */
     public static void main(String[] args) {
 
@@ -22,10 +27,11 @@ public class Main {
         int DEFAULT_WIDTH = 10;
 
         // create a new tetris display
-        TetrisDisplay display = new TetrisDisplay(DEFAULT_HEIGHT, DEFAULT_WIDTH);
+        TetrisDisplay display = new TetrisDisplay(DEFAULT_HEIGHT, DEFAULT_WIDTH, ThreadTetrisGame.GRAVITY_TICKS);
 
-        // create the primary thread that runs the game
-        ThreadTetrisGame tetrisGame = new ThreadTetrisGame(display);
+        // create the primary thread that runs the game, recording if asked
+        Path replayDirectory = args.length > 0 ? Paths.get(args[0]) : null;
+        ThreadTetrisGame tetrisGame = new ThreadTetrisGame(display, replayDirectory);
 
         // begin the game
         tetrisGame.start();
@@ -0,0 +1,96 @@
+/**
+ * A PieceQueue holds the next few piece types a randomizer will deal, so they
+ * can be previewed (and planned for) before they spawn.
+ * <p>
+ * The queue is a fixed-size ring buffer: taking a piece from the front draws
+ * a new one from the randomizer into the freed slot at the back, so the queue
+ * is always full and nothing is allocated after construction.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class PieceQueue {
+
+    private final PieceRandomizer randomizer;
+
+    // upcoming types; head is the next to be dealt
+    private final int[] types;
+    private int head;
+
+    /**
+     * Constructor fills the queue from the randomizer.
+     * @param randomizer PieceRandomizer dealing the pieces
+     * @param lookahead int number of upcoming pieces held
+     * @throws IllegalArgumentException if randomizer is null or lookahead is not positive
+     */
+    public PieceQueue(PieceRandomizer randomizer, int lookahead) {
+
+        if (randomizer == null)
+            throw new IllegalArgumentException("Must supply non-null randomizer to constructor");
+        if (lookahead < 1)
+            throw new IllegalArgumentException("Lookahead must be at least one piece");
+
+        this.randomizer = randomizer;
+        this.types = new int[lookahead];
+        for (int i = 0; i < lookahead; i++)
+            types[i] = randomizer.next();
+        this.head = 0;
+
+    }
+
+    // private constructor used by copy()
+    private PieceQueue(PieceQueue other) {
+
+        this.randomizer = other.randomizer.copy();
+        this.types = other.types.clone();
+        this.head = other.head;
+
+    }
+
+    /**
+     * Creates an independent queue holding the same upcoming pieces, whose
+     * randomizer deals the same pieces from here on (see PieceRandomizer.copy()).
+     * @return PieceQueue copy of this queue
+     */
+    public PieceQueue copy() {
+
+        return new PieceQueue(this);
+
+    }
+
+    /**
+     * Removes the piece at the front of the queue and draws a new one at the back.
+     * @return int TetrisPiece type index of the piece removed
+     */
+    public int take() {
+
+        int type = types[head];
+        types[head] = randomizer.next();
+        head = (head + 1) % types.length;
+        return type;
+
+    }
+
+    /**
+     * Returns an upcoming piece without removing it.
+     * @param index int between 0 (the next piece) and size() - 1
+     * @return int TetrisPiece type index of the piece
+     */
+    public int peek(int index) {
+
+        if (index < 0 || index >= types.length)
+            throw new IndexOutOfBoundsException("Preview " + index + " of " + types.length);
+        return types[(head + index) % types.length];
+
+    }
+
+    /**
+     * Accessor method used to get the number of upcoming pieces held.
+     * @return int lookahead of the queue
+     */
+    public int size() {
+
+        return types.length;
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * A PieceRandomizer decides the sequence of piece types a game is dealt.
+ * <p>
+ * Every randomizer is seeded: two randomizers of the same kind and seed deal
+ * the same sequence, so a game can be reproduced from its seed and inputs.
+ * Piece types are reported as TetrisPiece type indexes.
+ * * UNIFORM - each piece drawn independently, every type equally likely.
+ * * SEVEN_BAG - every run of seven pieces holds each type once, in random order.
+ * * HISTORY - avoids the last four types dealt, retrying a few draws.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public interface PieceRandomizer {
+
+    // kinds of randomizer, see create()
+    int UNIFORM = 0;
+    int SEVEN_BAG = 1;
+    int HISTORY = 2;
+
+    /**
+     * Deals the next piece type.
+     * @return int TetrisPiece type index
+     */
+    int next();
+
+    /**
+     * Accessor method used to get the kind of randomizer.
+     * @return int one of UNIFORM, SEVEN_BAG, HISTORY
+     */
+    int kind();
+
+    /**
+     * Accessor method used to get the seed of the sequence.
+     * @return long seed the randomizer was created with
+     */
+    long seed();
+
+    /**
+     * Accessor method used to get the number of pieces dealt so far.
+     * @return long calls made to next()
+     */
+    long dealt();
+
+    /**
+     * Creates an independent randomizer at the same point of the same
+     * sequence, by copying the generator's state (see SplitMix64) and any
+     * bag or history: O(1), however many pieces have been dealt.
+     * @return PieceRandomizer that deals the same pieces from here on
+     */
+    PieceRandomizer copy();
+
+    /**
+     * Creates a randomizer of the given kind.
+     * @param kind int one of UNIFORM, SEVEN_BAG, HISTORY
+     * @param seed long seed of the sequence
+     * @return PieceRandomizer dealing the seeded sequence
+     * @throws IllegalArgumentException if the kind is not known
+     */
+    static PieceRandomizer create(int kind, long seed) {
+
+        return switch (kind) {
+            case UNIFORM -> new UniformRandomizer(seed);
+            case SEVEN_BAG -> new BagRandomizer(seed);
+            case HISTORY -> new HistoryRandomizer(seed);
+            default -> throw new IllegalArgumentException("Not a randomizer kind: " + kind);
+        };
+
+    }
+
+}
@@ -0,0 +1,252 @@
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A Player re-simulates a TetrisReplay: a new engine is created as the
+ * recorded one was, and stepped with the recorded input on each tick, which
+ * reproduces the game exactly.
+ * <p>
+ * Every SNAPSHOT_INTERVAL ticks played for the first time, a copy of the
+ * engine is kept. Seeking restores the last snapshot at or before the target
+ * tick (only when that is closer than the current tick) and steps forward
+ * from there, so any tick already passed is at most SNAPSHOT_INTERVAL steps
+ * away, whether seeking back or forward. Copying an engine is O(1) however
+ * long the game (see PieceRandomizer.copy()), so neither taking nor
+ * restoring snapshots grows with the game.
+ * <p>
+ * The client plays a replay file headlessly at full speed (speed 0), timing
+ * the re-simulation and checking the score reached against the recording, or
+ * draws it through a TetrisDisplay at a multiple of the game's own speed.
+ * While drawing, the left and right arrow keys seek back and forward.
+ * <p>
+ * Usage: ReplayPlayer file [speed] [start tick]
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class ReplayPlayer {
+
+    // ticks between snapshots
+    private static final long SNAPSHOT_INTERVAL = 250;
+
+    // ticks skipped by each arrow key press, and the time between presses
+    private static final long SEEK_TICKS = 10_000;
+    private static final int SEEK_KEY_TIME = 200;
+
+    // random seeks timed by the headless client
+    private static final int TIMED_SEEKS = 1_000;
+
+    // ----- Player Specific Fields
+    private final TetrisReplay replay;
+    // snapshot k holds the engine at tick k * SNAPSHOT_INTERVAL
+    private final List<TetrisEngine> snapshots;
+
+    // ----- Dynamic Fields
+    private TetrisEngine engine;
+    // index of the next recorded input to apply
+    private int nextInput;
+
+
+/* ***************************************************************************
+ *    * Constructors
+ ****************************************************************************/
+
+    /**
+     * Constructor prepares the replay for playback from tick 0.
+     * @param replay TetrisReplay to play
+     */
+    public ReplayPlayer(TetrisReplay replay) {
+
+        if (replay == null)
+            throw new IllegalArgumentException("Must supply non-null replay to constructor");
+
+        this.replay = replay;
+        this.engine = replay.newEngine();
+        this.snapshots = new ArrayList<>();
+        snapshots.add(engine.copy());
+        this.nextInput = 0;
+
+    }
+
+
+/* ***************************************************************************
+ *    * Playback
+ ****************************************************************************/
+
+    /**
+     * Plays the next tick with its recorded input.
+     * @return int TetrisEngine event flags of the tick, NONE once finished
+     */
+    public int step() {
+
+        if (isFinished())
+            return TetrisEngine.NONE;
+
+        long tick = engine.tick() + 1;
+        int input = TetrisEngine.NONE;
+        if (nextInput < replay.inputCount() && replay.tickOf(nextInput) == tick)
+            input = replay.inputOf(nextInput++);
+        int events = engine.step(input);
+
+        // keep a snapshot of each interval reached for the first time
+        if (tick % SNAPSHOT_INTERVAL == 0 && tick / SNAPSHOT_INTERVAL == snapshots.size())
+            snapshots.add(engine.copy());
+        return events;
+
+    }
+
+    /**
+     * Moves playback to the given tick, restoring a snapshot if that saves
+     * steps, and stepping forward from there.
+     * @param tick long target tick, clamped between 0 and the last tick recorded
+     */
+    public void seek(long tick) {
+
+        tick = Math.max(0, Math.min(tick, replay.lastTick()));
+
+        int index = (int) Math.min(tick / SNAPSHOT_INTERVAL, snapshots.size() - 1);
+        TetrisEngine snapshot = snapshots.get(index);
+        if (tick < engine.tick() || snapshot.tick() > engine.tick()) {
+            engine = snapshot.copy();
+            nextInput = replay.indexAfter(engine.tick());
+        }
+
+        while (engine.tick() < tick && !isFinished())
+            step();
+
+    }
+
+    /**
+     * Plays every remaining tick.
+     */
+    public void playToEnd() {
+
+        while (!isFinished())
+            step();
+
+    }
+
+
+/* ***************************************************************************
+ *    * Accessor Methods
+ ****************************************************************************/
+
+    /**
+     * Accessor method used to get the engine at the current tick, for drawing.
+     * The engine is replaced when seeking restores a snapshot.
+     * @return TetrisEngine being played
+     */
+    public TetrisEngine engine() {
+
+        return engine;
+
+    }
+
+    /**
+     * Accessor method used to get the current tick of playback.
+     * @return long ticks played
+     */
+    public long tick() {
+
+        return engine.tick();
+
+    }
+
+    /**
+     * Accessor method used to check whether playback has reached the end of
+     * the recording, or the end of the game.
+     * @return true if there is nothing left to play
+     */
+    public boolean isFinished() {
+
+        return engine.isGameOver() || engine.tick() >= replay.lastTick();
+
+    }
+
+
+/* ***************************************************************************
+ *    * Client
+ ****************************************************************************/
+
+    /**
+     * Client plays a replay file as described in the class description.
+     * @param args String[] replay file, optional speed and start tick
+     * @throws IOException if the replay cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayPlayer file [speed] [start tick]");
+            return;
+        }
+
+        TetrisReplay replay = new TetrisReplay(Paths.get(args[0]));
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        long start = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        if (speed <= 0)
+            playHeadless(replay);
+        else
+            playDrawn(replay, speed, start);
+
+    }
+
+    // private helper method timing a full re-simulation, and then random seeks
+    private static void playHeadless(TetrisReplay replay) {
+
+        ReplayPlayer player = new ReplayPlayer(replay);
+        long begin = System.nanoTime();
+        player.playToEnd();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("%d ticks (%d inputs) in %.3f s (%.1f million ticks/s)%n",
+                player.tick(), replay.inputCount(), seconds, player.tick() / seconds / 1e6);
+        System.out.printf("Score %d, recorded %d: %s%n", player.engine().score(), replay.score(),
+                player.engine().score() == replay.score() ? "replay matches" : "REPLAY DIVERGED");
+
+        SplittableRandom random = new SplittableRandom(0);
+        begin = System.nanoTime();
+        for (int i = 0; i < TIMED_SEEKS; i++)
+            player.seek(random.nextLong(replay.lastTick() + 1));
+        seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%d random seeks, %.1f microseconds each%n", TIMED_SEEKS, seconds / TIMED_SEEKS * 1e6);
+
+    }
+
+    // private helper method drawing the replay at a multiple of the game speed until the window closes
+    private static void playDrawn(TetrisReplay replay, double speed, long start) {
+
+        TetrisEngine first = replay.newEngine();
+        TetrisDisplay display = new TetrisDisplay(first.board().height(), first.board().width(), first.gravityTicks());
+        ReplayPlayer player = new ReplayPlayer(replay);
+        player.seek(start);
+
+        // ticks owed to the speed multiplier, played once a whole tick is due
+        double due = 0;
+        long lastSeek = 0;
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (now - lastSeek > SEEK_KEY_TIME) {
+                if (StdDraw.isKeyPressed(KeyEvent.VK_LEFT)) {
+                    player.seek(player.tick() - SEEK_TICKS);
+                    lastSeek = now;
+                } else if (StdDraw.isKeyPressed(KeyEvent.VK_RIGHT)) {
+                    player.seek(player.tick() + SEEK_TICKS);
+                    lastSeek = now;
+                }
+            }
+
+            for (due += speed; due >= 1; due--)
+                player.step();
+
+            display.watch(player.engine());
+            display.refresh();
+            StdDraw.pause(ThreadTetrisGame.TICK_TIME);
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Recorder writes a game to disk as a compact binary replay: everything
+ * needed to re-simulate it with a TetrisEngine, and nothing else. The engine
+ * is deterministic, so the game is fully described by how it was created and
+ * which inputs were held on which ticks.
+ * <p>
+ * File format, every varint being an unsigned LEB128 (7 bits per byte, low
+ * bits first, high bit set on all but the last byte):
+ * * (1) Header - the 4 magic bytes "TRP1", then varints height, width,
+ * *     gravity ticks and randomizer kind, then the seed as 8 bytes (big-endian).
+ * * (2) Inputs - one varint per tick with an input: (ticks since the previous
+ * *     input, or since tick 0) shifted left by INPUT_BITS, or'ed with the
+ * *     input flags. Ticks with no input are not written.
+ * * (3) Trailer - one varint with the same layout and an input of NONE, at the
+ * *     last tick recorded, then the score reached as a varint.
+ * <p>
+ * A held key usually costs a single byte per tick. Records are gathered in a
+ * buffer and written through a FileChannel only when it fills and on close,
+ * so recording adds no I/O to most ticks.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class ReplayRecorder implements AutoCloseable {
+
+    // ----- Format Constants, shared with TetrisReplay
+    static final byte[] MAGIC = {'T', 'R', 'P', '1'};
+    static final int INPUT_BITS = 5;
+
+    // bytes gathered before each write
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // longest varint of a long
+    private static final int MAX_VARINT_BYTES = 10;
+
+    // ----- Recorder Specific Fields
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final TetrisEngine engine;
+
+    // ----- Dynamic Fields
+    private long lastTick;
+    private boolean closed;
+
+
+/* ***************************************************************************
+ *    * Constructors
+ ****************************************************************************/
+
+    /**
+     * Constructor creates (or replaces) the replay file and writes the header
+     * describing the engine. The engine must not have been stepped yet.
+     *
+     * @param file Path of the replay file
+     * @param engine TetrisEngine whose game is recorded
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if the engine has already been stepped
+     */
+    public ReplayRecorder(Path file, TetrisEngine engine) throws IOException {
+
+        if (engine.tick() != 0)
+            throw new IllegalArgumentException("Cannot record a game already in progress");
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.engine = engine;
+        this.lastTick = 0;
+        this.closed = false;
+
+        TetrisBoard board = engine.board();
+        buffer.put(MAGIC);
+        putVarint(board.height());
+        putVarint(board.width());
+        putVarint(engine.gravityTicks());
+        putVarint(engine.randomizerKind());
+        buffer.putLong(engine.seed());
+
+    }
+
+
+/* ***************************************************************************
+ *    * Recording
+ ****************************************************************************/
+
+    /**
+     * Records the input the engine was stepped with on a tick. Ticks with no
+     * input are skipped, so this can be called after every step.
+     *
+     * @param tick long tick the input was applied on (the engine's tick() after the step)
+     * @param input int TetrisEngine input flags
+     * @throws IOException if the buffer fills and cannot be written
+     * @throws IllegalArgumentException if the tick is earlier than one already recorded
+     */
+    public void record(long tick, int input) throws IOException {
+
+        if (input == TetrisEngine.NONE)
+            return;
+        write(tick, input);
+
+    }
+
+    /**
+     * Writes the trailer, with the engine's current tick and score, and closes
+     * the file. Closing again does nothing.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed)
+            return;
+
+        try (channel) {
+            write(Math.max(engine.tick(), lastTick), TetrisEngine.NONE);
+            putVarint(engine.score());
+            flush();
+        } finally {
+            closed = true;
+        }
+
+    }
+
+    // private helper method appending one (tick delta, input) record
+    private void write(long tick, int input) throws IOException {
+
+        if (closed)
+            throw new UnsupportedOperationException("Cannot record to a closed replay");
+        if (tick < lastTick)
+            throw new IllegalArgumentException("Ticks must be recorded in order");
+
+        putVarint((tick - lastTick) << INPUT_BITS | input);
+        lastTick = tick;
+
+    }
+
+    /**
+     * Private helper method that appends an unsigned varint to the buffer,
+     * first writing the buffer out if the varint might not fit.
+     * @param value long value to append, treated as unsigned
+     * @throws IOException if the buffer cannot be written
+     */
+    private void putVarint(long value) throws IOException {
+
+        if (buffer.remaining() < MAX_VARINT_BYTES)
+            flush();
+
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+
+    }
+
+    // private helper method writing out everything buffered
+    private void flush() throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * A SplitMix64 is the generator behind java.util.SplittableRandom, kept to a
+ * single readable long of state so it can be copied in O(1). Seeded the same
+ * way, it deals exactly the same numbers as a SplittableRandom, so the piece
+ * sequences of existing seeds and replays are unchanged.
+ * <p>
+ * Each number is the state, advanced by a fixed odd gamma, through a 64-bit
+ * finalizing mix. Bounded ints are drawn as SplittableRandom draws them:
+ * masked for powers of two, and otherwise by rejection, so every value in
+ * the range is equally likely.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public final class SplitMix64 {
+
+    // the odd increment SplittableRandom uses for a seeded generator
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    /**
+     * Constructor seeds the generator, as new SplittableRandom(seed) would be.
+     * @param seed long seed of the sequence
+     */
+    public SplitMix64(long seed) {
+
+        this.state = seed;
+
+    }
+
+    /**
+     * Creates an independent generator at the same point of the same sequence.
+     * @return SplitMix64 that draws the same numbers from here on
+     */
+    public SplitMix64 copy() {
+
+        return new SplitMix64(state);
+
+    }
+
+    /**
+     * Draws the next 32 random bits.
+     * @return int uniformly distributed over every int value
+     */
+    public int nextInt() {
+
+        long z = state += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+
+    }
+
+    /**
+     * Draws a number between 0 (inclusive) and bound (exclusive).
+     * @param bound int upper bound, positive
+     * @return int uniformly distributed between 0 and bound - 1
+     * @throws IllegalArgumentException if bound is not positive
+     */
+    public int nextInt(int bound) {
+
+        if (bound <= 0)
+            throw new IllegalArgumentException("Bound must be positive");
+
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0)
+            return r & m;
+
+        // reject the top of the range, where the values would wrap unevenly
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1)
+            ;
+        return r;
+
+    }
+
+}
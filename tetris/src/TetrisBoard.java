@@ -1,11 +1,20 @@
-import java.awt.Color;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 
 /**
- * A Board is conceptualized as a boolean grid where true indicates the
- * location is occupied. We also have an active piece, stored separately.
+ * A Board is conceptualized as a grid of occupied and vacant squares, stored
+ * as a bitboard: one int per row, where bit c is set when column c of that
+ * row is occupied. We also have an active piece, stored separately.
+ * <p>
+ * Testing a square is a single AND, a full row is a single compare against
+ * a mask of width ones, and clearing a row moves whole rows at once.
+ * The color of each occupied square is kept alongside as one byte per square
+ * (0 for vacant squares).
+ * <p>
+ * The board holds the rules only: it has no drawing code and no AWT or
+ * StdDraw dependency, so it can be simulated headlessly (see TetrisEngine).
+ * TetrisRenderer draws it.
  * <p>
  * We map between coordinate entries, and coordinates themselves by noting
  * ** entry = row * boardWidth + col
@@ -19,28 +28,15 @@ import java.util.Random;
 public class TetrisBoard {
 
     // ----- Static Fields
-    // default values represent an optimized view in TetrisDisplay
-    private static final int DEFAULT_HEIGHT = 20;
-    private static final int DEFAULT_WIDTH = 10;
     private static final int MIN_HEIGHT = 6;
     private static final int MIN_WIDTH = 6;
-    private static final double DEFAULT_ASP_RATIO = ((double) DEFAULT_HEIGHT) / DEFAULT_WIDTH;
-    private static final double SQUARE_OUTLINE_RADIUS = 0.0005;
-    private static final Color SQUARE_OUTLINE_COLOR = Color.BLACK;
-    private static final Color GRID_LINES_COLOR = Color.LIGHT_GRAY;
+    private static final int MAX_WIDTH = Integer.SIZE;
 
-    // define color space for pieces
-    private static final Color AZURE_WHITE = new Color(219, 233, 244);
-    private static final Color MIDNIGHT = new Color(46, 60, 99);
-    private static final Color NAVY = new Color(0, 0, 128);
-    private static final Color BABY_BLUE = new Color(137, 207, 240);
-    private static final Color SLATE = new Color(112, 128, 144);
-    private static final Color FOREST = new Color(74, 103, 65);
-    private static final Color LEAF = new Color(52, 194, 48);
+    // points for clearing 1, 2, 3 or 4 lines at once (single, double, triple, tetris)
+    private static final int[] LINE_SCORES = {0, 100, 300, 500, 800};
 
-    // declare the libraries of piece types and colors
-    private static final char[] PIECE_TYPE_LIBRARY = {'O', 'I', 'S', 'Z', 'L', 'J', 'T'};
-    private static final Color[] COLOR_LIBRARY = {AZURE_WHITE, MIDNIGHT, NAVY, BABY_BLUE, SLATE, FOREST, LEAF};
+    // upcoming pieces held in the queue by default
+    private static final int DEFAULT_LOOKAHEAD = 5;
 
 
     // ----- Board Specific Fields
@@ -48,10 +44,14 @@ public class TetrisBoard {
     private final int height;
     private final int width;
 
-    // boolean array to indicate which squares are occupied and which are vacant
-    private final boolean[][] grid;
-    // Color array to indicate the color of each grid square
-    private final Color[][] gridColors;
+    // one bitmask per row, bit c set if column c is occupied
+    private final int[] grid;
+    // mask of a full row, one bit per column
+    private final int fullRow;
+    // color of each grid square (entry = row * width + col), as color index + 1
+    private final byte[] gridColors;
+    // skyline: rows from the bottom up to the highest occupied square of each column
+    private final int[] columnHeights;
 
 
     // ----- Dynamic Fields
@@ -59,15 +59,20 @@ public class TetrisBoard {
     private TetrisPiece activePiece;
     private TetrisPiece nextPiece;
 
-    // user score
+    // upcoming piece types, the first of which is the next piece
+    private final PieceQueue queue;
+
+    // user score, and the lines cleared to earn it
+    private int points;
     private int linesCleared;
 
-    // drawing parameters
-    private double xMin;
-    private double xMax;
-    private double yMin;
-    private double yMax;
-    private double gridSquareSize;
+    // rows of the last piece stored, the only rows that can become full
+    private int lockTop;
+    private int lockBottom;
+
+    // result of the last line clear: count, and rows cleared (top to bottom)
+    private int lastClearCount;
+    private final int[] clearedRows;
 
 
 /* ***************************************************************************
@@ -76,6 +81,7 @@ public class TetrisBoard {
 
     /**
      * Constructor initializes a new TetrisBoard with provided width and height.
+     * Pieces are dealt uniformly at random from an unpredictable seed.
      * <p>
      * The activePiece is initially set to null. Once a piece is generated,
      * it can never again be null.
@@ -85,60 +91,84 @@ public class TetrisBoard {
      */
     public TetrisBoard(int height, int width) {
 
-        // check for minimum dimensions
-        if (height < MIN_HEIGHT || width < MIN_WIDTH)
+        this(height, width, PieceRandomizer.create(PieceRandomizer.UNIFORM, new SplittableRandom().nextLong()),
+                DEFAULT_LOOKAHEAD);
+
+    }
+
+    /**
+     * Constructor initializes a new TetrisBoard whose pieces are dealt by the
+     * randomizer provided. Boards given randomizers of the same kind and seed
+     * deal the same pieces, so the same moves replay the same game.
+     *
+     * @param height int number of rows
+     * @param width int number of cols
+     * @param randomizer PieceRandomizer dealing the pieces
+     * @param lookahead int number of upcoming pieces that can be previewed
+     */
+    public TetrisBoard(int height, int width, PieceRandomizer randomizer, int lookahead) {
+
+        // check for minimum dimensions, and that a row fits in an int
+        if (height < MIN_HEIGHT || width < MIN_WIDTH || width > MAX_WIDTH)
             throw new IllegalArgumentException("Cannot create a board using dimensions provided.");
 
         // assign the received parameters
         this.width = width;
         this.height = height;
 
-        // initialize remaining fields
-        this.grid = new boolean[height][width];
-        for (boolean[] arr : grid)
-            Arrays.fill(arr, false);
-
-        this.gridColors = new Color[height][width];
-        for (Color[] arr : gridColors)
-            Arrays.fill(arr, null);
+        // initialize remaining fields, every square vacant
+        this.grid = new int[height];
+        this.fullRow = (int) ((1L << width) - 1);
+        this.gridColors = new byte[height * width];
+        this.columnHeights = new int[width];
 
         // initialize score to 0
+        this.points = 0;
         this.linesCleared = 0;
+        this.lockTop = 0;
+        this.lockBottom = -1;
+        this.clearedRows = new int[LINE_SCORES.length - 1];
 
         // null until we generate a piece
         this.activePiece = null;
 
-        // initialize the next piece to be generated
-        queueNextPiece();
+        // initialize the queue, and the next piece to be generated
+        this.queue = new PieceQueue(randomizer, lookahead);
+        char nextType = TetrisPiece.pieceType(queue.peek(0));
+        this.nextPiece = new TetrisPiece(nextType, queue.peek(0), height, width);
+
+    }
+
+    // private constructor used by copy()
+    private TetrisBoard(TetrisBoard other) {
+
+        this.height = other.height;
+        this.width = other.width;
+        this.grid = other.grid.clone();
+        this.fullRow = other.fullRow;
+        this.gridColors = other.gridColors.clone();
+        this.columnHeights = other.columnHeights.clone();
+        this.points = other.points;
+        this.linesCleared = other.linesCleared;
+        this.lockTop = other.lockTop;
+        this.lockBottom = other.lockBottom;
+        this.lastClearCount = other.lastClearCount;
+        this.clearedRows = other.clearedRows.clone();
+        this.activePiece = other.activePiece == null ? null : other.activePiece.copy();
+        this.nextPiece = other.nextPiece.copy();
+        this.queue = other.queue.copy();
 
     }
 
     /**
-     * Public method used to set draw parameters. Values represent the location
-     * of the board within the ambient game display visual console.
-     *
-     * @param xMin double location of left side of board
-     * @param yMin double location of bottom of board
-     * @param xMax double location of right side of board
-     * @param yMax double location of top of board
-     */
-    public void setScale(double xMin, double yMin, double xMax, double yMax) {
-
-        this.xMin = xMin;
-        this.xMax = xMax;
-        this.yMin = yMin;
-        this.yMax = yMax;
-
-        // calculate grid size based on aspect ratio
-        double aspRatio = ((double) height) / width;
-
-        if (aspRatio < DEFAULT_ASP_RATIO) {
-            gridSquareSize = (xMax - xMin) / width;
-            this.yMax = aspRatio * (xMax - xMin) + yMin;
-        } else {
-            gridSquareSize = (yMax - yMin) / height;
-            this.xMax = (1 / aspRatio) * (yMax - yMin) + xMin;
-        }
+     * Creates an independent board in the same state: the same squares,
+     * pieces, score and upcoming pieces. Used to snapshot a game (see
+     * ReplayPlayer); moves made on either board do not affect the other.
+     * @return TetrisBoard copy of this board
+     */
+    public synchronized TetrisBoard copy() {
+
+        return new TetrisBoard(this);
 
     }
 
@@ -148,215 +178,161 @@ public class TetrisBoard {
  ****************************************************************************/
 
     /**
-     * Accessor method used to get current score.
-     * @return int total lines cleared
+     * Accessor method used to get current score. Each clear scores by the
+     * number of lines cleared at once (see LINE_SCORES), so a tetris is worth
+     * twice as much as four singles.
+     * @return int total points
      */
     public int score() {
 
-        return linesCleared;
+        return points;
 
     }
 
     /**
-     * Accessor method used to get the next piece in queue. Used for drawing.
-     * @return TetrisPiece next piece to become active piece
+     * Accessor method used to get the number of lines cleared so far.
+     * @return int total lines cleared
      */
-    public TetrisPiece getNextPiece() {
+    public int linesCleared() {
 
-        return nextPiece;
+        return linesCleared;
 
     }
 
-
-/* ***************************************************************************
- *    * Draw Methods
- ****************************************************************************/
-
     /**
-     * Draws the current board configuration to Standard Draw.
-     * Covers the display area defined by the setScale() initialization.
+     * Accessor method used to get the number of lines cleared by the last
+     * piece stored: 1 to 4 for a single, double, triple or tetris.
+     * @return int lines cleared, 0 if none
      */
-    public void draw() {
+    public int lastClearCount() {
 
-        // draw board grid lines
-        drawGameGrid();
-        // draw occupied grid squares
-        drawBoard();
-        // draw the current active piece
-        drawActivePiece();
+        return lastClearCount;
 
     }
 
     /**
-     * Private method used to draw faint grid lines that delineate grid squares.
-     * Note this draws the "inner" grid lines only.
+     * Accessor method used to get a row cleared by the last piece stored,
+     * as it was numbered before the clear.
+     * @param index int between 0 and lastClearCount() - 1, top row first
+     * @return int row that was cleared
      */
-    private synchronized void drawGameGrid() {
-
-        // draw the ambient grid lines in light grey
-        StdDraw.setPenColor(GRID_LINES_COLOR);
-        StdDraw.setPenRadius(0.001);
-
-        // draw the horizontal grid lines
-        for (int row = 1; row < height; row++) {
-            double y = yMax - row * gridSquareSize;
-            StdDraw.line(xMin, y, xMax, y);
-        }
+    public int lastClearedRow(int index) {
 
-        // draw the vertical grid lines
-        for (int col = 1; col < width; col++) {
-            double x = xMin + col * gridSquareSize;
-            StdDraw.line(x, yMin, x, yMax);
-        }
+        if (index < 0 || index >= lastClearCount)
+            throw new IndexOutOfBoundsException("Cleared row " + index + " of " + lastClearCount);
+        return clearedRows[index];
 
     }
 
     /**
-     * Private auxiliary method used to display the currently stored pieces
-     * in the board.
-     * Note this does not include the active piece, since its coordinates are
-     * not stored in grid[][] until the next piece is generated.
+     * Accessor method used to get the next piece in queue. Used for drawing.
+     * @return TetrisPiece next piece to become active piece
      */
-    private void drawBoard() {
+    public TetrisPiece getNextPiece() {
+
+        return nextPiece;
 
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if (grid[row][col]) {
-                    drawPieceSquare(row, col);
-                }
-            }
-        }
     }
 
     /**
-     * Private auxiliary method used to display the current active piece.
+     * Accessor method used to preview an upcoming piece type.
+     * @param index int between 0 (the next piece) and lookahead() - 1
+     * @return char type of the upcoming piece
      */
-    private void drawActivePiece() {
+    public char previewType(int index) {
 
-        if (activePiece == null)
-            return;
-
-        int[] pieceCoordinates = activePiece.getCoordinates();
-        for (int coordinate : pieceCoordinates) {
-            int cRow = coordinate / width;
-            int cCol = coordinate % width;
-            drawPieceSquare(cRow, cCol);
-        }
+        return TetrisPiece.pieceType(queue.peek(index));
 
     }
 
     /**
-     * Private helper method used to draw a single piece square at a given row and
-     * column position
-     * Method uses class variables to determine position, size, and appearance.
-     * @param row int row of the square to be drawn
-     * @param col int column of the square to be drawn
+     * Accessor method used to get the number of upcoming pieces that can be previewed.
+     * @return int lookahead of the piece queue
      */
-    private synchronized void drawPieceSquare(int row, int col) {
-
-        // get square half-length / center offset
-        double squareCenter = 0.5 * gridSquareSize;
-
-        // get center x and y (flip y since origin is at bottom left)
-        double x = xMin + squareCenter + col * gridSquareSize;
-        double y = yMax - squareCenter - row * gridSquareSize;
-
-        // get square color
-        Color squareColor;
-        if (gridColors[row][col] == null)
-            squareColor = activePiece.getPieceColor();
-        else
-            squareColor = gridColors[row][col];
+    public int lookahead() {
 
-        // fill interior of square with squareColor
-        StdDraw.setPenColor(squareColor);
-        StdDraw.filledSquare(x, y, squareCenter);
-
-        // lightly outline each square in black
-        StdDraw.setPenColor(SQUARE_OUTLINE_COLOR);
-        StdDraw.setPenRadius(SQUARE_OUTLINE_RADIUS);
-        StdDraw.square(x, y, squareCenter);
+        return queue.size();
 
     }
 
+    /**
+     * Accessor method used to get the active piece, which receives all
+     * movement commands. Used for drawing.
+     * @return TetrisPiece active piece, null until the first piece is generated
+     */
+    public TetrisPiece getActivePiece() {
 
-/* ***************************************************************************
- *    * Animate Methods
- ****************************************************************************/
+        return activePiece;
 
-    // ----------- JAVADOC ----------- //
+    }
 
-    public void draw(double a) {
+    /**
+     * Accessor method used to get the number of rows.
+     * @return int board height
+     */
+    public int height() {
 
-        drawGameGrid();
-        drawBoard(a);
-        drawActivePiece(a);
+        return height;
 
     }
 
-    private void drawBoard(double a) {
+    /**
+     * Accessor method used to get the number of columns.
+     * @return int board width
+     */
+    public int width() {
+
+        return width;
 
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if (grid[row][col]) {
-                    drawPieceSquare(row, col, a);
-                }
-            }
-        }
     }
 
-    private void drawActivePiece(double a) {
+    /**
+     * Accessor method used to get the color a stored square was given.
+     * @param row int row of the square
+     * @param col int column of the square
+     * @return int color index of the square, -1 if it is vacant
+     */
+    public int colorAt(int row, int col) {
 
-        if (activePiece == null)
-            return;
-
-        int[] pieceCoordinates = activePiece.getCoordinates();
-        for (int i = 0; i < pieceCoordinates.length; i++) {
-            int coordinate = pieceCoordinates[i];
-            int cRow = coordinate / width;
-            int cCol = coordinate % width;
-            drawPieceSquare(cRow, cCol, a);
-        }
+        return gridColors[row * width + col] - 1;
 
     }
 
-    private synchronized void drawPieceSquare(int row, int col, double a) {
-
-        // DEBUG
-        // System.out.println("Printing square at row = " + row + " and col = " + col);
+    /**
+     * Accessor method used to read a row of the bitboard, so the board can be
+     * copied and searched without going through its pieces (see TetrisBot).
+     * @param row int row to read
+     * @return int bitmask with bit c set if column c is occupied
+     */
+    public int rowBits(int row) {
 
-        // get square half-length
-        double squareCenter = 0.5 * gridSquareSize;
+        return grid[row];
 
-        double x = xMin + squareCenter + col * gridSquareSize;
-        // flip y since origin is at bottom left
-        double y = yMax - squareCenter - row * gridSquareSize;
+    }
 
-        Color squareColor;
-        if (gridColors[row][col] == null)
-            squareColor = activePiece.getPieceColor();
-        else
-            squareColor = gridColors[row][col];
+    /**
+     * Accessor method used to check whether a row holds no stored squares.
+     * @param row int row to check
+     * @return true if every square of the row is vacant
+     */
+    public boolean isRowEmpty(int row) {
 
-        // fill interior of square with squareColor
-        int alpha = (int) (a * 255);
-        squareColor = new Color(squareColor.getRed(), squareColor.getGreen(), squareColor.getBlue(), alpha);
-        StdDraw.setPenColor(squareColor);
-        StdDraw.filledSquare(x, y, squareCenter);
+        return grid[row] == 0;
 
-        // lightly outline each square in black
-        int bAlpha = (int) (0.60 * 255);
-        Color aBlack = new Color(0, 0, 0, bAlpha);
+    }
 
-        StdDraw.setPenColor(aBlack);
-        StdDraw.setPenRadius(0.0005);
-        StdDraw.square(x, y, squareCenter);
+    /**
+     * Accessor method used to get the height of a column: the number of rows
+     * from the bottom of the board up to its highest occupied square.
+     * @param col int column between 0 and width - 1
+     * @return int column height, 0 if the column is vacant
+     */
+    public int columnHeight(int col) {
 
+        return columnHeights[col];
 
     }
 
-    // ----------- JAVADOC ----------- //
-
 
 /* ***************************************************************************
  *    * Boolean Methods
@@ -377,17 +353,67 @@ public class TetrisBoard {
         if (piece.getBoardHeight() != height || piece.getBoardWidth() != width)
             throw new UnsupportedOperationException("Piece and Board have different dimensions");
 
-        int[] pieceCoordinates = piece.getCoordinates();
-        for (int coordinate : pieceCoordinates) {
-            int cRow = coordinate / width;
-            int cCol = coordinate % width;
-            if (grid[cRow][cCol])
+        return overlaps(piece.getTypeIndex(), piece.getRotation(), piece.getRow(), piece.getCol());
+    }
+
+    /**
+     * Public method checks whether a piece could be placed at the given
+     * rotation and origin: within the board, and clear of every stored square.
+     * Neither the piece nor the board is changed, so any candidate position
+     * can be tested without creating a trial piece.
+     *
+     * @param piece TetrisPiece with same board dimensions
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the piece origin
+     * @param col int board column of the piece origin
+     * @return true if the piece fits at that position
+     */
+    public boolean canPlace(TetrisPiece piece, int rotation, int row, int col) {
+
+        return piece.inBounds(rotation, row, col) && !overlaps(piece.getTypeIndex(), rotation, row, col);
+
+    }
+
+    /**
+     * Private helper method that tests a piece position against the stored
+     * squares: one AND per row of the piece's rotation box, using the
+     * precomputed row masks. The position must lie within the board.
+     *
+     * @param type int piece type index
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the piece origin
+     * @param col int board column of the piece origin
+     * @return true if any square of the piece is occupied
+     */
+    private boolean overlaps(int type, int rotation, int row, int col) {
+
+        for (int boxRow = 0; boxRow < TetrisPiece.boxSize(type); boxRow++) {
+            int mask = TetrisPiece.rowMask(type, rotation, boxRow);
+            if (mask == 0)
+                continue;
+            // the origin may lie left of the board when the box's left columns are empty
+            int rowMask = col >= 0 ? mask << col : mask >>> -col;
+            if ((grid[row + boxRow] & rowMask) != 0)
                 return true;
         }
 
         return false;
     }
 
+    /**
+     * Public method checks whether a single square of the board is occupied
+     * by a stored piece. The active piece is not included.
+     *
+     * @param row int row of the square
+     * @param col int column of the square
+     * @return true if the square is occupied
+     */
+    public boolean isOccupied(int row, int col) {
+
+        return (grid[row] & (1 << col)) != 0;
+
+    }
+
     /**
      * Private helper method called by the clearLines() method.
      * Checks whether a given row is full (i.e. no unoccupied squares).
@@ -397,16 +423,8 @@ public class TetrisBoard {
      */
     private boolean isRowFull(int row) {
 
-        boolean fullRow = true;
-        int col = 0;
+        return grid[row] == fullRow;
 
-        while (fullRow && col < width) {
-            if (!grid[row][col])
-                fullRow = false;
-            col++;
-        }
-
-        return fullRow;
     }
 
 
@@ -437,9 +455,12 @@ public class TetrisBoard {
             return false;
 
         // update the active piece to the new piece
+        queue.take();
+        TetrisPiece spent = activePiece;
         activePiece = nextPiece;
 
-        // queue the next piece
+        // queue the next piece, reusing the spent piece
+        nextPiece = spent;
         queueNextPiece();
 
         return true;
@@ -447,23 +468,21 @@ public class TetrisBoard {
     }
 
     /**
-     * Private method used to randomly generate a new piece and update the
-     * piece in queue.
+     * Private method used to update the piece in queue to the next type the
+     * randomizer dealt. Each piece type has its own color. The previous
+     * active piece is respawned as the next piece, so generating pieces
+     * allocates nothing once two pieces exist.
      */
     private void queueNextPiece() {
 
-        Random random = new Random();
-
-        // get random piece type
-        int pieceTypeIndex = random.nextInt(PIECE_TYPE_LIBRARY.length);
-        char nextPieceType = PIECE_TYPE_LIBRARY[pieceTypeIndex];
-
-        // get random piece color
-        int pieceColorIndex = random.nextInt(COLOR_LIBRARY.length);
-        Color pieceColor = COLOR_LIBRARY[pieceColorIndex];
+        int nextTypeIndex = queue.peek(0);
+        char nextPieceType = TetrisPiece.pieceType(nextTypeIndex);
 
         // update reference
-        this.nextPiece = new TetrisPiece(nextPieceType, pieceColor, height, width);
+        if (nextPiece == null)
+            nextPiece = new TetrisPiece(nextPieceType, nextTypeIndex, height, width);
+        else
+            nextPiece.spawn(nextPieceType, nextTypeIndex);
 
     }
 
@@ -486,63 +505,83 @@ public class TetrisBoard {
             throw new UnsupportedOperationException("Cannot store active piece, currently null.");
 
         // map coordinates to grid locations and update
+        byte colorCode = (byte) (activePiece.getColorIndex() + 1);
         int[] activePieceCoordinates = activePiece.getCoordinates();
         for (int i = 0; i < activePieceCoordinates.length; i++) {
             int entryVal = activePieceCoordinates[i];
             int entryRow = entryVal / width;
             int entryCol = entryVal % width;
-            grid[entryRow][entryCol] = true;
-            gridColors[entryRow][entryCol] = activePiece.getPieceColor();
+            grid[entryRow] |= 1 << entryCol;
+            gridColors[entryVal] = colorCode;
+            columnHeights[entryCol] = Math.max(columnHeights[entryCol], height - entryRow);
+            if (i == 0 || entryRow < lockTop)
+                lockTop = entryRow;
+            if (i == 0 || entryRow > lockBottom)
+                lockBottom = entryRow;
         }
 
     }
 
     /**
-     * A private method used to check if there are any rows with every entry
-     * occupied. When this happens, clear the row, and shift all entries
-     * above the deleted row down.
+     * A private method used to clear every full row in a single pass, shifting
+     * the rows above them down, and to score the clear.
+     * <p>
+     * Only the rows of the piece just stored can have become full, so only
+     * they are tested. The rows between two cleared rows then form blocks that
+     * each move down by the number of cleared rows beneath them: one array
+     * copy per block (at most five), working up from the bottom, after which
+     * the rows left vacant at the top are emptied. The count and rows cleared
+     * remain available from lastClearCount() and lastClearedRow().
+     *
+     * @return int number of lines cleared
      */
-    private void clearLines() {
+    private int clearLines() {
 
-        // check each row, beginning at the bottom, stopping at 2 from the top
-        // note it is impossible to have full lines at the top 2 rows
-        int row = height - 1;
+        // find the full rows among those of the stored piece, top to bottom
+        int cleared = 0;
+        for (int row = lockTop; row <= lockBottom; row++) {
+            if (isRowFull(row))
+                clearedRows[cleared++] = row;
+        }
+        lastClearCount = cleared;
+        lockTop = 0;
+        lockBottom = -1;
+        if (cleared == 0)
+            return 0;
+
+        // move each block of rows above a cleared row down past the cleared rows below it
+        for (int i = cleared - 1; i >= 0; i--) {
+            int blockStart = i == 0 ? 0 : clearedRows[i - 1] + 1;
+            int blockRows = clearedRows[i] - blockStart;
+            int shift = cleared - i;
+            System.arraycopy(grid, blockStart, grid, blockStart + shift, blockRows);
+            System.arraycopy(gridColors, blockStart * width, gridColors, (blockStart + shift) * width, blockRows * width);
+        }
 
-        while (row > 1) {
-            // if row is full, shift all entries down and check row again
-            // increase score as well
-            if (isRowFull(row)) {
-                linesCleared++;
-                shiftRowsDown(row);
-            }
-            else {
-                row--;
-            }
+        // the top rows are now vacant
+        Arrays.fill(grid, 0, cleared, 0);
+        Arrays.fill(gridColors, 0, cleared * width, (byte) 0);
 
-        }
+        linesCleared += cleared;
+        points += LINE_SCORES[cleared];
+        lowerSkyline(cleared);
+        return cleared;
     }
 
     /**
-     * Sets the entries in the given row to false, and shifts all entries
-     * above down by one row.
-     * @param row int row to start at, then descend
+     * Private helper method that updates the skyline after lines are cleared.
+     * Every cleared row was full, so each column top lay in or above them and
+     * drops by the number of rows cleared. Only a column whose top square was
+     * itself cleared needs to look further down, past any holes, for its new top.
+     * @param cleared int number of rows removed
      */
-    private void shiftRowsDown(int row) {
-
-        // set all entries in row to false
-        for (int i = 0; i < width; i++) {
-            grid[row][i] = false;
-            gridColors[row][i] = null;
-        }
+    private void lowerSkyline(int cleared) {
 
-        // shift all other entries down (visually)
-        // note that means shifting up in our representation
-        for (int shiftRow = row; shiftRow > 1; shiftRow--) {
-            for (int shiftCol = 0; shiftCol < width; shiftCol++) {
-                // place entries from (shiftRow - 1) into (shiftRow)
-                grid[shiftRow][shiftCol] = grid[shiftRow - 1][shiftCol];
-                gridColors[shiftRow][shiftCol] = gridColors[shiftRow - 1][shiftCol];
-            }
+        for (int col = 0; col < width; col++) {
+            int columnHeight = Math.max(columnHeights[col] - cleared, 0);
+            while (columnHeight > 0 && !isOccupied(height - columnHeight, col))
+                columnHeight--;
+            columnHeights[col] = columnHeight;
         }
 
     }
@@ -600,49 +639,155 @@ public class TetrisBoard {
 
     }
 
+    /**
+     * Public method used to drop the active piece straight down as far as it
+     * can go (a hard drop). The piece is not stored until the next piece is
+     * generated, so it can still slide along the surface it landed on.
+     * @return int number of rows the piece fell
+     */
+    public synchronized int hardDrop() {
+
+        if (activePiece == null)
+            throw new UnsupportedOperationException("Cannot move a null piece.");
+
+        int distance = dropDistance();
+        if (distance > 0)
+            activePiece.place(activePiece.getRotation(), activePiece.getRow() + distance, activePiece.getCol());
+        return distance;
+
+    }
+
+    /**
+     * Public method used to get the row the active piece would land at if
+     * dropped: the origin row of its ghost piece.
+     * @return int board row of the landed piece's origin
+     */
+    public int ghostRow() {
+
+        if (activePiece == null)
+            throw new UnsupportedOperationException("Cannot find ghost of a null piece.");
+
+        return activePiece.getRow() + dropDistance();
+
+    }
+
+    /**
+     * Public method used to get the number of rows the active piece can fall.
+     * @return int rows the active piece can move down
+     */
+    public int dropDistance() {
+
+        return dropDistance(activePiece, activePiece.getRotation(), activePiece.getRow(), activePiece.getCol());
+
+    }
+
+    /**
+     * Public method used to get the number of rows a piece could fall from a
+     * given position, which must itself be free (see canPlace()).
+     * <p>
+     * Each column of the piece lands when its lowest square reaches the top of
+     * that board column, so the distance is the smallest gap between the
+     * piece's bottom profile and the column skyline: O(piece width), whatever
+     * the height of the board. The skyline only describes the surface, so a
+     * piece already below the top of one of its columns (tucked under an
+     * overhang) is instead stepped down one row at a time.
+     *
+     * @param piece TetrisPiece with same board dimensions
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the piece origin
+     * @param col int board column of the piece origin
+     * @return int rows the piece can move down from that position
+     */
+    public int dropDistance(TetrisPiece piece, int rotation, int row, int col) {
+
+        int type = piece.getTypeIndex();
+        int distance = height;
+        for (int boxCol = 0; boxCol < TetrisPiece.boxSize(type); boxCol++) {
+            int bottom = TetrisPiece.bottomRow(type, rotation, boxCol);
+            if (bottom < 0)
+                continue;
+            // first occupied row of the column (height if vacant), less the piece's lowest row
+            int gap = (height - columnHeights[col + boxCol]) - (row + bottom) - 1;
+            distance = Math.min(distance, gap);
+        }
+
+        if (distance >= 0)
+            return distance;
+
+        // below the skyline: step down until blocked
+        distance = 0;
+        while (canPlace(piece, rotation, row + distance + 1, col))
+            distance++;
+        return distance;
+
+    }
+
     /**
      * This general purpose private method attempts to apply the appropriate
-     * motion to the active piece, returning false if the move causes any
-     * collisions.
-     * Note that boundary crossing is checked by the piece itself.
+     * motion to the active piece, returning false if the move would leave
+     * the board or cause any collisions.
      * <p>
      * General Idea:
-     * * (1) Create a copy of the piece
-     * * (2) Apply the movement to the copy piece
-     * * (3) Check the copy piece for collisions
-     * * (4) If no collisions, update activePiece
+     * * (1) Compute the rotation and origin the movement leads to
+     * * (2) Check that position with canPlace()
+     * * (3) If it fits, update the active piece in place
+     * <p>
+     * A rotation is retried with each kick of the piece's kick table (see
+     * TetrisPiece) until one fits, so pieces rotate next to walls, the floor,
+     * and stored squares instead of being refused.
+     * No objects are created, so any number of moves can be made per frame.
      *
      * @param movement char describing the type of movement to perform
      * @return true if successful, false if piece cannot move in such a way
      */
     private synchronized boolean moveActivePiece(char movement) {
 
-        // 1 - create a copy of the piece;
-        TetrisPiece trialPiece = activePiece.copy();
-
-        // 2 - do the corresponding movement to the piece (if piece itself
-        // returns true as well)
-        boolean pieceMoved = switch (movement) {
-            case 'L' -> trialPiece.left();
-            case 'D' -> trialPiece.down();
-            case 'R' -> trialPiece.right();
-            case 'F' -> trialPiece.rotate();
+        int rotation = activePiece.getRotation();
+        int row = activePiece.getRow();
+        int col = activePiece.getCol();
+
+        // 1 - compute the new position
+        switch (movement) {
+            case 'L' -> col--;
+            case 'D' -> row++;
+            case 'R' -> col++;
+            case 'F' -> {
+                return rotateActivePiece();
+            }
             default -> throw new IllegalArgumentException("Not a valid movement type: " + movement);
-        };
-        // we don't need to check for collisions if the piece didn't move
-        if (!pieceMoved)
-            return false;
+        }
 
-        // 3 - now check for collisions with the current board and the trial piece
-        if (collisions(trialPiece))
+        // 2 - check the new position against the board
+        if (!canPlace(activePiece, rotation, row, col))
             return false;
 
-        // if board.collisions is false - reassign the active piece
-        activePiece = trialPiece;
+        // 3 - move the active piece
+        activePiece.place(rotation, row, col);
         return true;
 
     }
 
+    /**
+     * Private helper method that rotates the active piece using the first
+     * kick that leaves it within the board and free of collisions.
+     * @return true if successful, false if no kick fits
+     */
+    private boolean rotateActivePiece() {
+
+        int type = activePiece.getTypeIndex();
+        int rotation = TetrisPiece.nextRotation(activePiece.getRotation());
+        for (int kick = 0; kick < TetrisPiece.kickCount(type); kick++) {
+            int row = activePiece.getRow() + TetrisPiece.kickRow(type, kick);
+            int col = activePiece.getCol() + TetrisPiece.kickCol(type, kick);
+            if (canPlace(activePiece, rotation, row, col)) {
+                activePiece.place(rotation, row, col);
+                return true;
+            }
+        }
+        return false;
+
+    }
+
 
 /* ***************************************************************************
  *    * Debug Methods
@@ -663,7 +808,7 @@ public class TetrisBoard {
         for (int i = 0; i < height; i++) {
             boardString += "| ";
             for (int j = 0; j < width; j++) {
-                if (grid[i][j] || containsPiece(i,j))
+                if (isOccupied(i, j) || containsPiece(i,j))
                     boardString += "0 ";
                 else
                     boardString += "- ";
@@ -0,0 +1,525 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A Bot plays Tetris through the same inputs as a player, choosing where each
+ * piece should go by searching every placement it can reach.
+ * <p>
+ * A placement is a rotation state and column the active piece can reach from
+ * where it is, by rotating (with the same kicks the board uses) and then
+ * sliding left or right, followed by a hard drop. Each placement is stored on
+ * a copy of the bitboard, full rows are cleared, and the result is scored as
+ * a weighted sum of features:
+ * * AGGREGATE_HEIGHT - the sum of the column heights.
+ * * LINES - the number of lines the placement clears.
+ * * HOLES - vacant squares with an occupied square somewhere above them.
+ * * BUMPINESS - the sum of the height differences of neighbouring columns.
+ * * WELLS - the depth of each column below both of its neighbours (or walls).
+ * <p>
+ * With lookahead, every placement of the next piece is also tried on each
+ * result, and a placement is scored by the best position it leaves for the
+ * next piece. The candidates are scored in parallel on a fork-join pool,
+ * each subtask working on its own copies of the grid; with no pool they are
+ * scored on the calling thread.
+ * <p>
+ * nextInput() turns the chosen placement into TetrisEngine inputs, one per
+ * tick: rotate until the target rotation is reached, move to the target
+ * column, then drop. A move that fails is not retried, and the piece is
+ * dropped where it is.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisBot {
+
+    // ----- Features, indexes into the weights
+    public static final int AGGREGATE_HEIGHT = 0;
+    public static final int LINES = 1;
+    public static final int HOLES = 2;
+    public static final int BUMPINESS = 3;
+    public static final int WELLS = 4;
+    public static final int NUM_OF_FEATURES = 5;
+
+    // hand-tuned weights, in feature order
+    private static final double[] DEFAULT_WEIGHTS = {-0.51, 0.76, -0.36, -0.18, -0.10};
+
+    // candidates scored by each fork-join subtask
+    private static final int LEAF_SIZE = 4;
+
+    // ----- Bot Specific Fields
+    private final double[] weights;
+    private final boolean lookahead;
+    private final ForkJoinPool pool;
+
+    // ----- Dynamic Fields
+    // placement chosen for the active piece, and the piece it was chosen for
+    private int targetRotation;
+    private int targetCol;
+    private int targetRow;
+    private int plannedPiece;
+
+    // last input given, and the piece's rotation and column before it
+    private int lastInput;
+    private int lastRotation;
+    private int lastCol;
+
+    // placements scored so far, including those of the next piece
+    private long placementsEvaluated;
+
+
+/* ***************************************************************************
+ *    * Constructors
+ ****************************************************************************/
+
+    /**
+     * Constructor creates a bot with the default weights, looking ahead to the
+     * next piece and scoring on the common fork-join pool.
+     */
+    public TetrisBot() {
+
+        this(DEFAULT_WEIGHTS, true, ForkJoinPool.commonPool());
+
+    }
+
+    /**
+     * Constructor creates a bot with the given weights.
+     *
+     * @param weights double[] one weight per feature, in feature order
+     * @param lookahead boolean true to also search placements of the next piece
+     * @param pool ForkJoinPool to score candidates on, or null to score them on the calling thread
+     * @throws IllegalArgumentException if there is not one weight per feature
+     */
+    public TetrisBot(double[] weights, boolean lookahead, ForkJoinPool pool) {
+
+        if (weights == null || weights.length != NUM_OF_FEATURES)
+            throw new IllegalArgumentException("Must supply one weight per feature");
+
+        this.weights = weights.clone();
+        this.lookahead = lookahead;
+        this.pool = pool;
+        this.plannedPiece = -1;
+        this.lastInput = TetrisEngine.NONE;
+
+    }
+
+    /**
+     * Returns a copy of the default weights, in feature order.
+     * @return double[] default weights
+     */
+    public static double[] defaultWeights() {
+
+        return DEFAULT_WEIGHTS.clone();
+
+    }
+
+
+/* ***************************************************************************
+ *    * Playing
+ ****************************************************************************/
+
+    /**
+     * Chooses the input for the engine's next tick. A new placement is
+     * searched for each time a new piece becomes active.
+     * @param engine TetrisEngine being played
+     * @return int bit flags of the input to step the engine with
+     */
+    public int nextInput(TetrisEngine engine) {
+
+        if (engine.isGameOver())
+            return TetrisEngine.NONE;
+
+        TetrisPiece piece = engine.board().getActivePiece();
+        if (engine.piecesLocked() != plannedPiece) {
+            plan(engine.board());
+            plannedPiece = engine.piecesLocked();
+            lastInput = TetrisEngine.NONE;
+        }
+
+        int rotation = piece.getRotation();
+        int col = piece.getCol();
+        int input;
+        if (rotation != targetRotation && !failed(TetrisEngine.ROTATE, rotation, col))
+            input = TetrisEngine.ROTATE;
+        else if (col < targetCol && !failed(TetrisEngine.RIGHT, rotation, col))
+            input = TetrisEngine.RIGHT;
+        else if (col > targetCol && !failed(TetrisEngine.LEFT, rotation, col))
+            input = TetrisEngine.LEFT;
+        else
+            input = TetrisEngine.DROP;
+
+        lastInput = input;
+        lastRotation = rotation;
+        lastCol = col;
+        return input;
+
+    }
+
+    // private helper method checking whether the last input was this one, and left the piece where it was
+    private boolean failed(int input, int rotation, int col) {
+
+        return lastInput == input && lastRotation == rotation && lastCol == col;
+
+    }
+
+    /**
+     * Searches the placements of the board's active piece and keeps the best
+     * as the target of nextInput().
+     * @param board TetrisBoard with an active piece
+     * @return double score of the best placement
+     */
+    public double plan(TetrisBoard board) {
+
+        TetrisPiece piece = board.getActivePiece();
+        if (piece == null)
+            throw new UnsupportedOperationException("Cannot plan for a null piece.");
+
+        int height = board.height();
+        int width = board.width();
+        int[] grid = new int[height];
+        for (int row = 0; row < height; row++)
+            grid[row] = board.rowBits(row);
+
+        // every reachable placement, as (rotation, row, col) triples
+        int type = piece.getTypeIndex();
+        int[] candidates = new int[3 * maxPlacements(width)];
+        int count = enumerate(grid, width, type, piece.getRotation(), piece.getRow(), piece.getCol(), candidates);
+
+        TetrisPiece next = board.getNextPiece();
+        Evaluation evaluation = new Evaluation(grid, width, type, candidates, new double[count], 0, count,
+                next.getTypeIndex(), next.getRotation(), next.getRow(), next.getCol());
+        placementsEvaluated += pool == null ? evaluation.compute() : pool.invoke(evaluation);
+
+        // keep the first of the best, so ties go to the fewest moves
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (evaluation.scores[i] > evaluation.scores[best])
+                best = i;
+        }
+        targetRotation = candidates[3 * best];
+        targetRow = candidates[3 * best + 1];
+        targetCol = candidates[3 * best + 2];
+        return evaluation.scores[best];
+
+    }
+
+
+/* ***************************************************************************
+ *    * Accessor Methods
+ ****************************************************************************/
+
+    /**
+     * Accessor method used to get the rotation state of the planned placement.
+     * @return int rotation between 0 and 3
+     */
+    public int targetRotation() {
+
+        return targetRotation;
+
+    }
+
+    /**
+     * Accessor method used to get the origin row of the planned placement.
+     * @return int board row the piece lands at
+     */
+    public int targetRow() {
+
+        return targetRow;
+
+    }
+
+    /**
+     * Accessor method used to get the origin column of the planned placement.
+     * @return int board column
+     */
+    public int targetCol() {
+
+        return targetCol;
+
+    }
+
+    /**
+     * Accessor method used to get the number of placements scored so far.
+     * @return long placements scored, including those of the next piece
+     */
+    public long placementsEvaluated() {
+
+        return placementsEvaluated;
+
+    }
+
+
+/* ***************************************************************************
+ *    * Search
+ ****************************************************************************/
+
+    /**
+     * A fork-join task that scores a range of candidate placements, splitting
+     * the range in half until it holds no more than LEAF_SIZE candidates (or
+     * not at all without a pool). Returns the number of placements scored.
+     */
+    private final class Evaluation extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] grid;
+        private final int width;
+        private final int type;
+        private final int[] candidates;
+        private final double[] scores;
+        private final int from;
+        private final int to;
+
+        // the next piece, at its spawn position
+        private final int nextType;
+        private final int nextRotation;
+        private final int nextRow;
+        private final int nextCol;
+
+        private Evaluation(int[] grid, int width, int type, int[] candidates, double[] scores, int from, int to,
+                           int nextType, int nextRotation, int nextRow, int nextCol) {
+
+            this.grid = grid;
+            this.width = width;
+            this.type = type;
+            this.candidates = candidates;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+            this.nextType = nextType;
+            this.nextRotation = nextRotation;
+            this.nextRow = nextRow;
+            this.nextCol = nextCol;
+
+        }
+
+        @Override
+        protected Long compute() {
+
+            if (pool != null && to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                Evaluation left = new Evaluation(grid, width, type, candidates, scores, from, mid,
+                        nextType, nextRotation, nextRow, nextCol);
+                Evaluation right = new Evaluation(grid, width, type, candidates, scores, mid, to,
+                        nextType, nextRotation, nextRow, nextCol);
+                left.fork();
+                long evaluated = right.compute();
+                return evaluated + left.join();
+            }
+
+            // scratch grids and buffers of this subtask
+            int[] placed = new int[grid.length];
+            int[] placedNext = new int[grid.length];
+            int[] heights = new int[width];
+            int[] nextCandidates = new int[3 * maxPlacements(width)];
+
+            long evaluated = 0;
+            for (int i = from; i < to; i++) {
+                System.arraycopy(grid, 0, placed, 0, grid.length);
+                int lines = place(placed, width, type, candidates[3 * i], candidates[3 * i + 1], candidates[3 * i + 2]);
+                evaluated++;
+
+                if (!lookahead) {
+                    scores[i] = evaluate(placed, width, lines, heights);
+                    continue;
+                }
+
+                // the next piece cannot spawn: this placement loses the game
+                if (!fits(placed, width, nextType, nextRotation, nextRow, nextCol)) {
+                    scores[i] = Double.NEGATIVE_INFINITY;
+                    continue;
+                }
+
+                int count = enumerate(placed, width, nextType, nextRotation, nextRow, nextCol, nextCandidates);
+                double best = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < count; j++) {
+                    System.arraycopy(placed, 0, placedNext, 0, placed.length);
+                    int nextLines = place(placedNext, width, nextType,
+                            nextCandidates[3 * j], nextCandidates[3 * j + 1], nextCandidates[3 * j + 2]);
+                    best = Math.max(best, evaluate(placedNext, width, lines + nextLines, heights));
+                }
+                scores[i] = best;
+                evaluated += count;
+            }
+            return evaluated;
+
+        }
+
+    }
+
+    /**
+     * Private helper method that lists every placement reachable from a
+     * position: for each rotation state, reached by rotating with kicks as
+     * the board does, the piece slides as far left and right as it can, and
+     * each column it passes is dropped to where it lands.
+     *
+     * @param grid int[] bitboard rows
+     * @param width int cols of the board
+     * @param type int piece type index
+     * @param rotation int rotation state of the starting position
+     * @param row int origin row of the starting position
+     * @param col int origin column of the starting position, which must be free
+     * @param placements int[] filled with (rotation, landed row, col) triples
+     * @return int number of placements found
+     */
+    private static int enumerate(int[] grid, int width, int type, int rotation, int row, int col, int[] placements) {
+
+        int count = 0;
+        for (int turn = 0; turn < TetrisPiece.rotationCount(type); turn++) {
+            count = addLanding(grid, width, type, rotation, row, col, placements, count);
+            for (int left = col - 1; fits(grid, width, type, rotation, row, left); left--)
+                count = addLanding(grid, width, type, rotation, row, left, placements, count);
+            for (int right = col + 1; fits(grid, width, type, rotation, row, right); right++)
+                count = addLanding(grid, width, type, rotation, row, right, placements, count);
+
+            // rotate once more, taking the first kick that fits
+            int next = TetrisPiece.nextRotation(rotation);
+            boolean rotated = false;
+            for (int kick = 0; kick < TetrisPiece.kickCount(type) && !rotated; kick++) {
+                int kickRow = row + TetrisPiece.kickRow(type, kick);
+                int kickCol = col + TetrisPiece.kickCol(type, kick);
+                if (fits(grid, width, type, next, kickRow, kickCol)) {
+                    rotation = next;
+                    row = kickRow;
+                    col = kickCol;
+                    rotated = true;
+                }
+            }
+            if (!rotated)
+                break;
+        }
+        return count;
+
+    }
+
+    // private helper method dropping a free position to where it lands, and adding it to the placements
+    private static int addLanding(int[] grid, int width, int type, int rotation, int row, int col, int[] placements, int count) {
+
+        while (fits(grid, width, type, rotation, row + 1, col))
+            row++;
+        placements[3 * count] = rotation;
+        placements[3 * count + 1] = row;
+        placements[3 * count + 2] = col;
+        return count + 1;
+
+    }
+
+    // private helper method returning the most placements a piece can have on a board of this width
+    private static int maxPlacements(int width) {
+
+        return 4 * (width + 2);
+
+    }
+
+    /**
+     * Private helper method checking whether a piece position is within the
+     * board and clear of the grid's squares, as TetrisBoard.canPlace() does.
+     *
+     * @param grid int[] bitboard rows
+     * @param width int cols of the board
+     * @param type int piece type index
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the piece origin
+     * @param col int board column of the piece origin
+     * @return true if the piece fits at that position
+     */
+    private static boolean fits(int[] grid, int width, int type, int rotation, int row, int col) {
+
+        if (!TetrisPiece.inBounds(type, rotation, row, col, grid.length, width))
+            return false;
+
+        for (int boxRow = 0; boxRow < TetrisPiece.boxSize(type); boxRow++) {
+            int mask = TetrisPiece.rowMask(type, rotation, boxRow);
+            if (mask == 0)
+                continue;
+            int rowMask = col >= 0 ? mask << col : mask >>> -col;
+            if ((grid[row + boxRow] & rowMask) != 0)
+                return false;
+        }
+        return true;
+
+    }
+
+    /**
+     * Private helper method that stores a piece in the grid and removes the
+     * full rows, moving the rows above them down.
+     *
+     * @param grid int[] bitboard rows, changed in place
+     * @param width int cols of the board
+     * @param type int piece type index
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the piece origin
+     * @param col int board column of the piece origin
+     * @return int number of lines cleared
+     */
+    private static int place(int[] grid, int width, int type, int rotation, int row, int col) {
+
+        for (int boxRow = 0; boxRow < TetrisPiece.boxSize(type); boxRow++) {
+            int mask = TetrisPiece.rowMask(type, rotation, boxRow);
+            if (mask != 0)
+                grid[row + boxRow] |= col >= 0 ? mask << col : mask >>> -col;
+        }
+
+        // copy the rows that are not full down over those that are, from the bottom up
+        int fullRow = (int) ((1L << width) - 1);
+        int target = grid.length - 1;
+        for (int source = grid.length - 1; source >= 0; source--) {
+            if (grid[source] != fullRow)
+                grid[target--] = grid[source];
+        }
+        int cleared = target + 1;
+        for (int r = 0; r < cleared; r++)
+            grid[r] = 0;
+        return cleared;
+
+    }
+
+    /**
+     * Private helper method that scores a grid as the weighted sum of its
+     * features. Column heights and holes are found in one pass from the top:
+     * a column's height is set by the first row it is occupied in, and every
+     * vacant square of an already occupied column is a hole.
+     *
+     * @param grid int[] bitboard rows
+     * @param width int cols of the board
+     * @param lines int lines cleared to reach the grid
+     * @param heights int[] scratch array of width entries
+     * @return double score of the grid, higher is better
+     */
+    private double evaluate(int[] grid, int width, int lines, int[] heights) {
+
+        int height = grid.length;
+        int seen = 0;
+        int holes = 0;
+        for (int col = 0; col < width; col++)
+            heights[col] = 0;
+
+        for (int row = 0; row < height; row++) {
+            int bits = grid[row];
+            holes += Integer.bitCount(seen & ~bits);
+            for (int fresh = bits & ~seen; fresh != 0; fresh &= fresh - 1)
+                heights[Integer.numberOfTrailingZeros(fresh)] = height - row;
+            seen |= bits;
+        }
+
+        int aggregateHeight = 0;
+        int bumpiness = 0;
+        int wells = 0;
+        for (int col = 0; col < width; col++) {
+            aggregateHeight += heights[col];
+            if (col > 0)
+                bumpiness += Math.abs(heights[col] - heights[col - 1]);
+            int left = col == 0 ? height : heights[col - 1];
+            int right = col == width - 1 ? height : heights[col + 1];
+            int depth = Math.min(left, right) - heights[col];
+            if (depth > 0)
+                wells += depth;
+        }
+
+        return weights[AGGREGATE_HEIGHT] * aggregateHeight
+                + weights[LINES] * lines
+                + weights[HOLES] * holes
+                + weights[BUMPINESS] * bumpiness
+                + weights[WELLS] * wells;
+
+    }
+
+}
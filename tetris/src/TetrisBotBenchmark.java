@@ -0,0 +1,87 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class used to measure how fast and how well TetrisBot plays: placements
+ * scored per second, and the lines and score of its games.
+ * <p>
+ * Each game is played through a seeded TetrisEngine with the bot choosing
+ * every input, and ends at game over or after a fixed number of pieces, since
+ * a good bot rarely tops out. The bot scores its candidates on a fork-join pool
+ * with one worker per core. A first pass warms up the JIT.
+ * <p>
+ * Usage: TetrisBotBenchmark [games] [max pieces] [lookahead (0 or 1)] [seed]
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisBotBenchmark {
+
+    // board dimensions and gravity, as in TetrisHeadless
+    private static final int HEIGHT = 20;
+    private static final int WIDTH = 10;
+    private static final int GRAVITY_TICKS = 4;
+
+    /**
+     * Client runs the benchmark described in the class description.
+     * @param args String[] optional number of games, piece limit, lookahead and seed
+     */
+    public static void main(String[] args) {
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        boolean lookahead = args.length <= 2 || Integer.parseInt(args[2]) != 0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        ForkJoinPool pool = new ForkJoinPool();
+
+        // warm-up pass, results discarded
+        play(pool, Math.max(1, games / 4), maxPieces, lookahead, seed);
+
+        long start = System.nanoTime();
+        long[] totals = play(pool, games, maxPieces, lookahead, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int cores = pool.getParallelism();
+        pool.shutdown();
+
+        System.out.printf("%d games in %.2f s on %d core(s), lookahead %s%n", games, seconds, cores, lookahead);
+        System.out.printf("%d placements scored (%.0f per second, %.0f per second per core)%n",
+                totals[0], totals[0] / seconds, totals[0] / seconds / cores);
+        System.out.printf("%d pieces, %d lines cleared, average score %.1f, %d games topped out%n",
+                totals[1], totals[2], (double) totals[3] / games, totals[4]);
+
+    }
+
+    /**
+     * Plays the given number of bot games.
+     * @param pool ForkJoinPool the bot scores placements on
+     * @param games int games to play
+     * @param maxPieces int pieces after which a game is stopped
+     * @param lookahead boolean true if the bot searches the next piece too
+     * @param seed long seed of the first game's pieces
+     * @return long[] placements scored, and total pieces, lines, score and games lost
+     */
+    private static long[] play(ForkJoinPool pool, int games, int maxPieces, boolean lookahead, long seed) {
+
+        long placements = 0;
+        long pieces = 0;
+        long lines = 0;
+        long score = 0;
+        long lost = 0;
+
+        for (int game = 0; game < games; game++) {
+            TetrisEngine engine = new TetrisEngine(HEIGHT, WIDTH, GRAVITY_TICKS, PieceRandomizer.SEVEN_BAG, seed + game);
+            TetrisBot bot = new TetrisBot(TetrisBot.defaultWeights(), lookahead, pool);
+            while (!engine.isGameOver() && engine.piecesLocked() < maxPieces)
+                engine.step(bot.nextInput(engine));
+
+            placements += bot.placementsEvaluated();
+            pieces += engine.piecesLocked();
+            lines += engine.board().linesCleared();
+            score += engine.score();
+            if (engine.isGameOver())
+                lost++;
+        }
+        return new long[] {placements, pieces, lines, score, lost};
+
+    }
+
+}
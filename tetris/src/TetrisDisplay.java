@@ -1,16 +1,24 @@
 import java.awt.Color;
 import java.awt.Font;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A Display is conceptualized as a background display (an image), as well as
  * various components sitting on top that are dynamically generated / refreshed.
  * * (1) Background Image - contains the background picture as well as various
  * *     cosmetic in-lays and menu icons.
- * * (2) Board - the TetrisBoard itself. Can be called to draw after setting
- * *     certain display/canvas parameters.
+ * * (2) Board - the TetrisBoard of the current TetrisEngine, drawn by a
+ * *     TetrisRenderer after setting certain display/canvas parameters.
  * * (3) Next Piece - The next TetrisPiece to be generated. Shown within a small
  * *     ambient grid and a text label above.
- * * (4) Score - Dynamic text label showing the total lines cleared so far.
+ * * (4) Score - Dynamic text label showing the points scored so far.
+ * <p>
+ * The display also collects keyboard input for the engine: input() may be
+ * called from any thread, and the inputs are applied together by the next
+ * step() of the game thread. While recording, the inputs of each step are
+ * also written to a replay (see ReplayRecorder).
  *
  * @author adamm.hockman@gmail.com
  */
@@ -80,9 +88,17 @@ public class TetrisDisplay {
     private static final double quitGameMenuSize = 1.0 / 5.0;
 
     // ----- Display Specific Fields
-    private TetrisBoard board;
+    private TetrisEngine engine;
+    private final TetrisRenderer renderer;
     private final int boardHeight;
     private final int boardWidth;
+    private final int gravityTicks;
+
+    // inputs received since the last step, as TetrisEngine input flags
+    private final AtomicInteger pendingInput;
+
+    // replay of the current game, null when not recording
+    private ReplayRecorder recorder;
 
 
 /* ***************************************************************************
@@ -95,11 +111,18 @@ public class TetrisDisplay {
      *
      * @param boardHeight int board total rows
      * @param boardWidth int board total columns
+     * @param gravityTicks int engine ticks between each row a piece falls
      */
-    public TetrisDisplay(int boardHeight, int boardWidth) {
+    public TetrisDisplay(int boardHeight, int boardWidth, int gravityTicks) {
 
         this.boardHeight = boardHeight;
         this.boardWidth = boardWidth;
+        this.gravityTicks = gravityTicks;
+        this.pendingInput = new AtomicInteger(TetrisEngine.NONE);
+
+        // set board draw parameters
+        this.renderer = new TetrisRenderer(boardHeight, boardWidth);
+        renderer.setScale(boardFrameXMin, boardFrameYMin, boardFrameXMax, boardFrameYMax);
 
         // create a new game
         createNewGame();
@@ -114,19 +137,14 @@ public class TetrisDisplay {
 
     /**
      * Private helper method used to create a new Tetris game.
-     * We overwrite the Tetris board reference with a new board instance.
+     * We overwrite the Tetris engine reference with a new engine instance.
      * This method is called initially and then to play again after game over.
      */
     public void createNewGame() {
 
-        // create a new TetrisBoard
-        this.board = new TetrisBoard(boardHeight, boardWidth);
-
-        // set board draw parameters
-        board.setScale(boardFrameXMin, boardFrameYMin, boardFrameXMax, boardFrameYMax);
-
-        // generate initial piece
-        board.generatePiece();
+        // create a new engine, which generates the initial piece
+        this.engine = new TetrisEngine(boardHeight, boardWidth, gravityTicks);
+        pendingInput.set(TetrisEngine.NONE);
 
     }
 
@@ -145,7 +163,7 @@ public class TetrisDisplay {
 
         // draw everything with opacity set to global constant
         drawAdornments(NEW_GAME_OPACITY);
-        board.draw(NEW_GAME_OPACITY);
+        renderer.draw(engine.board(), NEW_GAME_OPACITY);
         drawPieceFrame(NEW_GAME_OPACITY);
         drawScoreFrame(NEW_GAME_OPACITY);
 
@@ -162,11 +180,11 @@ public class TetrisDisplay {
 
     /**
      * Accessor method used to extract the current score.
-     * @return int total lines cleared
+     * @return int total points
      */
     public int getScore() {
 
-        return board.score();
+        return engine.score();
 
     }
 
@@ -191,7 +209,7 @@ public class TetrisDisplay {
         drawAdornments(1.0);
 
         // draw the board frame
-        board.draw(1.0);
+        renderer.draw(engine.board(), 1.0);
 
         // draw next piece frame
         drawPieceFrame(1.0);
@@ -269,7 +287,7 @@ public class TetrisDisplay {
     private void drawNextPiece(double opacity) {
 
         // access the next piece from board
-        TetrisPiece nextPiece = board.getNextPiece();
+        TetrisPiece nextPiece = engine.board().getNextPiece();
         if (nextPiece == null)
             return;
 
@@ -350,7 +368,7 @@ public class TetrisDisplay {
         int alpha = (int)(opacity * 255);
 
         // calculate color and draw color interior
-        Color sqColor = board.getNextPiece().getPieceColor();
+        Color sqColor = TetrisRenderer.pieceColor(engine.board().getNextPiece().getColorIndex());
         sqColor = new Color(sqColor.getRed(), sqColor.getGreen(), sqColor.getBlue(), alpha);
         StdDraw.setPenColor(sqColor);
         StdDraw.filledSquare(x, y, squareHalfLength);
@@ -377,7 +395,7 @@ public class TetrisDisplay {
         double scoreY = 0.5 * (scoreFrameYMin + scoreFrameYMax);
 
         // get score value
-        int score = board.score();
+        int score = engine.score();
         String textScore = Integer.toString(score);
 
         // update and display
@@ -421,73 +439,92 @@ public class TetrisDisplay {
 
 
 /* ***************************************************************************
- *    * Accessor Methods to Move Active Piece
+ *    * Engine Input and Simulation
  * ***************************************************************************/
 
     /**
-     * Public accessor method to access Board controls.
-     * Attempts to generate a new piece.
-     * @return boolean true to indicate new piece was generated
+     * Public method used to queue an input for the next engine step.
+     * Safe to call from any thread; inputs received between two steps are
+     * applied together.
+     * @param input int TetrisEngine input flag (LEFT, RIGHT, DOWN, ROTATE, DROP)
      */
-    public boolean generatePiece() {
+    public void input(int input) {
 
-        return board.generatePiece();
+        pendingInput.getAndUpdate(pending -> pending | input);
 
     }
 
     /**
-     * Public accessor method to access Board controls.
-     * Attempts to move the active piece left.
-     * @return boolean true to indicate piece was moved
+     * Public method used to advance the game by one engine tick, applying
+     * every input queued since the last step.
+     * @return int TetrisEngine event flags of the tick
      */
-    public boolean left() {
-
-        return board.left();
+    public int step() {
+
+        int input = pendingInput.getAndSet(TetrisEngine.NONE);
+        int events = engine.step(input);
+
+        if (recorder != null) {
+            try {
+                recorder.record(engine.tick(), input);
+            } catch (IOException e) {
+                System.out.println("Recording stopped: " + e.getMessage());
+                recorder = null;
+            }
+        }
+        return events;
 
     }
 
     /**
-     * Public accessor method to access Board controls.
-     * Attempts to move the active piece right.
-     * @return boolean true to indicate piece was moved
+     * Public method used to begin recording the current game to a replay
+     * file. Must be called before the game's first step.
+     * @param file Path of the replay file, replaced if it exists
+     * @throws IOException if the file cannot be created
      */
-    public boolean right() {
+    public void startRecording(Path file) throws IOException {
+
+        stopRecording();
+        recorder = new ReplayRecorder(file, engine);
 
-        return board.right();
     }
 
     /**
-     * Public accessor method to access Board controls.
-     * Attempts to move the active piece down.
-     * @return boolean true to indicate piece was moved
+     * Public method used to finish the replay of the current game, if one is
+     * being recorded.
      */
-    public boolean down() {
+    public void stopRecording() {
 
-        return board.down();
+        if (recorder == null)
+            return;
+
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            System.out.println("Replay could not be saved: " + e.getMessage());
+        }
+        recorder = null;
 
     }
 
     /**
-     * Public accessor method to access Board controls.
-     * Attempts to rotate the active piece.
-     * @return boolean true to indicate piece was rotated
+     * Public method used to show a game driven elsewhere, such as a replay,
+     * in place of the display's own. The display's inputs are not applied to it.
+     * @param engine TetrisEngine to draw, with the display's dimensions
      */
-    public boolean rotate() {
+    public synchronized void watch(TetrisEngine engine) {
 
-        return board.rotate();
+        this.engine = engine;
 
     }
 
     /**
-     * Public accessor method to access Board controls.
-     * Attempts to drop the active piece by repeatedly dropping it..
+     * Accessor method used to check whether the current game has ended.
+     * @return true if the engine could not spawn a piece
      */
-    public void dropPiece() {
+    public boolean isGameOver() {
 
-        while (true) {
-            if (!board.down())
-                return;
-        }
+        return engine.isGameOver();
 
     }
 
@@ -0,0 +1,291 @@
+import java.util.SplittableRandom;
+
+/**
+ * An Engine runs a game of Tetris as a deterministic, tick-based simulation:
+ * * (1) State - the TetrisBoard, the tick count, and whether the game is over.
+ * * (2) Input - each call to step() advances one tick, applying the inputs
+ * *     held during that tick (bit flags, so several can be combined).
+ * * (3) Events - step() reports what happened during the tick as bit flags,
+ * *     so consumers (a renderer, a bot, a recorder) know when to react.
+ * <p>
+ * Within a tick the inputs are applied in a fixed order: rotate, left, right,
+ * soft drop, then hard drop, which locks the piece at once. Otherwise gravity
+ * moves the piece down one row every gravityTicks ticks, and locks it when it
+ * can no longer fall. Locking stores the piece, clears lines and spawns the
+ * next piece; the game is over when the next piece has no room.
+ * <p>
+ * Pieces are dealt by a seeded PieceRandomizer, so an engine created with the
+ * same dimensions, gravity, randomizer kind and seed, and stepped with the
+ * same inputs, plays exactly the same game.
+ * <p>
+ * The engine has no AWT, StdDraw or timing dependency: it never sleeps, and a
+ * game runs as fast as step() is called. ThreadTetrisGame calls it on a timer
+ * and draws after each tick that changed something; TetrisHeadless calls it
+ * in a tight loop.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisEngine {
+
+    // ----- Inputs, combined as bit flags
+    public static final int NONE = 0;
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int DOWN = 1 << 2;
+    public static final int ROTATE = 1 << 3;
+    public static final int DROP = 1 << 4;
+
+    // ----- Events, combined as bit flags
+    public static final int MOVED = 1;
+    public static final int ROTATED = 1 << 1;
+    public static final int FELL = 1 << 2;
+    public static final int LOCKED = 1 << 3;
+    public static final int CLEARED = 1 << 4;
+    public static final int SPAWNED = 1 << 5;
+    public static final int GAME_OVER = 1 << 6;
+
+    // upcoming pieces that can be previewed
+    private static final int LOOKAHEAD = 5;
+
+    // ----- Engine Specific Fields
+    private final TetrisBoard board;
+    private final int gravityTicks;
+    private final int randomizerKind;
+    private final long seed;
+
+    // ----- Dynamic Fields
+    private long tick;
+    private int ticksSinceFall;
+    private int piecesLocked;
+    private boolean gameOver;
+
+
+/* ***************************************************************************
+ *    * Constructors
+ ****************************************************************************/
+
+    /**
+     * Constructor creates a new board, dealing pieces uniformly at random from
+     * an unpredictable seed, and spawns its first piece.
+     *
+     * @param height int number of rows
+     * @param width int number of cols
+     * @param gravityTicks int ticks between each row the piece falls on its own
+     * @throws IllegalArgumentException if gravityTicks is not positive
+     */
+    public TetrisEngine(int height, int width, int gravityTicks) {
+
+        this(height, width, gravityTicks, PieceRandomizer.UNIFORM, new SplittableRandom().nextLong());
+
+    }
+
+    /**
+     * Constructor creates a new board with a seeded randomizer, and spawns its
+     * first piece.
+     *
+     * @param height int number of rows
+     * @param width int number of cols
+     * @param gravityTicks int ticks between each row the piece falls on its own
+     * @param randomizerKind int PieceRandomizer kind (UNIFORM, SEVEN_BAG, HISTORY)
+     * @param seed long seed of the piece sequence
+     * @throws IllegalArgumentException if gravityTicks is not positive
+     */
+    public TetrisEngine(int height, int width, int gravityTicks, int randomizerKind, long seed) {
+
+        if (gravityTicks < 1)
+            throw new IllegalArgumentException("Gravity must be at least one tick per row");
+
+        this.board = new TetrisBoard(height, width, PieceRandomizer.create(randomizerKind, seed), LOOKAHEAD);
+        this.gravityTicks = gravityTicks;
+        this.randomizerKind = randomizerKind;
+        this.seed = seed;
+        this.tick = 0;
+        this.ticksSinceFall = 0;
+        this.piecesLocked = 0;
+        this.gameOver = !board.generatePiece();
+
+    }
+
+    // private constructor used by copy()
+    private TetrisEngine(TetrisEngine other) {
+
+        this.board = other.board.copy();
+        this.gravityTicks = other.gravityTicks;
+        this.randomizerKind = other.randomizerKind;
+        this.seed = other.seed;
+        this.tick = other.tick;
+        this.ticksSinceFall = other.ticksSinceFall;
+        this.piecesLocked = other.piecesLocked;
+        this.gameOver = other.gameOver;
+
+    }
+
+    /**
+     * Creates an independent engine in the same state, which plays on exactly
+     * as this one would given the same inputs. Used to snapshot a game.
+     * @return TetrisEngine copy of this engine
+     */
+    public TetrisEngine copy() {
+
+        return new TetrisEngine(this);
+
+    }
+
+
+/* ***************************************************************************
+ *    * Simulation
+ ****************************************************************************/
+
+    /**
+     * Advances the game by one tick.
+     * @param input int bit flags of the inputs held during the tick (NONE, LEFT, ...)
+     * @return int bit flags of the events of the tick (MOVED, ROTATED, ...)
+     */
+    public int step(int input) {
+
+        if (gameOver)
+            return GAME_OVER;
+
+        tick++;
+        int events = 0;
+
+        if ((input & ROTATE) != 0 && board.rotate())
+            events |= ROTATED;
+        if ((input & LEFT) != 0 && board.left())
+            events |= MOVED;
+        if ((input & RIGHT) != 0 && board.right())
+            events |= MOVED;
+        if ((input & DOWN) != 0 && board.down())
+            events |= MOVED;
+
+        // a hard drop locks the piece without waiting for gravity
+        if ((input & DROP) != 0) {
+            if (board.hardDrop() > 0)
+                events |= MOVED;
+            return events | lock();
+        }
+
+        if (++ticksSinceFall >= gravityTicks) {
+            ticksSinceFall = 0;
+            if (board.down())
+                events |= FELL;
+            else
+                events |= lock();
+        }
+
+        return events;
+
+    }
+
+    /**
+     * Private helper method that stores the active piece, clears lines and
+     * spawns the next piece.
+     * @return int bit flags of the resulting events
+     */
+    private int lock() {
+
+        ticksSinceFall = 0;
+        piecesLocked++;
+
+        int events = LOCKED;
+        boolean spawned = board.generatePiece();
+        if (board.lastClearCount() > 0)
+            events |= CLEARED;
+
+        if (spawned) {
+            events |= SPAWNED;
+        } else {
+            gameOver = true;
+            events |= GAME_OVER;
+        }
+        return events;
+
+    }
+
+
+/* ***************************************************************************
+ *    * Accessor Methods
+ ****************************************************************************/
+
+    /**
+     * Accessor method used to get the board, for drawing or evaluation.
+     * Moving pieces through the board directly bypasses the engine.
+     * @return TetrisBoard holding the game state
+     */
+    public TetrisBoard board() {
+
+        return board;
+
+    }
+
+    /**
+     * Accessor method used to get the ticks between each row a piece falls.
+     * @return int gravity of the game
+     */
+    public int gravityTicks() {
+
+        return gravityTicks;
+
+    }
+
+    /**
+     * Accessor method used to get the kind of randomizer dealing the pieces.
+     * @return int PieceRandomizer kind
+     */
+    public int randomizerKind() {
+
+        return randomizerKind;
+
+    }
+
+    /**
+     * Accessor method used to get the seed of the piece sequence.
+     * @return long seed the game was created with
+     */
+    public long seed() {
+
+        return seed;
+
+    }
+
+    /**
+     * Accessor method used to get the number of ticks simulated.
+     * @return long ticks since the game began
+     */
+    public long tick() {
+
+        return tick;
+
+    }
+
+    /**
+     * Accessor method used to get the number of pieces locked.
+     * @return int pieces stored on the board so far
+     */
+    public int piecesLocked() {
+
+        return piecesLocked;
+
+    }
+
+    /**
+     * Accessor method used to get the current score.
+     * @return int total points
+     */
+    public int score() {
+
+        return board.score();
+
+    }
+
+    /**
+     * Accessor method used to check whether the game has ended.
+     * @return true if a piece could not be spawned
+     */
+    public boolean isGameOver() {
+
+        return gameOver;
+
+    }
+
+}
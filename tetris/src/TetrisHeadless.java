@@ -0,0 +1,94 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Class used to play games of Tetris headlessly, as fast as the CPU allows:
+ * TetrisEngine games are stepped in a tight loop with no drawing and no
+ * sleeping, and the throughput is reported.
+ * <p>
+ * Each tick holds a random input (mostly none, as a player would), drawn from
+ * a seeded generator, and each game deals its pieces from its own seed, so a
+ * run is reproduced exactly by its arguments. The first game is replayed
+ * from its seed and inputs to check the engine is deterministic. A first
+ * pass warms up the JIT.
+ * <p>
+ * Usage: TetrisHeadless [games] [gravity ticks] [seed] [randomizer kind]
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisHeadless {
+
+    // board dimensions, as in Main
+    private static final int HEIGHT = 20;
+    private static final int WIDTH = 10;
+
+    // inputs drawn each tick, NONE weighted to keep pieces on screen for a while
+    private static final int[] INPUTS = {
+            TetrisEngine.NONE, TetrisEngine.NONE, TetrisEngine.NONE, TetrisEngine.NONE,
+            TetrisEngine.LEFT, TetrisEngine.RIGHT, TetrisEngine.DOWN, TetrisEngine.ROTATE,
+            TetrisEngine.LEFT | TetrisEngine.ROTATE, TetrisEngine.RIGHT | TetrisEngine.ROTATE
+    };
+
+    // chance of a hard drop on any tick
+    private static final double DROP_CHANCE = 0.02;
+
+    /**
+     * Client runs the games described in the class description.
+     * @param args String[] optional number of games, gravity ticks and seed
+     */
+    public static void main(String[] args) {
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int gravityTicks = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int kind = args.length > 3 ? Integer.parseInt(args[3]) : PieceRandomizer.SEVEN_BAG;
+
+        // warm-up pass, results discarded
+        play(Math.max(1, games / 4), gravityTicks, seed, kind);
+
+        long start = System.nanoTime();
+        long[] totals = play(games, gravityTicks, seed, kind);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games in %.2f s: %d ticks (%.1f million ticks/s), %d pieces (%.0f pieces/s)%n",
+                games, seconds, totals[0], totals[0] / seconds / 1e6, totals[1], totals[1] / seconds);
+        System.out.printf("%d lines cleared, average score %.1f%n", totals[2], (double) totals[3] / games);
+
+        long[] first = play(1, gravityTicks, seed, kind);
+        long[] again = play(1, gravityTicks, seed, kind);
+        System.out.println("Same seed and inputs give the same game: " + Arrays.equals(first, again));
+
+    }
+
+    /**
+     * Plays the given number of games with random inputs.
+     * @param games int games to play
+     * @param gravityTicks int ticks between each row a piece falls
+     * @param seed long seed of the input generator, and of the first game's pieces
+     * @param kind int PieceRandomizer kind dealing the pieces
+     * @return long[] total ticks, pieces, lines and score
+     */
+    public static long[] play(int games, int gravityTicks, long seed, int kind) {
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long ticks = 0;
+        long pieces = 0;
+        long lines = 0;
+        long score = 0;
+
+        for (int game = 0; game < games; game++) {
+            TetrisEngine engine = new TetrisEngine(HEIGHT, WIDTH, gravityTicks, kind, seed + game);
+            while (!engine.isGameOver()) {
+                int input = random.nextDouble() < DROP_CHANCE ? TetrisEngine.DROP : INPUTS[random.nextInt(INPUTS.length)];
+                engine.step(input);
+            }
+            ticks += engine.tick();
+            pieces += engine.piecesLocked();
+            lines += engine.board().linesCleared();
+            score += engine.score();
+        }
+        return new long[] {ticks, pieces, lines, score};
+
+    }
+
+}
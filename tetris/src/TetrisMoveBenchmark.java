@@ -0,0 +1,94 @@
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+/**
+ * Class used to measure the cost of moving the active piece: moves per
+ * second, and bytes allocated per move, which should be zero.
+ * <p>
+ * Games are played on a 20x10 board with random left, right, down and rotate
+ * inputs, dropping each piece once its inputs are spent. Allocation is read
+ * from the JVM's per-thread allocation counter around the moves only, since
+ * generating the next piece creates it. A first pass warms up the JIT.
+ * <p>
+ * Usage: TetrisMoveBenchmark [moves]
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisMoveBenchmark {
+
+    // random inputs made before dropping each piece
+    private static final int MOVES_PER_PIECE = 16;
+
+    /**
+     * Client runs the benchmark described in the class description.
+     * @param args String[] optional number of moves to time
+     */
+    public static void main(String[] args) {
+
+        long moves = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counter not supported by this JVM");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // warm-up pass, results discarded
+        play(threads, moves / 4);
+
+        long start = System.nanoTime();
+        long[] result = play(threads, moves);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d moves in %.2f s (%.1f million moves/s)%n",
+                result[0], seconds, result[0] / seconds / 1e6);
+        System.out.printf("%d bytes allocated by moves, %.4f bytes per move%n",
+                result[1], (double) result[1] / result[0]);
+
+    }
+
+    /**
+     * Private helper method that plays games until the given number of moves
+     * have been made, counting the bytes allocated while moving.
+     * @param threads ThreadMXBean used to read the allocation counter
+     * @param moves long moves to make
+     * @return long[] moves made (including each row of a drop) and bytes allocated by them
+     */
+    private static long[] play(com.sun.management.ThreadMXBean threads, long moves) {
+
+        SplittableRandom random = new SplittableRandom(42);
+        long made = 0;
+        long allocated = 0;
+
+        // cost of reading the counter itself
+        long overhead = threads.getCurrentThreadAllocatedBytes();
+        overhead = threads.getCurrentThreadAllocatedBytes() - overhead;
+
+        TetrisBoard board = new TetrisBoard(20, 10);
+        board.generatePiece();
+        while (made < moves) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MOVES_PER_PIECE; i++) {
+                switch (random.nextInt(4)) {
+                    case 0 -> board.left();
+                    case 1 -> board.right();
+                    case 2 -> board.rotate();
+                    default -> board.down();
+                }
+            }
+            made += MOVES_PER_PIECE;
+            while (board.down())
+                made++;
+            allocated += threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+            if (!board.generatePiece()) {
+                board = new TetrisBoard(20, 10);
+                board.generatePiece();
+            }
+        }
+        return new long[] {made, allocated};
+
+    }
+
+}
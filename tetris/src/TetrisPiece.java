@@ -1,24 +1,25 @@
-import java.awt.Color;
+import java.util.Arrays;
 
 /**
  * Class used to define a single piece in Tetris.
  * <p>
  * A piece cannot be instantiated without an ambient board to hold it.
- * By default, a 4x4 grid is established to hold the piece.
  * When the Board class instantiates a piece, it must pass the board width and height
  * as parameters.
  * <p>
- * All pieces have a pivot location to define where the piece sits within the board.
- * The pivot point is used for piece movement and border logic.
- * Piece is conceptualized as a list of coordinates where the piece is defined + pivot.
+ * A piece is conceptualized as its type, its rotation state, and the (row, col)
+ * location of its origin: the top left corner of the small box (4x4 for 'I',
+ * 3x3 for the rest) the piece rotates within. The squares of every rotation
+ * state are precomputed once, as offsets from the origin, in static tables.
+ * Moving or rotating a piece only changes these few ints, and never allocates.
  * <p>
- * Example: boardWidth = 4, boardHeight = 4:
+ * Example: boardWidth = 4, boardHeight = 4, origin at (0, 0):
  * 00 01 02 03
  * 04 05 06 07
  * 08 09 10 11
  * 12 13 14 15
  * <p>
- * Then the pivot point is 01 and the pieces are given as:
+ * Then the pieces are spawned (rotation 0) as:
  * O = {1, 2, 5, 6}
  * I = {1, 5, 9, 13}
  * S = {1, 2, 4, 5}
@@ -26,6 +27,11 @@ import java.awt.Color;
  * L = {1, 5, 9, 10}
  * J = {1, 5, 8, 9}
  * T = {1, 4, 5, 6}
+ * <p>
+ * Each rotation turns the box counter-clockwise by 90 degrees. A rotation that
+ * would leave the board (or, for the Board, collide) is retried at each offset
+ * of the piece's kick table in turn: first in place, then nudged away from a
+ * wall, then lifted off the floor.
  *
  * @author adamm.hockman@gmail.com
  */
@@ -33,14 +39,91 @@ public class TetrisPiece {
 
     // declare static constants
     private static final int NUM_OF_COORDINATES = 4;
+    private static final int NUM_OF_ROTATIONS = 4;
     private static final int MIN_BOARD_HEIGHT = 4;
     private static final int MIN_BOARD_WIDTH = 4;
 
+    // piece types, in the order of the tables below
+    private static final String PIECE_TYPES = "OISZLJT";
+    public static final int NUM_OF_TYPES = PIECE_TYPES.length();
+
+    // size of the rotation box of each piece type
+    private static final int[] BOX_SIZE = {3, 4, 3, 3, 3, 3, 3};
+
+    // (row, col) within the box of each square of each piece type, at rotation 0
+    private static final int[][][] SPAWN_SQUARES = {
+            {{0, 1}, {0, 2}, {1, 1}, {1, 2}},   // O
+            {{0, 1}, {1, 1}, {2, 1}, {3, 1}},   // I
+            {{0, 1}, {0, 2}, {1, 0}, {1, 1}},   // S
+            {{0, 0}, {0, 1}, {1, 1}, {1, 2}},   // Z
+            {{0, 1}, {1, 1}, {2, 1}, {2, 2}},   // L
+            {{0, 1}, {1, 1}, {2, 0}, {2, 1}},   // J
+            {{0, 1}, {1, 0}, {1, 1}, {1, 2}}    // T
+    };
+
+    // (col, row) offsets tried in order when rotating; negative rows lift the piece
+    private static final int[][] KICKS = {{0, 0}, {-1, 0}, {1, 0}, {0, -1}, {-1, -1}, {1, -1}};
+    private static final int[][] I_KICKS = {{0, 0}, {-1, 0}, {1, 0}, {-2, 0}, {2, 0}, {0, -1}, {0, -2}};
+    private static final int[][] O_KICKS = {{0, 0}};
+
+    // precomputed tables, indexed by [type][rotation]
+    private static final int[][][] SQUARE_ROWS = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS][NUM_OF_COORDINATES];
+    private static final int[][][] SQUARE_COLS = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS][NUM_OF_COORDINATES];
+    // bitmask of the occupied box columns of each box row, bit c for column c
+    private static final int[][][] ROW_MASKS = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS][];
+    // extent of the squares within the box
+    private static final int[][] MIN_ROW = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS];
+    private static final int[][] MAX_ROW = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS];
+    private static final int[][] MIN_COL = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS];
+    private static final int[][] MAX_COL = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS];
+    // lowest occupied box row of each box column, -1 if the column is empty
+    private static final int[][][] BOTTOM_ROWS = new int[PIECE_TYPES.length()][NUM_OF_ROTATIONS][];
+
+    static {
+        for (int type = 0; type < PIECE_TYPES.length(); type++) {
+            int n = BOX_SIZE[type];
+            int[][] squares = SPAWN_SQUARES[type];
+            for (int rotation = 0; rotation < NUM_OF_ROTATIONS; rotation++) {
+                ROW_MASKS[type][rotation] = new int[n];
+                BOTTOM_ROWS[type][rotation] = new int[n];
+                Arrays.fill(BOTTOM_ROWS[type][rotation], -1);
+                MIN_ROW[type][rotation] = n;
+                MIN_COL[type][rotation] = n;
+                for (int i = 0; i < NUM_OF_COORDINATES; i++) {
+                    int row = squares[i][0];
+                    int col = squares[i][1];
+                    // the 'O' piece looks the same in every rotation
+                    if (PIECE_TYPES.charAt(type) != 'O') {
+                        // rotate counter-clockwise: (row, col) -> (n - 1 - col, row), rotation times
+                        for (int turn = 0; turn < rotation; turn++) {
+                            int turned = n - 1 - col;
+                            col = row;
+                            row = turned;
+                        }
+                    }
+                    SQUARE_ROWS[type][rotation][i] = row;
+                    SQUARE_COLS[type][rotation][i] = col;
+                    ROW_MASKS[type][rotation][row] |= 1 << col;
+                    MIN_ROW[type][rotation] = Math.min(MIN_ROW[type][rotation], row);
+                    MAX_ROW[type][rotation] = Math.max(MAX_ROW[type][rotation], row);
+                    MIN_COL[type][rotation] = Math.min(MIN_COL[type][rotation], col);
+                    MAX_COL[type][rotation] = Math.max(MAX_COL[type][rotation], col);
+                    BOTTOM_ROWS[type][rotation][col] = Math.max(BOTTOM_ROWS[type][rotation][col], row);
+                }
+            }
+        }
+    }
+
     // piece specific information
-    private final char pieceType;
-    private int[] coordinates;
-    private int pivot;
-    private final Color pieceColor;
+    private char pieceType;
+    private int typeIndex;
+    private int colorIndex;
+    private int rotation;
+    private int row;
+    private int col;
+
+    // reused by getCoordinates()
+    private final int[] coordinates;
 
     // ambient board information
     private final int boardHeight;
@@ -53,30 +136,20 @@ public class TetrisPiece {
 
     /**
      * This is the main constructor the other constructor variations call.
-     * Piece coordinates are assigned based on the piece type, and the pivot point.
-     * The pivot point is computed automatically. This is used when generating new
-     * pieces at the top of the board.
+     * The piece is placed at rotation 0 at the top of the board, centered
+     * horizontally. This is used when generating new pieces at the top of the board.
      * Note: Cannot instantiate a piece in the middle of the board, only the top.
      * Throws an exception is dimensions provided are less than the global MIN values.
      *
      * @param pieceType char representing the type of piece to be generated
+     * @param colorIndex int color of the piece, an index into the renderer's color library
      * @param boardHeight the height of the ambient board holding the piece
      * @param boardWidth the width of the ambient board holding the piece
      * @throws IllegalArgumentException if the provided board dimensions are too small
      */
-    public TetrisPiece(char pieceType, Color pieceColor, int boardHeight, int boardWidth) {
+    public TetrisPiece(char pieceType, int colorIndex, int boardHeight, int boardWidth) {
 
-        if (boardHeight < MIN_BOARD_HEIGHT || boardWidth < MIN_BOARD_WIDTH)
-            throw new IllegalArgumentException("Board dimensions provided are too small.");
-
-        this.pieceType = pieceType;
-        this.pieceColor = pieceColor;
-        this.boardHeight = boardHeight;
-        this.boardWidth = boardWidth;
-
-        this.pivot = (boardWidth - 1) / 2;
-
-        setInitialPieceCoordinates();
+        this(pieceType, colorIndex, boardHeight, boardWidth, 0, 0, (boardWidth - 1) / 2 - 1);
 
     }
 
@@ -86,86 +159,76 @@ public class TetrisPiece {
      * a new piece at the top.
      * <p>
      * This constructor allows for a copy() method. This returns a new reference to
-     * a TetrisPiece that has all the same field data (deep copied).
-     * This will be necessary in testing for boundaries and collisions when moving
-     * the piece.
+     * a TetrisPiece that has all the same field data.
      *
      * @param pieceType the char piece type
+     * @param colorIndex the int color index of the piece
      * @param boardHeight the height of the board
      * @param boardWidth the width of the board
-     * @param coordinates the coordinates of the piece
-     * @param pivot the current pivot point of the piece
+     * @param rotation the rotation state of the piece, between 0 and 3
+     * @param row the board row of the piece origin
+     * @param col the board column of the piece origin
+     * @throws IllegalArgumentException if the dimensions or piece type are not valid
      */
-    public TetrisPiece(char pieceType, Color pieceColor, int boardHeight, int boardWidth, int[] coordinates, int pivot) {
+    public TetrisPiece(char pieceType, int colorIndex, int boardHeight, int boardWidth, int rotation, int row, int col) {
 
         if (boardHeight < MIN_BOARD_HEIGHT || boardWidth < MIN_BOARD_WIDTH)
             throw new IllegalArgumentException("Board dimensions provided are too small.");
 
+        this.typeIndex = typeIndex(pieceType);
         this.pieceType = pieceType;
-        this.pieceColor = pieceColor;
+        this.colorIndex = colorIndex;
         this.boardHeight = boardHeight;
         this.boardWidth = boardWidth;
-        this.coordinates = coordinates;
-        this.pivot = pivot;
+        this.rotation = rotation & (NUM_OF_ROTATIONS - 1);
+        this.row = row;
+        this.col = col;
+        this.coordinates = new int[NUM_OF_COORDINATES];
 
     }
 
     /**
-     * Private method used to assign the initial piece coordinates.
-     * Assumes the initial pivot point has already been set.
-     * Called by main constructor to simplify code.
+     * Turns the piece into a new piece at the top of the board, as if it had
+     * just been constructed. Lets the Board reuse its pieces instead of
+     * creating one per spawn.
+     *
+     * @param pieceType char representing the type of piece to be generated
+     * @param colorIndex int color of the piece, an index into the renderer's color library
+     * @throws IllegalArgumentException if the piece type is not valid
      */
-    private void setInitialPieceCoordinates() {
+    public void spawn(char pieceType, int colorIndex) {
 
-        // initialize the coordinates array
-        this.coordinates = new int[NUM_OF_COORDINATES];
+        this.typeIndex = typeIndex(pieceType);
+        this.pieceType = pieceType;
+        this.colorIndex = colorIndex;
+        place(0, 0, (boardWidth - 1) / 2 - 1);
+
+    }
+
+    /**
+     * Maps a piece type index back to its piece type.
+     * @param typeIndex int between 0 and NUM_OF_TYPES - 1
+     * @return char piece type
+     */
+    public static char pieceType(int typeIndex) {
+
+        return PIECE_TYPES.charAt(typeIndex);
+
+    }
+
+    /**
+     * Maps a piece type to its index in the static tables.
+     * @param pieceType char one of 'O', 'I', 'S', 'Z', 'L', 'J', 'T'
+     * @return int index of the piece type
+     * @throws IllegalArgumentException if the piece type is not valid
+     */
+    public static int typeIndex(char pieceType) {
+
+        int index = PIECE_TYPES.indexOf(pieceType);
+        if (index < 0)
+            throw new IllegalArgumentException("Not a valid piece type: " + pieceType);
+        return index;
 
-        // logic is explicitly defined
-        switch (pieceType) {
-            case ('O'):
-                coordinates[0] = pivot;
-                coordinates[1] = pivot + 1;
-                coordinates[2] = pivot + boardWidth;
-                coordinates[3] = pivot + boardWidth + 1;
-                break;
-            case ('I'):
-                coordinates[0] = pivot;
-                coordinates[1] = pivot + boardWidth;
-                coordinates[2] = pivot + boardWidth * 2;
-                coordinates[3] = pivot + boardWidth * 3;
-                break;
-            case ('S'):
-                coordinates[0] = pivot;
-                coordinates[1] = pivot + 1;
-                coordinates[2] = pivot + boardWidth - 1;
-                coordinates[3] = pivot + boardWidth;
-                break;
-            case ('Z'):
-                coordinates[0] = pivot - 1;
-                coordinates[1] = pivot;
-                coordinates[2] = pivot + boardWidth;
-                coordinates[3] = pivot + boardWidth + 1;
-                break;
-            case ('L'):
-                coordinates[0] = pivot;
-                coordinates[1] = pivot + boardWidth;
-                coordinates[2] = pivot + boardWidth * 2;
-                coordinates[3] = pivot + boardWidth * 2 + 1;
-                break;
-            case ('J'):
-                coordinates[0] = pivot;
-                coordinates[1] = pivot + boardWidth;
-                coordinates[2] = pivot + boardWidth * 2 - 1;
-                coordinates[3] = pivot + boardWidth * 2;
-                break;
-            case ('T'):
-                coordinates[0] = pivot;
-                coordinates[1] = pivot + boardWidth - 1;
-                coordinates[2] = pivot + boardWidth;
-                coordinates[3] = pivot + boardWidth + 1;
-                break;
-            default:
-        }
     }
 
 
@@ -174,11 +237,17 @@ public class TetrisPiece {
  ****************************************************************************/
 
     /**
-     * Accessor method used to extract coordinates.
+     * Accessor method used to extract coordinates (entry = row * boardWidth + col).
+     * The array returned is reused by the piece, and is only valid until the
+     * piece next moves.
      * @return piece coordinates
      */
     public int[] getCoordinates() {
 
+        int[] squareRows = SQUARE_ROWS[typeIndex][rotation];
+        int[] squareCols = SQUARE_COLS[typeIndex][rotation];
+        for (int i = 0; i < NUM_OF_COORDINATES; i++)
+            coordinates[i] = (row + squareRows[i]) * boardWidth + col + squareCols[i];
         return coordinates;
 
     }
@@ -212,323 +281,316 @@ public class TetrisPiece {
     }
 
     /**
-     * Accessor method used to extract the piece color.
-     * @return the piece color
+     * Accessor method used to extract the piece type index used by the static tables.
+     * @return int index of the piece type
      */
-    public Color getPieceColor() { return pieceColor; }
-
-
-/* ***************************************************************************
- *    * Copy Method
- ****************************************************************************/
+    public int getTypeIndex() {
+        return typeIndex;
+    }
 
     /**
-     * Public method used to obtain a new reference (separate from the instance
-     * piece) to a TetrisPiece containing the same fields as the instance
-     * calling it.
-     * @return pointer to a new TetrisPiece with the same fields
+     * Accessor method used to extract the piece color, as an index into the
+     * color library of the renderer (see TetrisRenderer).
+     * @return the piece color index
      */
-    public TetrisPiece copy() {
+    public int getColorIndex() { return colorIndex; }
 
-        // deep copy the coordinates array before initializing
-        int[] copyCoordinates = new int[NUM_OF_COORDINATES];
-        System.arraycopy(coordinates, 0, copyCoordinates, 0, NUM_OF_COORDINATES);
+    /**
+     * Accessor method used to extract the rotation state.
+     * @return int rotation between 0 and 3
+     */
+    public int getRotation() {
+        return rotation;
+    }
 
-        return new TetrisPiece(pieceType, pieceColor, boardHeight, boardWidth, copyCoordinates, pivot);
+    /**
+     * Accessor method used to extract the board row of the piece origin.
+     * @return int origin row, the top of the rotation box
+     */
+    public int getRow() {
+        return row;
+    }
 
+    /**
+     * Accessor method used to extract the board column of the piece origin.
+     * @return int origin column, the left of the rotation box
+     */
+    public int getCol() {
+        return col;
     }
 
 
 /* ***************************************************************************
- *    * Rotation Methods
+ *    * Shape Tables
  ****************************************************************************/
 
     /**
-     * Method used to rotate piece. Updates the coordinate list.
-     * Logic is determined entirely by piece type and pivot location.
-     *
-     * @return true if rotation was successful, false otherwise
+     * Returns the size of the rotation box of a piece type.
+     * @param typeIndex int piece type index
+     * @return int rows (and columns) of the box
      */
-    public boolean rotate() {
+    public static int boxSize(int typeIndex) {
 
-        // piece type 'O' can always be rotated
-        if (pieceType == 'O')
-            return true;
+        return BOX_SIZE[typeIndex];
 
-        // check that we have room to rotate along the edge
-        if (pivotAlongEdge())
-            return false;
+    }
 
-        // first rotate the underlying grid for all pieces,
-        // using a 4x4 grid for type 'I', and a 3x3 grid for the rest.
-        if (pieceType == 'I')
-            rotateNxN(4);
-        else
-            rotateNxN(3);
+    /**
+     * Returns the occupied columns of one row of a piece's rotation box.
+     * @param typeIndex int piece type index
+     * @param rotation int rotation state between 0 and 3
+     * @param boxRow int row within the box
+     * @return int bitmask with bit c set if box column c is occupied
+     */
+    public static int rowMask(int typeIndex, int rotation, int boxRow) {
 
-        // shift up the pieces to their pivot, if necessary.
-        if (pieceType == 'I' || pieceType == 'S' || pieceType == 'Z')
-            shiftToPivot();
-
-        // at this point the rotation was successful
-        return true;
+        return ROW_MASKS[typeIndex][rotation][boxRow];
 
     }
 
     /**
-     * Private method used to verify whether a piece can be rotated.
-     * Uses basic logic based on the pivot's row and column value.
-     *
-     * @return true if the pivot is near the edge and cannot be rotated
+     * Returns the lowest occupied row of one column of a piece's rotation
+     * box: the piece's bottom profile, used to find how far it can fall.
+     * @param typeIndex int piece type index
+     * @param rotation int rotation state between 0 and 3
+     * @param boxCol int column within the box
+     * @return int lowest occupied box row, or -1 if the column is empty
      */
-    private boolean pivotAlongEdge() {
+    public static int bottomRow(int typeIndex, int rotation, int boxCol) {
+
+        return BOTTOM_ROWS[typeIndex][rotation][boxCol];
+
+    }
 
-        // check for side edges
-        int pivotCol = pivot % boardWidth;
-        boolean sidesCheck;
+    /**
+     * Returns the number of distinct rotation states of a piece type.
+     * @param typeIndex int piece type index
+     * @return int 1 for 'O', 4 for the rest
+     */
+    public static int rotationCount(int typeIndex) {
 
-        // The 'I' piece has a separate check for the right side, and bottom
-        // since it needs an additional square to rotate
-        if (pieceType == 'I')
-            sidesCheck = (pivotCol == 0 || (boardWidth - 1 - pivotCol) < 2);
-        else
-            sidesCheck = (pivotCol == 0 || (boardWidth - 1 - pivotCol) < 1);
+        return PIECE_TYPES.charAt(typeIndex) == 'O' ? 1 : NUM_OF_ROTATIONS;
 
-        // check for bottom edge
-        int pivotRow = pivot / boardWidth;
-        boolean bottomCheck;
+    }
 
-        // if the pivot point is 1 row from the bottom row, the piece can not be rotated
-        if (pieceType == 'I')
-            bottomCheck = (boardHeight - 1 - pivotRow) < 3;
-        else
-            bottomCheck = (boardHeight - 1 - pivotRow) < 2;
+    /**
+     * Returns the number of rotation kicks to try for a piece type.
+     * @param typeIndex int piece type index
+     * @return int length of the kick table
+     */
+    public static int kickCount(int typeIndex) {
 
-        return (sidesCheck || bottomCheck);
+        return kicks(typeIndex).length;
 
     }
 
     /**
-     * Private method used to help with rotating the 'I', 'S', and 'Z' piece.
-     * In classic Tetris, these pieces have only 2 rotations, given certain translations.
-     * <p>
-     * We need to shift the piece up so that the top row of the piece is the same row as
-     * the pivot point (for 'S' or 'Z'), or one below the pivot for 'I'.
+     * Returns the column offset of a rotation kick.
+     * @param typeIndex int piece type index
+     * @param kick int kick between 0 and kickCount() - 1
+     * @return int columns to shift the rotated piece by
      */
-    private void shiftToPivot() {
+    public static int kickCol(int typeIndex, int kick) {
 
-        // check that the row of the tallest piece coordinate is in the
-        // same row as the pivot point, and adjust otherwise
-        // NOTE: this will naturally leave the 'I' piece one below the
-        // pivot, in a horizontal position (as desired)
-        int topRow = boardHeight;
-        for (int i = 0; i < NUM_OF_COORDINATES; i++) {
-            int entry = coordinates[i];
-            int entryRow = entry / boardWidth;
-            if (entryRow < topRow)
-                topRow = entryRow;
-        }
-        int pivotRow = pivot / boardWidth;
-        if (pivotRow < topRow) {
-            for (int j = 0; j < NUM_OF_COORDINATES; j++) {
-                coordinates[j] = coordinates[j] - boardWidth;
-            }
-        }
+        return kicks(typeIndex)[kick][0];
 
     }
 
     /**
-     * Private method used to rotate the ambient NxN grid holding the piece.
-     * The 'I' piece requires a 4x4 grid rotation, whereas the rest use a 3x3 grid.
-     * <p>
-     * First map the coordinates to a grid representation.
-     * Then rotate the grid and map back to coordinates.
-     * Mapping will depend on pivot point.
-     *
-     * @param N int size of ambient grid to rotate
+     * Returns the row offset of a rotation kick.
+     * @param typeIndex int piece type index
+     * @param kick int kick between 0 and kickCount() - 1
+     * @return int rows to shift the rotated piece by (negative is up)
      */
-    private void rotateNxN(int N) {
+    public static int kickRow(int typeIndex, int kick) {
 
-        // initialize a new grid of 1s and 0s to represent the NxN grid coordinates
-        int[][] grid = new int[N][N];
+        return kicks(typeIndex)[kick][1];
 
-        // calculate row and col shift: pivot - 1 = rowShift * (boardWidth) + colShift
-        int rowShift = (pivot - 1) / boardWidth;
-        int colShift = (pivot - 1) % boardWidth;
+    }
 
-        // map convert each coordinate
-        for (int i = 0; i < NUM_OF_COORDINATES; i++) {
+    /**
+     * Returns the rotation state reached by rotating once counter-clockwise.
+     * @param rotation int rotation state between 0 and 3
+     * @return int next rotation state
+     */
+    public static int nextRotation(int rotation) {
 
-            // get entry value, row, and col
-            int entry = coordinates[i];
-            int entryRow = entry / boardWidth;
-            int entryCol = entry % boardWidth;
+        return (rotation + 1) & (NUM_OF_ROTATIONS - 1);
 
-            // apply row and col shift
-            entryRow -= rowShift;
-            entryCol -= colShift;
+    }
 
-            // set location to 1 to indicate piece coordinate
-            grid[entryRow][entryCol] = 1;
+    // private helper method returning the kick table of a piece type
+    private static int[][] kicks(int typeIndex) {
 
-        }
+        return switch (PIECE_TYPES.charAt(typeIndex)) {
+            case 'O' -> O_KICKS;
+            case 'I' -> I_KICKS;
+            default -> KICKS;
+        };
 
+    }
 
-        // rotate the grid counter-clockwise by 90 degrees
-        // NOTE: we can apply a sort of reverse transpose to rotate the matrix
-        int[][] rotatedGrid = new int[N][N];
-        for (int col = 0; col < N; col++) {
-            // apply the values (in reverse) to the corresponding col
-            for (int row = 0; row < N; row++)
-                rotatedGrid[row][col] = grid[col][N - row - 1];
-        }
-        grid = rotatedGrid;
+    /**
+     * Checks whether a piece of this type and board would lie entirely within
+     * the board at the given rotation and origin. Stored squares are not
+     * considered (see TetrisBoard.collisions()).
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the origin
+     * @param col int board column of the origin
+     * @return true if every square is on the board
+     */
+    public boolean inBounds(int rotation, int row, int col) {
 
+        return inBounds(typeIndex, rotation, row, col, boardHeight, boardWidth);
 
-        // map the rotated grid back to coordinates list
-        int[] rotatedCoordinates = new int[NUM_OF_COORDINATES];
+    }
 
-        // tracks which coordinates we map
-        int index = 0;
+    /**
+     * Checks whether a piece of the given type would lie entirely within a
+     * board of the given dimensions, without needing a piece instance.
+     * @param typeIndex int piece type index
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the origin
+     * @param col int board column of the origin
+     * @param boardHeight int rows of the board
+     * @param boardWidth int cols of the board
+     * @return true if every square is on the board
+     */
+    public static boolean inBounds(int typeIndex, int rotation, int row, int col, int boardHeight, int boardWidth) {
 
-        // look for '1' entries
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                if (grid[i][j] == 1) {
-                    // first reverse the row and col shift
-                    int entryRow = i + rowShift;
-                    int entryCol = j + colShift;
+        return row + MIN_ROW[typeIndex][rotation] >= 0
+                && row + MAX_ROW[typeIndex][rotation] < boardHeight
+                && col + MIN_COL[typeIndex][rotation] >= 0
+                && col + MAX_COL[typeIndex][rotation] < boardWidth;
 
-                    // then reverse the mapping by modular arithmetic
-                    int entryVal = entryRow * boardWidth + entryCol;
+    }
 
-                    // store the new coordinate value
-                    rotatedCoordinates[index++] = entryVal;
-                }
-            }
-        }
-        // update the coordinates list with the new one
-        coordinates = rotatedCoordinates;
+
+    /**
+     * Moves the piece to the given rotation and origin. The position is not
+     * checked: callers validate it first (see TetrisBoard.canPlace()).
+     * @param rotation int rotation state between 0 and 3
+     * @param row int board row of the origin
+     * @param col int board column of the origin
+     */
+    public void place(int rotation, int row, int col) {
+
+        this.rotation = rotation & (NUM_OF_ROTATIONS - 1);
+        this.row = row;
+        this.col = col;
 
     }
 
 
 /* ***************************************************************************
- *    * Translation Methods: Left, Down, Right
+ *    * Copy Method
  ****************************************************************************/
 
     /**
-     * Method used to translate piece left. Updates the coordinate list.
-     * Logic is determined entirely by piece type and pivot location.
-     *
-     * @return true if translation was successful, false otherwise
+     * Public method used to obtain a new reference (separate from the instance
+     * piece) to a TetrisPiece containing the same fields as the instance
+     * calling it.
+     * @return pointer to a new TetrisPiece with the same fields
      */
-    public boolean left() {
+    public TetrisPiece copy() {
 
-        // update a copy of the coordinates, then update all at once
-        int[] shiftCoordinates = new int[NUM_OF_COORDINATES];
+        return new TetrisPiece(pieceType, colorIndex, boardHeight, boardWidth, rotation, row, col);
 
-        // verify that each coordinate can be translated left,
-        // and update the coordinate accordingly
-        for (int i = 0; i < NUM_OF_COORDINATES; i++) {
+    }
 
-            // get value and column location
-            int entryVal = coordinates[i];
-            int entryCol = entryVal % boardWidth;
 
-            // cannot shift left if any coordinate is in column 0
-            // otherwise, subtract 1 to represent a shift left
-            if (entryCol == 0)
-                return false;
-            else
-                shiftCoordinates[i] = entryVal - 1;
+/* ***************************************************************************
+ *    * Rotation Methods
+ ****************************************************************************/
 
-        }
-        // at this point, all coordinates were shifted left,
-        // so update coordinates with shifted coordinates
-        coordinates = shiftCoordinates;
+    /**
+     * Method used to rotate piece counter-clockwise, trying each kick in
+     * turn until the rotated piece lies within the board.
+     *
+     * @return true if rotation was successful, false otherwise
+     */
+    public boolean rotate() {
 
-        // update the pivot point accordingly
-        pivot = pivot - 1;
+        for (int kick = 0; kick < kickCount(typeIndex); kick++) {
+            if (rotate(kick))
+                return true;
+        }
+        return false;
 
-        return true;
     }
 
     /**
-     * Method used to translate piece right. Updates the coordinate list.
-     * Logic is determined entirely by piece type and pivot location.
+     * Method used to rotate piece counter-clockwise and shift it by one kick
+     * of its kick table. The piece is left unchanged if the result would not
+     * lie within the board.
      *
-     * @return true if translation was successful, false otherwise
+     * @param kick int kick between 0 and kickCount() - 1
+     * @return true if rotation was successful, false otherwise
      */
-    public boolean right() {
+    public boolean rotate(int kick) {
 
-        // update a copy of the coordinates, then update all at once
-        int[] shiftCoordinates = new int[NUM_OF_COORDINATES];
+        int nextRotation = nextRotation(rotation);
+        int nextRow = row + kickRow(typeIndex, kick);
+        int nextCol = col + kickCol(typeIndex, kick);
+        if (!inBounds(nextRotation, nextRow, nextCol))
+            return false;
 
-        // verify that each coordinate can be translated right,
-        // and update the coordinate accordingly
-        for (int i = 0; i < NUM_OF_COORDINATES; i++) {
+        rotation = nextRotation;
+        row = nextRow;
+        col = nextCol;
+        return true;
 
-            // get value and column location
-            int entryVal = coordinates[i];
-            int entryCol = entryVal % boardWidth;
+    }
 
-            // cannot shift right if any coordinate is in column boardWidth - 1
-            // otherwise, add 1 to represent a shift right
-            if (entryCol == (boardWidth - 1))
-                return false;
-            else
-                shiftCoordinates[i] = entryVal + 1;
 
-        }
-        // at this point, all coordinates were shifted right,
-        // so update coordinates with shifted coordinates
-        coordinates = shiftCoordinates;
+/* ***************************************************************************
+ *    * Translation Methods: Left, Down, Right
+ ****************************************************************************/
 
-        // update the pivot point accordingly
-        pivot = pivot + 1;
+    /**
+     * Method used to translate piece left.
+     *
+     * @return true if translation was successful, false otherwise
+     */
+    public boolean left() {
 
+        if (!inBounds(rotation, row, col - 1))
+            return false;
+        col--;
         return true;
+
     }
 
     /**
-     * Method used to translate piece down. Updates the coordinate list.
-     * Logic is determined entirely by piece type and pivot location.
+     * Method used to translate piece right.
      *
      * @return true if translation was successful, false otherwise
      */
-    public boolean down() {
-
-        // update a copy of the coordinates, then update all at once
-        int[] shiftCoordinates = new int[NUM_OF_COORDINATES];
-
-        // verify that each coordinate can be translated down,
-        // and update the coordinate accordingly
-        for (int i = 0; i < NUM_OF_COORDINATES; i++) {
-
-            // get value and column location
-            int entryVal = coordinates[i];
-            int entryRow = entryVal / boardWidth;
+    public boolean right() {
 
-            // cannot shift right if any coordinate is in row (boardHeight - 1)
-            // otherwise, add 1 to represent a shift right
-            if (entryRow == (boardHeight - 1))
-                return false;
-            else
-                shiftCoordinates[i] = entryVal + boardWidth;
+        if (!inBounds(rotation, row, col + 1))
+            return false;
+        col++;
+        return true;
 
-        }
-        // at this point, all coordinates were shifted down,
-        // so update coordinates with shifted coordinates
-        coordinates = shiftCoordinates;
+    }
 
-        // update the pivot point accordingly
-        pivot = pivot + boardWidth;
+    /**
+     * Method used to translate piece down.
+     *
+     * @return true if translation was successful, false otherwise
+     */
+    public boolean down() {
 
+        if (!inBounds(rotation, row + 1, col))
+            return false;
+        row++;
         return true;
+
     }
 
 
+
 /* ***************************************************************************
  *    * Debug Methods
  ****************************************************************************/
@@ -637,7 +699,7 @@ public class TetrisPiece {
                     System.out.println("Not a valid piece type.");
             } else {
                 // create new piece with default board height and width
-                TetrisPiece activePiece = new TetrisPiece(type, Color.BLUE, boardHeight, boardWidth);
+                TetrisPiece activePiece = new TetrisPiece(type, 0, boardHeight, boardWidth);
                 System.out.println("Created new piece of type : " + type);
                 System.out.println(activePiece);
                 System.out.println(activePiece.showCoordinates());
@@ -0,0 +1,345 @@
+import java.awt.Color;
+
+/**
+ * A Renderer draws a TetrisBoard to Standard Draw: grid lines, the stored
+ * squares, the ghost of the active piece, and the active piece itself.
+ * <p>
+ * The renderer only reads the board, so the game rules stay free of any
+ * drawing code and can run headlessly (see TetrisEngine). It is a consumer
+ * of the board state like any other, and can draw any board of the
+ * dimensions it was created for.
+ * <p>
+ * Piece colors are indexes into COLOR_LIBRARY (see TetrisPiece.getColorIndex()).
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisRenderer {
+
+    // ----- Static Fields
+    // default values represent an optimized view in TetrisDisplay
+    private static final int DEFAULT_HEIGHT = 20;
+    private static final int DEFAULT_WIDTH = 10;
+    private static final double DEFAULT_ASP_RATIO = ((double) DEFAULT_HEIGHT) / DEFAULT_WIDTH;
+    private static final double SQUARE_OUTLINE_RADIUS = 0.0005;
+    private static final Color SQUARE_OUTLINE_COLOR = Color.BLACK;
+    private static final Color GRID_LINES_COLOR = Color.LIGHT_GRAY;
+    private static final double GHOST_OUTLINE_RADIUS = 0.003;
+    private static final double GHOST_SCALE = 0.85;
+
+    // define color space for pieces
+    private static final Color AZURE_WHITE = new Color(219, 233, 244);
+    private static final Color MIDNIGHT = new Color(46, 60, 99);
+    private static final Color NAVY = new Color(0, 0, 128);
+    private static final Color BABY_BLUE = new Color(137, 207, 240);
+    private static final Color SLATE = new Color(112, 128, 144);
+    private static final Color FOREST = new Color(74, 103, 65);
+    private static final Color LEAF = new Color(52, 194, 48);
+
+    // declare the library of piece colors, one per piece type (see TetrisPiece.typeIndex())
+    private static final Color[] COLOR_LIBRARY = {AZURE_WHITE, MIDNIGHT, NAVY, BABY_BLUE, SLATE, FOREST, LEAF};
+
+    // number of rows and cols of the boards drawn
+    private final int height;
+    private final int width;
+
+    // drawing parameters
+    private double xMin;
+    private double xMax;
+    private double yMin;
+    private double yMax;
+    private double gridSquareSize;
+
+
+/* ***************************************************************************
+ *    * Constructors and Initialization
+ ****************************************************************************/
+
+    /**
+     * Constructor initializes a renderer for boards of the given dimensions.
+     * @param height int number of rows
+     * @param width int number of cols
+     */
+    public TetrisRenderer(int height, int width) {
+
+        if (height < 1 || width < 1)
+            throw new IllegalArgumentException("Cannot render a board using dimensions provided.");
+
+        this.height = height;
+        this.width = width;
+
+    }
+
+    /**
+     * Public method used to set draw parameters. Values represent the location
+     * of the board within the ambient game display visual console.
+     *
+     * @param xMin double location of left side of board
+     * @param yMin double location of bottom of board
+     * @param xMax double location of right side of board
+     * @param yMax double location of top of board
+     */
+    public void setScale(double xMin, double yMin, double xMax, double yMax) {
+
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+
+        // calculate grid size based on aspect ratio
+        double aspRatio = ((double) height) / width;
+
+        if (aspRatio < DEFAULT_ASP_RATIO) {
+            gridSquareSize = (xMax - xMin) / width;
+            this.yMax = aspRatio * (xMax - xMin) + yMin;
+        } else {
+            gridSquareSize = (yMax - yMin) / height;
+            this.xMax = (1 / aspRatio) * (yMax - yMin) + xMin;
+        }
+
+    }
+
+    /**
+     * Maps a piece color index to the color it is drawn with.
+     * @param colorIndex int color index of a piece or stored square
+     * @return Color from COLOR_LIBRARY
+     */
+    public static Color pieceColor(int colorIndex) {
+
+        return COLOR_LIBRARY[colorIndex % COLOR_LIBRARY.length];
+
+    }
+
+
+/* ***************************************************************************
+ *    * Draw Methods
+ ****************************************************************************/
+
+    /**
+     * Draws the current board configuration to Standard Draw.
+     * Covers the display area defined by the setScale() initialization.
+     * @param board TetrisBoard to draw, with the renderer's dimensions
+     */
+    public void draw(TetrisBoard board) {
+
+        checkDimensions(board);
+
+        // draw board grid lines
+        drawGameGrid();
+        // draw occupied grid squares
+        drawBoard(board);
+        // outline where the active piece would land
+        drawGhostPiece(board, 1.0);
+        // draw the current active piece
+        drawActivePiece(board);
+
+    }
+
+    /**
+     * Private method used to draw faint grid lines that delineate grid squares.
+     * Note this draws the "inner" grid lines only.
+     */
+    private synchronized void drawGameGrid() {
+
+        // draw the ambient grid lines in light grey
+        StdDraw.setPenColor(GRID_LINES_COLOR);
+        StdDraw.setPenRadius(0.001);
+
+        // draw the horizontal grid lines
+        for (int row = 1; row < height; row++) {
+            double y = yMax - row * gridSquareSize;
+            StdDraw.line(xMin, y, xMax, y);
+        }
+
+        // draw the vertical grid lines
+        for (int col = 1; col < width; col++) {
+            double x = xMin + col * gridSquareSize;
+            StdDraw.line(x, yMin, x, yMax);
+        }
+
+    }
+
+    /**
+     * Private auxiliary method used to display the currently stored pieces
+     * in the board.
+     * Note this does not include the active piece, since its coordinates are
+     * not stored in the board until the next piece is generated.
+     * @param board TetrisBoard to draw
+     */
+    private void drawBoard(TetrisBoard board) {
+
+        for (int row = 0; row < height; row++) {
+            // skip vacant rows entirely
+            if (board.isRowEmpty(row))
+                continue;
+            for (int col = 0; col < width; col++) {
+                if (board.isOccupied(row, col)) {
+                    drawPieceSquare(row, col, pieceColor(board.colorAt(row, col)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method used to display the current active piece.
+     * @param board TetrisBoard to draw
+     */
+    private void drawActivePiece(TetrisBoard board) {
+
+        TetrisPiece activePiece = board.getActivePiece();
+        if (activePiece == null)
+            return;
+
+        int[] pieceCoordinates = activePiece.getCoordinates();
+        for (int coordinate : pieceCoordinates) {
+            int cRow = coordinate / width;
+            int cCol = coordinate % width;
+            drawPieceSquare(cRow, cCol, pieceColor(activePiece.getColorIndex()));
+        }
+
+    }
+
+    /**
+     * Private auxiliary method used to outline the squares the active piece
+     * would occupy if dropped now (the ghost piece). Nothing is drawn when
+     * the piece has already landed.
+     * @param board TetrisBoard to draw
+     * @param a double opacity between 0.0 and 1.0
+     */
+    private synchronized void drawGhostPiece(TetrisBoard board, double a) {
+
+        TetrisPiece activePiece = board.getActivePiece();
+        if (activePiece == null)
+            return;
+
+        int distance = board.dropDistance();
+        if (distance == 0)
+            return;
+
+        Color pieceColor = pieceColor(activePiece.getColorIndex());
+        StdDraw.setPenColor(new Color(pieceColor.getRed(), pieceColor.getGreen(), pieceColor.getBlue(), (int) (a * 255)));
+        StdDraw.setPenRadius(GHOST_OUTLINE_RADIUS);
+
+        double squareCenter = 0.5 * gridSquareSize;
+        for (int coordinate : activePiece.getCoordinates()) {
+            int cRow = coordinate / width + distance;
+            int cCol = coordinate % width;
+            double x = xMin + squareCenter + cCol * gridSquareSize;
+            double y = yMax - squareCenter - cRow * gridSquareSize;
+            StdDraw.square(x, y, squareCenter * GHOST_SCALE);
+        }
+
+    }
+
+    /**
+     * Private helper method used to draw a single piece square at a given row and
+     * column position
+     * Method uses class variables to determine position, size, and appearance.
+     * @param row int row of the square to be drawn
+     * @param col int column of the square to be drawn
+     * @param squareColor Color of the square
+     */
+    private synchronized void drawPieceSquare(int row, int col, Color squareColor) {
+
+        // get square half-length / center offset
+        double squareCenter = 0.5 * gridSquareSize;
+
+        // get center x and y (flip y since origin is at bottom left)
+        double x = xMin + squareCenter + col * gridSquareSize;
+        double y = yMax - squareCenter - row * gridSquareSize;
+
+        // fill interior of square with squareColor
+        StdDraw.setPenColor(squareColor);
+        StdDraw.filledSquare(x, y, squareCenter);
+
+        // lightly outline each square in black
+        StdDraw.setPenColor(SQUARE_OUTLINE_COLOR);
+        StdDraw.setPenRadius(SQUARE_OUTLINE_RADIUS);
+        StdDraw.square(x, y, squareCenter);
+
+    }
+
+    // private helper method rejecting a board the renderer was not scaled for
+    private void checkDimensions(TetrisBoard board) {
+
+        if (board.height() != height || board.width() != width)
+            throw new IllegalArgumentException("Board and renderer have different dimensions");
+
+    }
+
+
+/* ***************************************************************************
+ *    * Animate Methods
+ ****************************************************************************/
+
+    /**
+     * Draws the current board configuration with every square faded to the
+     * given opacity. Used for the new game menu.
+     * @param board TetrisBoard to draw, with the renderer's dimensions
+     * @param a double opacity between 0.0 and 1.0
+     */
+    public void draw(TetrisBoard board, double a) {
+
+        checkDimensions(board);
+
+        drawGameGrid();
+        drawBoard(board, a);
+        drawGhostPiece(board, a);
+        drawActivePiece(board, a);
+
+    }
+
+    private void drawBoard(TetrisBoard board, double a) {
+
+        for (int row = 0; row < height; row++) {
+            if (board.isRowEmpty(row))
+                continue;
+            for (int col = 0; col < width; col++) {
+                if (board.isOccupied(row, col)) {
+                    drawPieceSquare(row, col, pieceColor(board.colorAt(row, col)), a);
+                }
+            }
+        }
+    }
+
+    private void drawActivePiece(TetrisBoard board, double a) {
+
+        TetrisPiece activePiece = board.getActivePiece();
+        if (activePiece == null)
+            return;
+
+        int[] pieceCoordinates = activePiece.getCoordinates();
+        for (int i = 0; i < pieceCoordinates.length; i++) {
+            int coordinate = pieceCoordinates[i];
+            int cRow = coordinate / width;
+            int cCol = coordinate % width;
+            drawPieceSquare(cRow, cCol, pieceColor(activePiece.getColorIndex()), a);
+        }
+
+    }
+
+    private synchronized void drawPieceSquare(int row, int col, Color squareColor, double a) {
+
+        // get square half-length
+        double squareCenter = 0.5 * gridSquareSize;
+
+        double x = xMin + squareCenter + col * gridSquareSize;
+        // flip y since origin is at bottom left
+        double y = yMax - squareCenter - row * gridSquareSize;
+
+        // fill interior of square with squareColor
+        int alpha = (int) (a * 255);
+        squareColor = new Color(squareColor.getRed(), squareColor.getGreen(), squareColor.getBlue(), alpha);
+        StdDraw.setPenColor(squareColor);
+        StdDraw.filledSquare(x, y, squareCenter);
+
+        // lightly outline each square in black
+        int bAlpha = (int) (0.60 * 255);
+        Color aBlack = new Color(0, 0, 0, bAlpha);
+
+        StdDraw.setPenColor(aBlack);
+        StdDraw.setPenRadius(0.0005);
+        StdDraw.square(x, y, squareCenter);
+
+    }
+
+}
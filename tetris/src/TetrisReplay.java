@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A Replay is a recorded game read back from disk (see ReplayRecorder for the
+ * file format): how the engine was created, the ticks that had an input and
+ * the inputs held on them, the last tick recorded, and the score reached.
+ * <p>
+ * The whole file is read through a FileChannel and decoded once, into two
+ * parallel arrays sorted by tick, so a player can look up the input of any
+ * tick by binary search.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisReplay {
+
+    // ----- Header
+    private final int height;
+    private final int width;
+    private final int gravityTicks;
+    private final int randomizerKind;
+    private final long seed;
+
+    // ----- Inputs, in tick order
+    private final long[] ticks;
+    private final int[] inputs;
+
+    // ----- Trailer
+    private final long lastTick;
+    private final int score;
+
+
+/* ***************************************************************************
+ *    * Constructors
+ ****************************************************************************/
+
+    /**
+     * Constructor reads and decodes a replay file.
+     * @param file Path of the replay file
+     * @throws IOException if the file cannot be read, or is not a complete replay
+     */
+    public TetrisReplay(Path file) throws IOException {
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Replay too large: " + file);
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    throw new IOException("Replay is truncated: " + file);
+            }
+            buffer.flip();
+        }
+
+        try {
+            byte[] magic = new byte[ReplayRecorder.MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, ReplayRecorder.MAGIC))
+                throw new IOException("Not a replay file: " + file);
+
+            this.height = (int) getVarint(buffer);
+            this.width = (int) getVarint(buffer);
+            this.gravityTicks = (int) getVarint(buffer);
+            this.randomizerKind = (int) getVarint(buffer);
+            this.seed = buffer.getLong();
+
+            // every record holds at least one byte, which bounds the number of inputs
+            long[] ticks = new long[buffer.remaining()];
+            int[] inputs = new int[buffer.remaining()];
+            int count = 0;
+            long tick = 0;
+            while (true) {
+                long record = getVarint(buffer);
+                tick += record >>> ReplayRecorder.INPUT_BITS;
+                int input = (int) (record & ((1 << ReplayRecorder.INPUT_BITS) - 1));
+                if (input == TetrisEngine.NONE)
+                    break;
+                ticks[count] = tick;
+                inputs[count] = input;
+                count++;
+            }
+            this.ticks = Arrays.copyOf(ticks, count);
+            this.inputs = Arrays.copyOf(inputs, count);
+            this.lastTick = tick;
+            this.score = (int) getVarint(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Replay is truncated: " + file, e);
+        }
+
+    }
+
+    // private helper method reading an unsigned varint written by ReplayRecorder
+    private static long getVarint(ByteBuffer buffer) throws IOException {
+
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IOException("Malformed varint in replay");
+
+    }
+
+
+/* ***************************************************************************
+ *    * Accessor Methods
+ ****************************************************************************/
+
+    /**
+     * Creates an engine in the state the recorded game started in.
+     * @return TetrisEngine at tick 0 of the replay
+     */
+    public TetrisEngine newEngine() {
+
+        return new TetrisEngine(height, width, gravityTicks, randomizerKind, seed);
+
+    }
+
+    /**
+     * Returns the input held on a tick.
+     * @param tick long tick between 1 and lastTick()
+     * @return int TetrisEngine input flags, NONE if none were recorded
+     */
+    public int inputAt(long tick) {
+
+        int index = Arrays.binarySearch(ticks, tick);
+        return index >= 0 ? inputs[index] : TetrisEngine.NONE;
+
+    }
+
+    /**
+     * Returns the index of the first recorded input after a tick, from which
+     * inputs can be read in order with tickOf() and inputOf().
+     * @param tick long tick, 0 for the first input
+     * @return int index between 0 and inputCount()
+     */
+    public int indexAfter(long tick) {
+
+        int index = Arrays.binarySearch(ticks, tick);
+        return index >= 0 ? index + 1 : -index - 1;
+
+    }
+
+    /**
+     * Accessor method used to get the number of ticks that had an input.
+     * @return int recorded inputs
+     */
+    public int inputCount() {
+
+        return ticks.length;
+
+    }
+
+    /**
+     * Accessor method used to get the tick of a recorded input.
+     * @param index int between 0 and inputCount() - 1
+     * @return long tick the input was held on
+     */
+    public long tickOf(int index) {
+
+        return ticks[index];
+
+    }
+
+    /**
+     * Accessor method used to get a recorded input.
+     * @param index int between 0 and inputCount() - 1
+     * @return int TetrisEngine input flags
+     */
+    public int inputOf(int index) {
+
+        return inputs[index];
+
+    }
+
+    /**
+     * Accessor method used to get the last tick recorded.
+     * @return long length of the recorded game in ticks
+     */
+    public long lastTick() {
+
+        return lastTick;
+
+    }
+
+    /**
+     * Accessor method used to get the score the recorded game reached.
+     * @return int score at the last tick
+     */
+    public int score() {
+
+        return score;
+
+    }
+
+}
@@ -0,0 +1,466 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class used to tune the TetrisBot weights by self-play, using the
+ * cross-entropy method:
+ * * (1) Sample a population of weight vectors from a normal distribution
+ * *     (one mean and deviation per feature), each scaled to unit length.
+ * * (2) Play every vector on the same seeded games, headlessly.
+ * * (3) Refit the distribution to the elite: the vectors that scored the
+ * *     most points. A little extra deviation, shrinking each generation,
+ * *     keeps the search from collapsing early.
+ * * (4) Re-score the elite on a fixed set of validation games, the same in
+ * *     every generation, and keep the best vector by its validation score.
+ * <p>
+ * The games of step (2) change every generation, so their scores are only
+ * comparable within a generation; the best vector so far is only ever
+ * compared on the validation games.
+ * <p>
+ * Every (vector, game) pair is a separate game, and the games of a generation
+ * are split across a work-stealing fork-join pool with one worker per core.
+ * Each game adds its score, lines and pieces to lock-free adders as it
+ * finishes, so the workers never wait on each other. The bots search without
+ * lookahead and on their own thread, as the games already keep every core busy.
+ * <p>
+ * Fitness is the average score rather than lines cleared: a good bot clears
+ * nearly every line its pieces allow, so lines alone cannot tell good vectors
+ * apart before the piece limit, while the score also rewards clearing
+ * several lines at once.
+ * <p>
+ * After each generation the distribution, the validation seed and the best
+ * vector so far are written to the checkpoint file (replaced atomically), and
+ * a run given an existing checkpoint resumes from it.
+ * <p>
+ * Usage: TetrisTuner [checkpoint] [generations] [population] [games] [max pieces] [seed]
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class TetrisTuner {
+
+    // board dimensions, as in TetrisHeadless
+    private static final int HEIGHT = 20;
+    private static final int WIDTH = 10;
+
+    // gravity slow enough that the bot always drops its pieces itself
+    private static final int GRAVITY_TICKS = 1_000;
+
+    // fraction of each generation refit to, and the extra deviation added
+    private static final double ELITE_FRACTION = 0.2;
+    private static final double INITIAL_DEVIATION = 0.5;
+    private static final double EXTRA_DEVIATION = 0.1;
+
+    // games played by each fork-join subtask
+    private static final int LEAF_SIZE = 4;
+
+    // ----- Tuner Specific Fields
+    private final ForkJoinPool pool;
+    private final Path checkpoint;
+    private final int population;
+    private final int games;
+    private final int maxPieces;
+    private final SplittableRandom random;
+
+    // ----- Dynamic Fields
+    // seed of the first validation game, kept by the checkpoint
+    private long validationSeed;
+
+    // the sampling distribution, one entry per feature
+    private final double[] mean;
+    private final double[] deviation;
+
+    // best vector seen so far, and the points per game it scored on the validation games
+    private double[] best;
+    private double bestFitness;
+    private int generation;
+
+
+/* ***************************************************************************
+ *    * Constructors
+ ****************************************************************************/
+
+    /**
+     * Constructor creates a tuner, resuming from the checkpoint if it exists
+     * and otherwise starting around the bot's default weights.
+     *
+     * @param pool ForkJoinPool the games are played on
+     * @param checkpoint Path of the checkpoint file
+     * @param population int weight vectors sampled per generation
+     * @param games int games each vector plays per generation
+     * @param maxPieces int pieces after which a game is stopped
+     * @param seed long seed of the sampling and of the games, and of the validation games of a new run
+     * @throws IOException if an existing checkpoint cannot be read
+     * @throws IllegalArgumentException if population, games or maxPieces is not positive
+     */
+    public TetrisTuner(ForkJoinPool pool, Path checkpoint, int population, int games, int maxPieces, long seed)
+            throws IOException {
+
+        if (population < 1 || games < 1 || maxPieces < 1)
+            throw new IllegalArgumentException("Population, games and pieces must be positive");
+
+        this.pool = pool;
+        this.checkpoint = checkpoint;
+        this.population = population;
+        this.games = games;
+        this.maxPieces = maxPieces;
+
+        this.mean = normalize(TetrisBot.defaultWeights());
+        this.deviation = new double[TetrisBot.NUM_OF_FEATURES];
+        Arrays.fill(deviation, INITIAL_DEVIATION);
+        this.best = mean.clone();
+        this.bestFitness = Double.NEGATIVE_INFINITY;
+        this.validationSeed = seed;
+        this.generation = 0;
+
+        if (Files.exists(checkpoint))
+            load();
+
+        // a resumed run does not repeat the samples of the generations already run
+        this.random = new SplittableRandom(seed + generation);
+
+    }
+
+
+/* ***************************************************************************
+ *    * Tuning
+ ****************************************************************************/
+
+    /**
+     * Runs one generation: samples, plays, refits and validates, then writes
+     * the checkpoint and reports progress.
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void step() throws IOException {
+
+        // 1 - sample the population
+        double[][] candidates = new double[population][];
+        for (int i = 0; i < population; i++) {
+            double[] weights = new double[TetrisBot.NUM_OF_FEATURES];
+            for (int f = 0; f < weights.length; f++)
+                weights[f] = mean[f] + deviation[f] * random.nextGaussian();
+            candidates[i] = normalize(weights);
+        }
+
+        // 2 - play every candidate on the same games
+        LongAdder[] scores = adders(population);
+        LongAdder lines = new LongAdder();
+        LongAdder pieces = new LongAdder();
+        long gameSeed = random.nextLong();
+
+        long start = System.nanoTime();
+        pool.invoke(new Games(candidates, gameSeed, scores, lines, pieces, 0, population * games));
+
+        // 3 - refit to the elite
+        double[] fitness = new double[population];
+        Integer[] order = new Integer[population];
+        for (int i = 0; i < population; i++) {
+            fitness[i] = (double) scores[i].sum() / games;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+        int elite = Math.max(1, (int) Math.round(population * ELITE_FRACTION));
+        refit(candidates, order, elite);
+
+        // 4 - re-score the elite on the validation games, which every generation shares
+        double[][] elites = new double[elite][];
+        for (int i = 0; i < elite; i++)
+            elites[i] = candidates[order[i]];
+        LongAdder[] validation = adders(elite);
+        pool.invoke(new Games(elites, validationSeed, validation, lines, pieces, 0, elite * games));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int validated = 0;
+        for (int i = 1; i < elite; i++) {
+            if (validation[i].sum() > validation[validated].sum())
+                validated = i;
+        }
+        double validatedFitness = (double) validation[validated].sum() / games;
+        if (validatedFitness > bestFitness) {
+            bestFitness = validatedFitness;
+            best = elites[validated];
+        }
+        generation++;
+        save();
+
+        double eliteFitness = 0;
+        for (int i = 0; i < elite; i++)
+            eliteFitness += fitness[order[i]] / elite;
+        int played = (population + elite) * games;
+        System.out.printf("generation %d: best %.0f points/game, elite %.0f, validated %.0f (best so far %.0f), "
+                        + "%.1f lines/game, %d games in %.1f s (%.0f pieces/s)%n",
+                generation, fitness[order[0]], eliteFitness, validatedFitness, bestFitness,
+                (double) lines.sum() / played, played, seconds, pieces.sum() / seconds);
+
+    }
+
+    /**
+     * Private helper method that sets the mean and deviation of each feature
+     * to those of the elite, adding the extra deviation of this generation.
+     * @param candidates double[][] the population
+     * @param order Integer[] candidate indexes, best first
+     * @param elite int number of candidates refit to
+     */
+    private void refit(double[][] candidates, Integer[] order, int elite) {
+
+        double extra = EXTRA_DEVIATION / (generation + 1);
+        for (int f = 0; f < TetrisBot.NUM_OF_FEATURES; f++) {
+            double sum = 0;
+            for (int i = 0; i < elite; i++)
+                sum += candidates[order[i]][f];
+            double featureMean = sum / elite;
+
+            double squares = 0;
+            for (int i = 0; i < elite; i++) {
+                double d = candidates[order[i]][f] - featureMean;
+                squares += d * d;
+            }
+            mean[f] = featureMean;
+            deviation[f] = Math.sqrt(squares / elite) + extra;
+        }
+
+    }
+
+    // private helper method creating one adder per candidate
+    private static LongAdder[] adders(int count) {
+
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++)
+            adders[i] = new LongAdder();
+        return adders;
+
+    }
+
+    /**
+     * A fork-join task that plays a range of games, splitting the range in
+     * half until it holds no more than LEAF_SIZE games. Game g is played by
+     * candidate g / games on the (g % games)-th seed after gameSeed.
+     */
+    private final class Games extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] candidates;
+        private final long gameSeed;
+        private final LongAdder[] scores;
+        private final LongAdder lines;
+        private final LongAdder pieces;
+        private final int from;
+        private final int to;
+
+        private Games(double[][] candidates, long gameSeed, LongAdder[] scores, LongAdder lines, LongAdder pieces,
+                      int from, int to) {
+
+            this.candidates = candidates;
+            this.gameSeed = gameSeed;
+            this.scores = scores;
+            this.lines = lines;
+            this.pieces = pieces;
+            this.from = from;
+            this.to = to;
+
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Games(candidates, gameSeed, scores, lines, pieces, from, mid),
+                        new Games(candidates, gameSeed, scores, lines, pieces, mid, to));
+                return;
+            }
+
+            for (int g = from; g < to; g++) {
+                int candidate = g / games;
+                TetrisEngine engine = play(candidates[candidate], gameSeed + g % games);
+                scores[candidate].add(engine.score());
+                lines.add(engine.board().linesCleared());
+                pieces.add(engine.piecesLocked());
+            }
+
+        }
+
+    }
+
+    /**
+     * Plays one bot game, stopping at game over or after maxPieces pieces.
+     * @param weights double[] bot weights
+     * @param seed long seed of the game's pieces
+     * @return TetrisEngine holding the finished game
+     */
+    public TetrisEngine play(double[] weights, long seed) {
+
+        TetrisEngine engine = new TetrisEngine(HEIGHT, WIDTH, GRAVITY_TICKS, PieceRandomizer.SEVEN_BAG, seed);
+        TetrisBot bot = new TetrisBot(weights, false, null);
+        while (!engine.isGameOver() && engine.piecesLocked() < maxPieces)
+            engine.step(bot.nextInput(engine));
+        return engine;
+
+    }
+
+    // private helper method scaling weights to unit length, since only their direction changes the bot's choices
+    private static double[] normalize(double[] weights) {
+
+        double norm = 0;
+        for (double w : weights)
+            norm += w * w;
+        norm = Math.sqrt(norm);
+        for (int f = 0; f < weights.length; f++)
+            weights[f] /= norm;
+        return weights;
+
+    }
+
+
+/* ***************************************************************************
+ *    * Checkpoints
+ ****************************************************************************/
+
+    /**
+     * Private helper method that writes the tuner state to a temporary file,
+     * then moves it over the checkpoint, so an interrupted run never leaves a
+     * partial checkpoint behind. One line per value: a name, then numbers.
+     * @throws IOException if the file cannot be written
+     */
+    private void save() throws IOException {
+
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            out.write("generation " + generation + "\n");
+            out.write("mean " + join(mean) + "\n");
+            out.write("deviation " + join(deviation) + "\n");
+            out.write("validation " + validationSeed + "\n");
+            out.write("best " + join(best) + "\n");
+            out.write("fitness " + bestFitness + "\n");
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+    /**
+     * Private helper method that restores the tuner state from the checkpoint.
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    private void load() throws IOException {
+
+        List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String[] fields = line.trim().split("\\s+");
+            switch (fields[0]) {
+                case "generation" -> generation = Integer.parseInt(fields[1]);
+                case "mean" -> parse(fields, mean);
+                case "deviation" -> parse(fields, deviation);
+                case "validation" -> validationSeed = Long.parseLong(fields[1]);
+                case "best" -> parse(fields, best);
+                case "fitness" -> bestFitness = Double.parseDouble(fields[1]);
+                default -> throw new IOException("Not a tuner checkpoint line: " + line);
+            }
+        }
+
+    }
+
+    // private helper method joining values with spaces, as written to the checkpoint
+    private static String join(double[] values) {
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                builder.append(' ');
+            builder.append(values[i]);
+        }
+        return builder.toString();
+
+    }
+
+    // private helper method reading the values of a checkpoint line into an array
+    private static void parse(String[] fields, double[] values) throws IOException {
+
+        if (fields.length != values.length + 1)
+            throw new IOException("Expected " + values.length + " values for " + fields[0]);
+        for (int i = 0; i < values.length; i++)
+            values[i] = Double.parseDouble(fields[i + 1]);
+
+    }
+
+
+/* ***************************************************************************
+ *    * Accessor Methods
+ ****************************************************************************/
+
+    /**
+     * Accessor method used to get the best weights found so far.
+     * @return double[] copy of the best weights, in feature order
+     */
+    public double[] best() {
+
+        return best.clone();
+
+    }
+
+    /**
+     * Accessor method used to get the points per game scored by the best weights
+     * on the validation games.
+     * @return double best fitness, negative infinity before the first generation
+     */
+    public double bestFitness() {
+
+        return bestFitness;
+
+    }
+
+    /**
+     * Accessor method used to get the number of generations run, including
+     * those of the checkpoint resumed from.
+     * @return int generations run
+     */
+    public int generation() {
+
+        return generation;
+
+    }
+
+
+/* ***************************************************************************
+ *    * Client
+ ****************************************************************************/
+
+    /**
+     * Client runs a tuning session as described in the class description.
+     * @param args String[] optional checkpoint, generations, population, games, piece limit and seed
+     * @throws IOException if the checkpoint cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+
+        Path checkpoint = Paths.get(args.length > 0 ? args[0] : "tetris-weights.txt");
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int population = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int maxPieces = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        ForkJoinPool pool = new ForkJoinPool();
+        TetrisTuner tuner = new TetrisTuner(pool, checkpoint, population, games, maxPieces, seed);
+        System.out.printf("Tuning on %d core(s) from generation %d: %d games per generation%n",
+                pool.getParallelism(), tuner.generation(), population * games);
+
+        for (int i = 0; i < generations; i++)
+            tuner.step();
+        pool.shutdown();
+
+        System.out.println("Best weights (height, lines, holes, bumpiness, wells): " + Arrays.toString(tuner.best()));
+        System.out.printf("Best fitness %.0f points/game, checkpoint %s%n", tuner.bestFitness(), checkpoint);
+
+    }
+
+}
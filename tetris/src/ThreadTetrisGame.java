@@ -1,21 +1,35 @@
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * A TetrisGame is a thread that uses a shared TetrisDisplay to provide
  * a UI for game dynamics:
  * * (1) Creates a new Tetris game via click-based UI.
- * * (2) Runs automatic drop until new piece cannot be generated.
+ * * (2) Steps the game engine on a fixed tick until a new piece cannot be
+ * *     generated, redrawing after each tick that changed the game.
  * * (3) Provides click-based UI for starting a new game after game-over.
+ * <p>
+ * Given a replay directory, each game is recorded there as it is played
+ * (see ReplayRecorder), and can be watched again with ReplayPlayer.
  *
  * @author adamm.hockman@gmail.com
  */
 public class ThreadTetrisGame extends Thread {
 
-    // time between drops
+    // time between engine ticks, and between drops
+    public static final int TICK_TIME = 20;
     private static final int DROP_TIME = 500;
 
+    // engine ticks between each row a piece falls
+    public static final int GRAVITY_TICKS = DROP_TIME / TICK_TIME;
+
     // tetris display
     private final TetrisDisplay display;
 
+    // directory games are recorded to, null to not record
+    private final Path replayDirectory;
+
 
 /* ***************************************************************************
  *    * Constructors and Initialization
@@ -29,9 +43,22 @@ public class ThreadTetrisGame extends Thread {
      */
     public ThreadTetrisGame(TetrisDisplay display) {
 
+        this(display, null);
+
+    }
+
+    /**
+     * Constructor takes a reference to a TetrisDisplay, and a directory to
+     * record each game to.
+     * @param display TetrisDisplay provides all interface with user
+     * @param replayDirectory Path of an existing directory, or null to not record
+     */
+    public ThreadTetrisGame(TetrisDisplay display, Path replayDirectory) {
+
         if (display == null)
             throw new IllegalArgumentException("Must supply non-null reference to constructor");
         this.display = display;
+        this.replayDirectory = replayDirectory;
 
     }
 
@@ -81,8 +108,10 @@ public class ThreadTetrisGame extends Thread {
     }
 
     /**
-     * Private helper method that continuously drops an active display.
-     * An active display has already initialized the board and generated
+     * Private helper method that steps an active display's engine once per
+     * tick: gravity and the keyboard inputs received during the tick are
+     * applied by the engine, and the display is redrawn if anything changed.
+     * An active display has already initialized the engine and generated
      * an active piece.
      * <p>
      * This method also starts and ends the keyboard UI thread that allows
@@ -91,38 +120,52 @@ public class ThreadTetrisGame extends Thread {
      */
     private synchronized void runNewGame() {
 
+        // record the game before its first tick
+        Path replay = null;
+        if (replayDirectory != null) {
+            replay = replayDirectory.resolve("tetris-" + System.currentTimeMillis() + ".replay");
+            try {
+                display.startRecording(replay);
+            } catch (IOException e) {
+                System.out.println("Cannot record game: " + e.getMessage());
+                replay = null;
+            }
+        }
+
         // initialize and run the keyboard UI thread
         ThreadTetrisUI keyUI = new ThreadTetrisUI(display);
         keyUI.start();
 
         // run until a new piece cannot be generated
-        do {
-            // continue moving the active piece down
-            while (display.down()) {
-                // update the display
+        display.refresh();
+        while (!display.isGameOver()) {
+            // advance one tick, redrawing if anything moved
+            if (display.step() != TetrisEngine.NONE)
                 display.refresh();
-                // wait the dropTime
-                sleep();
-            }
-        } while (display.generatePiece());
+            // wait the tick time
+            sleep();
+        }
 
         // interrupt and close keyboard UI
         keyUI.interrupt();
+        display.stopRecording();
 
         // print to terminal
         System.out.println("Game Over - Score: " + display.getScore());
+        if (replay != null)
+            System.out.println("Replay saved to " + replay);
 
     }
 
     /**
-     * Private helper method used to simplify the drop mechanism in run().
-     * Waits the pre-set drop time before returning.
+     * Private helper method used to simplify the tick mechanism in run().
+     * Waits the pre-set tick time before returning.
      */
     private void sleep() {
 
-        // sleep for the dropTime set above
+        // sleep for the tickTime set above
         try {
-            Thread.sleep(DROP_TIME);
+            Thread.sleep(TICK_TIME);
         } catch (InterruptedException e) {
             System.out.println("Sleep was interrupted: " + e.getMessage());
         }
@@ -138,7 +181,7 @@ public class ThreadTetrisGame extends Thread {
     /*
     public static void main(String[] args) {
 
-        TetrisDisplay display0 = new TetrisDisplay(20,10);
+        TetrisDisplay display0 = new TetrisDisplay(20, 10, GRAVITY_TICKS);
         ThreadTetrisGame myThread = new ThreadTetrisGame(display0);
 
         myThread.start();
@@ -42,7 +42,8 @@ public class ThreadTetrisUI extends Thread {
      * <p>
      * Listens for keyboard events corresponding to the movements
      * outlined in the class summary.
-     * Performs all actions on the shared display.
+     * Queues each as an input on the shared display, which the game
+     * thread applies (and draws) on its next engine tick.
      */
     public synchronized void run() {
 
@@ -50,36 +51,27 @@ public class ThreadTetrisUI extends Thread {
         while (!Thread.interrupted()) {
             // move piece down
             if (StdDraw.isKeyPressed(KeyEvent.VK_DOWN)) {
-                if (display.down()) {
-                    display.refresh();
-                    sleep(TRANSLATE_PIECE_TIME);
-                }
+                display.input(TetrisEngine.DOWN);
+                sleep(TRANSLATE_PIECE_TIME);
             }
             // move piece left
             if (StdDraw.isKeyPressed(KeyEvent.VK_LEFT)) {
-                if (display.left()) {
-                    display.refresh();
-                    sleep(TRANSLATE_PIECE_TIME);
-                }
+                display.input(TetrisEngine.LEFT);
+                sleep(TRANSLATE_PIECE_TIME);
             }
             // move piece right
             if (StdDraw.isKeyPressed(KeyEvent.VK_RIGHT)) {
-                if (display.right()) {
-                    display.refresh();
-                    sleep(TRANSLATE_PIECE_TIME);
-                }
+                display.input(TetrisEngine.RIGHT);
+                sleep(TRANSLATE_PIECE_TIME);
             }
             // rotate piece
             if (StdDraw.isKeyPressed(KeyEvent.VK_SPACE)) {
-                if (display.rotate()) {
-                    display.refresh();
-                    sleep(ROTATE_PIECE_TIME);
-                }
+                display.input(TetrisEngine.ROTATE);
+                sleep(ROTATE_PIECE_TIME);
             }
             // drop piece
             if (StdDraw.isKeyPressed(KeyEvent.VK_UP)) {
-                display.dropPiece();
-                display.refresh();
+                display.input(TetrisEngine.DROP);
                 sleep(DROP_PIECE_TIME);
             }
         }
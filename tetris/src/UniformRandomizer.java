@@ -0,0 +1,72 @@
+/**
+ * A UniformRandomizer deals each piece independently, with every type equally
+ * likely. Long droughts and floods of one type are possible.
+ *
+ * @author adamm.hockman@gmail.com
+ */
+public class UniformRandomizer implements PieceRandomizer {
+
+    private final SplitMix64 random;
+
+    // seed of the sequence, and pieces dealt from it
+    private final long seed;
+    private long count;
+
+    /**
+     * Constructor seeds the sequence.
+     * @param seed long seed of the sequence
+     */
+    public UniformRandomizer(long seed) {
+
+        this.random = new SplitMix64(seed);
+        this.seed = seed;
+        this.count = 0;
+
+    }
+
+    // private constructor used by copy()
+    private UniformRandomizer(UniformRandomizer other) {
+
+        this.random = other.random.copy();
+        this.seed = other.seed;
+        this.count = other.count;
+
+    }
+
+    @Override
+    public int next() {
+
+        count++;
+        return random.nextInt(TetrisPiece.NUM_OF_TYPES);
+
+    }
+
+    @Override
+    public PieceRandomizer copy() {
+
+        return new UniformRandomizer(this);
+
+    }
+
+    @Override
+    public int kind() {
+
+        return UNIFORM;
+
+    }
+
+    @Override
+    public long seed() {
+
+        return seed;
+
+    }
+
+    @Override
+    public long dealt() {
+
+        return count;
+
+    }
+
+}